@@ -0,0 +1,196 @@
+package com.haui.coffee_shop.benchmark;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.haui.coffee_shop.cache.CatalogCache;
+import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.common.enums.OrderStatus;
+import com.haui.coffee_shop.common.enums.PaymentMethod;
+import com.haui.coffee_shop.common.enums.Status;
+import com.haui.coffee_shop.config.MessageBuilder;
+import com.haui.coffee_shop.export.ExcelExportService;
+import com.haui.coffee_shop.export.ExportJobService;
+import com.haui.coffee_shop.export.FlatExportService;
+import com.haui.coffee_shop.model.Brand;
+import com.haui.coffee_shop.model.Category;
+import com.haui.coffee_shop.model.Image;
+import com.haui.coffee_shop.model.Order;
+import com.haui.coffee_shop.model.OrderItem;
+import com.haui.coffee_shop.model.Product;
+import com.haui.coffee_shop.model.ProductItem;
+import com.haui.coffee_shop.model.ProductStats;
+import com.haui.coffee_shop.model.ShippingAddress;
+import com.haui.coffee_shop.model.TypeProduct;
+import com.haui.coffee_shop.payload.response.ProductSummaryResponse;
+import com.haui.coffee_shop.repository.BrandRepository;
+import com.haui.coffee_shop.repository.CategoryRepository;
+import com.haui.coffee_shop.repository.ImageRepository;
+import com.haui.coffee_shop.repository.ProductItemRepository;
+import com.haui.coffee_shop.repository.ProductRepository;
+import com.haui.coffee_shop.repository.ReviewRepository;
+import com.haui.coffee_shop.repository.TypeProductRepository;
+import com.haui.coffee_shop.search.AutocompleteIndex;
+import com.haui.coffee_shop.search.ProductFacetIndex;
+import com.haui.coffee_shop.search.ProductSearchIndex;
+import com.haui.coffee_shop.service.CloudinaryService;
+import com.haui.coffee_shop.service.LeaderboardService;
+import com.haui.coffee_shop.service.ProductService;
+import com.haui.coffee_shop.service.ProductStatsService;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Dữ liệu trong bộ nhớ cho các microbenchmark, gần giống một trang danh sách sản phẩm thật
+final class BenchmarkFixtures {
+	static final int IMAGES_PER_PRODUCT = 3;
+	private static final double ITEM_PRICE = 185000;
+	private static final double ITEM_DISCOUNT = 15000;
+	private static final int ITEM_AMOUNT = 2;
+
+	private BenchmarkFixtures() {
+	}
+
+	static List<Product> products(int count) {
+		Category category = new Category();
+		category.setId(1);
+		category.setName("Cà phê hạt");
+		category.setStatus(Status.ACTIVE);
+		Brand brand = new Brand();
+		brand.setId(1);
+		brand.setName("Trung Nguyên");
+		brand.setStatus(Status.ACTIVE);
+
+		List<Product> products = new ArrayList<>(count);
+		for (int i = 1; i <= count; i++) {
+			products.add(Product.builder()
+					.id(i)
+					.name("Cà phê rang xay số " + i)
+					.description("Hương vị đậm đà, hậu vị ngọt, phù hợp pha phin và espresso. ".repeat(4))
+					.category(category)
+					.brand(brand)
+					.status(Status.ACTIVE)
+					.netWeight("500g")
+					.beanType("Robusta")
+					.origin("Buôn Ma Thuột")
+					.roadLevel("Medium")
+					.flavoNotes("Chocolate, caramel")
+					.caffeineContents("High")
+					.cafeForm("Ground")
+					.articleTitle("Câu chuyện hạt cà phê " + i)
+					.article("<p>Bài viết giới thiệu sản phẩm.</p>".repeat(20))
+					.createdAt(new Date())
+					.build());
+		}
+		return products;
+	}
+
+	// ProductService thật với repository là mock trả sẵn ảnh và product_stats của products
+	static ProductService productService(List<Product> products) {
+		ImageRepository imageRepository = mock(ImageRepository.class);
+		when(imageRepository.findByProductIdIn(any())).thenReturn(images(products));
+		ProductStatsService productStatsService = mock(ProductStatsService.class);
+		when(productStatsService.findByProductIds(any())).thenReturn(stats(products));
+		return new ProductService(mock(ProductRepository.class), mock(ProductItemRepository.class),
+				mock(CategoryRepository.class), mock(BrandRepository.class), mock(TypeProductRepository.class),
+				mock(ReviewRepository.class), mock(MessageBuilder.class), mock(CloudinaryService.class), imageRepository,
+				productStatsService, mock(LeaderboardService.class), mock(CatalogCache.class),
+				mock(ProductSearchIndex.class), mock(AutocompleteIndex.class), mock(ProductFacetIndex.class),
+				mock(ApplicationEventPublisher.class), mock(ExcelExportService.class),
+				mock(ExportJobService.class), mock(FlatExportService.class));
+	}
+
+	static List<Image> images(List<Product> products) {
+		List<Image> images = new ArrayList<>(products.size() * IMAGES_PER_PRODUCT);
+		long id = 1;
+		for (Product product : products) {
+			for (int i = 0; i < IMAGES_PER_PRODUCT; i++) {
+				images.add(new Image(id, "https://res.cloudinary.com/demo/image/upload/v1/product_" + id + ".jpg", product));
+				id++;
+			}
+		}
+		return images;
+	}
+
+	static Map<Long, ProductStats> stats(List<Product> products) {
+		Map<Long, ProductStats> stats = new HashMap<>();
+		for (Product product : products) {
+			ProductStats productStats = new ProductStats();
+			productStats.setProductId(product.getId());
+			productStats.setRatingSum(4.5 * 120);
+			productStats.setReviewCount(120);
+			productStats.setAverageRating(4.5);
+			productStats.setTotalSold(3400);
+			productStats.setMinPrice(120000);
+			productStats.setMaxPrice(450000);
+			stats.put(product.getId(), productStats);
+		}
+		return stats;
+	}
+
+	static List<ProductSummaryResponse> summaries(List<Product> products) {
+		List<ProductSummaryResponse> summaries = new ArrayList<>(products.size());
+		for (Product product : products) {
+			ProductSummaryResponse summary = new ProductSummaryResponse(product.getId(), product.getName(),
+					product.getCategory().getId(), product.getCategory().getName(),
+					product.getBrand().getId(), product.getBrand().getName(),
+					120000, 450000, 4.5, 120, 3400, product.getCreatedAt());
+			summary.setThumbnail("https://res.cloudinary.com/demo/image/upload/v1/product_" + product.getId() + ".jpg");
+			summaries.add(summary);
+		}
+		return summaries;
+	}
+
+	// Đơn hàng đã có tổng tiền kèm địa chỉ giao hàng, mỗi sản phẩm trong products là một dòng hàng
+	static Order order(long id, List<Product> products) {
+		ShippingAddress shippingAddress = new ShippingAddress();
+		shippingAddress.setId(id);
+		shippingAddress.setReceiverName("Nguyễn Văn An");
+		shippingAddress.setReceiverPhone("0912345678");
+		shippingAddress.setLocation("Số 1, đường Trần Duy Hưng, Cầu Giấy, Hà Nội");
+		shippingAddress.setStatus(Status.ACTIVE);
+
+		Order order = new Order();
+		order.setId(id);
+		order.setShippingAddress(shippingAddress);
+		order.setStatus(OrderStatus.Completed);
+		order.setPaymentMethod(PaymentMethod.COD);
+		order.setOrderDate(new Date());
+		double subtotal = (ITEM_PRICE - ITEM_DISCOUNT) * ITEM_AMOUNT * products.size();
+		order.setSubtotal(subtotal);
+		order.setShippingFee(Constant.SHIPPING_FEE);
+		order.setTotal(subtotal + Constant.SHIPPING_FEE);
+		return order;
+	}
+
+	static List<OrderItem> orderItems(Order order, List<Product> products) {
+		TypeProduct type = TypeProduct.builder().id(1).name("500g").status(Status.ACTIVE).build();
+		List<OrderItem> items = new ArrayList<>(products.size());
+		for (Product product : products) {
+			ProductItem productItem = ProductItem.builder()
+					.id(product.getId())
+					.product(product)
+					.type(type)
+					.price(ITEM_PRICE)
+					.discount(ITEM_DISCOUNT)
+					.stock(100)
+					.status(Status.ACTIVE)
+					.build();
+			OrderItem item = new OrderItem();
+			item.setId(order.getId() * 100 + product.getId());
+			item.setOrder(order);
+			item.setProductItem(productItem);
+			item.setAmount(ITEM_AMOUNT);
+			item.setPrice(productItem.getPrice());
+			item.setDiscount(productItem.getDiscount());
+			items.add(item);
+		}
+		return items;
+	}
+}
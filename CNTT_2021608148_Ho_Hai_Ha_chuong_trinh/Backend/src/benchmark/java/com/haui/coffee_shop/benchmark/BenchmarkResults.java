@@ -0,0 +1,101 @@
+package com.haui.coffee_shop.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Ghi kết quả benchmark ra file JSON trong target/benchmark-results để so sánh giữa các lần chạy (CI, trước/sau khi sửa)
+final class BenchmarkResults {
+	private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+	private final String suite;
+	private final List<Scenario> scenarios = new ArrayList<>();
+	private final Map<String, Object> environment = new LinkedHashMap<>();
+
+	BenchmarkResults(String suite) {
+		this.suite = suite;
+		environment.put("java", System.getProperty("java.version"));
+		environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+		environment.put("processors", Runtime.getRuntime().availableProcessors());
+		environment.put("maxHeapMb", Runtime.getRuntime().maxMemory() / (1024 * 1024));
+	}
+
+	static Path resultsDir() {
+		return Paths.get(System.getProperty("benchmark.results.dir", "target/benchmark-results"));
+	}
+
+	void environment(String key, Object value) {
+		environment.put(key, value);
+	}
+
+	// latenciesNanos: thời gian của từng thao tác, elapsedNanos: thời gian chạy cả kịch bản (tính throughput)
+	void add(String name, int threads, long[] latenciesNanos, long elapsedNanos, long sqlStatements) {
+		long[] sorted = latenciesNanos.clone();
+		Arrays.sort(sorted);
+		int operations = sorted.length;
+		Scenario scenario = new Scenario();
+		scenario.name = name;
+		scenario.threads = threads;
+		scenario.operations = operations;
+		scenario.throughputPerSecond = operations == 0 ? 0 : operations * 1_000_000_000.0 / elapsedNanos;
+		scenario.latencyMs = new LinkedHashMap<>();
+		scenario.latencyMs.put("mean", operations == 0 ? 0 : toMillis(Arrays.stream(sorted).sum() / operations));
+		scenario.latencyMs.put("p50", toMillis(percentile(sorted, 50)));
+		scenario.latencyMs.put("p90", toMillis(percentile(sorted, 90)));
+		scenario.latencyMs.put("p99", toMillis(percentile(sorted, 99)));
+		scenario.latencyMs.put("max", operations == 0 ? 0 : toMillis(sorted[operations - 1]));
+		scenario.sqlStatements = sqlStatements;
+		scenario.sqlStatementsPerOperation = operations == 0 ? 0 : (double) sqlStatements / operations;
+		scenarios.add(scenario);
+	}
+
+	Path write() throws IOException {
+		Path dir = resultsDir();
+		Files.createDirectories(dir);
+		Path file = dir.resolve(suite + ".json");
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("suite", suite);
+		report.put("timestamp", Instant.now().toString());
+		report.put("environment", environment);
+		report.put("scenarios", scenarios);
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			GSON.toJson(report, writer);
+		}
+		return file;
+	}
+
+	// Nearest-rank trên mảng đã sắp xếp
+	static long percentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+		return sorted[Math.max(0, Math.min(rank, sorted.length) - 1)];
+	}
+
+	private static double toMillis(long nanos) {
+		return Math.round(nanos / 1_000.0) / 1_000.0;
+	}
+
+	private static class Scenario {
+		private String name;
+		private int threads;
+		private int operations;
+		private double throughputPerSecond;
+		private Map<String, Double> latencyMs;
+		private long sqlStatements;
+		private double sqlStatementsPerOperation;
+	}
+}
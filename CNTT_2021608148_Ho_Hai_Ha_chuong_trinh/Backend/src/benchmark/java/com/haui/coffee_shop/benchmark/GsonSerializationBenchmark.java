@@ -0,0 +1,60 @@
+package com.haui.coffee_shop.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.common.GsonUtil;
+import com.haui.coffee_shop.model.Product;
+import com.haui.coffee_shop.payload.response.ProductPageResponse;
+import com.haui.coffee_shop.payload.response.RespMessage;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Chi phí GsonUtil.toJson cho body mà controller trả về: danh sách ProductResponse đầy đủ (/api/product/all)
+// và trang rút gọn theo keyset (/api/product/page)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GsonSerializationBenchmark {
+	@Param({"20", "100"})
+	private int products;
+
+	private RespMessage productList;
+	private RespMessage productPage;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		List<Product> page = BenchmarkFixtures.products(products);
+		productList = success(BenchmarkFixtures.productService(page).getProductResponses(page));
+		productPage = success(ProductPageResponse.builder()
+				.items(BenchmarkFixtures.summaries(page))
+				.sort("newest")
+				.size(products)
+				.hasNext(true)
+				.nextCursor("bmV3ZXN0OjEwMDoxMDA")
+				.build());
+	}
+
+	@Benchmark
+	public String productList() {
+		return GsonUtil.getInstance().toJson(productList);
+	}
+
+	@Benchmark
+	public String productPage() {
+		return GsonUtil.getInstance().toJson(productPage);
+	}
+
+	private static RespMessage success(Object data) {
+		return RespMessage.builder().respCode(Constant.SUCCESS).respDesc("Success").data(data).build();
+	}
+}
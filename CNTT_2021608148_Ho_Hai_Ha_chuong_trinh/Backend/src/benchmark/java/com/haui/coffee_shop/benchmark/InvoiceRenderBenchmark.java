@@ -0,0 +1,90 @@
+package com.haui.coffee_shop.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.haui.coffee_shop.export.InvoiceRenderer;
+import com.haui.coffee_shop.model.Order;
+import com.haui.coffee_shop.model.OrderItem;
+import com.haui.coffee_shop.model.Product;
+import com.itextpdf.text.pdf.BaseFont;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Số hóa đơn PDF dựng được mỗi giây. renderToBuffer là cách OrderService dùng hiện tại (font nạp một lần,
+// bộ đệm trong bộ nhớ dùng lại); renderWithFontLoad và renderToTempFile tái hiện hai chi phí của cách cũ:
+// nạp lại file TTF cho mỗi hóa đơn, ghi PDF ra file tạm rồi đọc lại.
+// Font lấy từ -Dbenchmark.invoice-font (đường dẫn TTF, nên dùng fonts/Arial-Unicode-MS.ttf như khi chạy thật);
+// không có thì dùng Helvetica có sẵn của iText, khi đó renderWithFontLoad gần như không tốn gì
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class InvoiceRenderBenchmark {
+	@Param({"5", "50"})
+	public int items;
+
+	private String fontPath;
+	private InvoiceRenderer renderer;
+	private Order order;
+	private List<OrderItem> orderItems;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		fontPath = System.getProperty("benchmark.invoice-font");
+		renderer = new InvoiceRenderer(loadFont(true));
+		List<Product> products = BenchmarkFixtures.products(items);
+		order = BenchmarkFixtures.order(1, products);
+		orderItems = BenchmarkFixtures.orderItems(order, products);
+	}
+
+	@Benchmark
+	public int renderToBuffer() throws IOException {
+		try (InvoiceRenderer.InvoiceBuffer pdf = renderer.render(order, orderItems)) {
+			return pdf.size();
+		}
+	}
+
+	@Benchmark
+	public int renderWithFontLoad() throws Exception {
+		try (InvoiceRenderer.InvoiceBuffer pdf = new InvoiceRenderer(loadFont(false)).render(order, orderItems)) {
+			return pdf.size();
+		}
+	}
+
+	@Benchmark
+	public void renderToTempFile(Blackhole blackhole) throws IOException {
+		Path file = Files.createTempFile("invoice_benchmark_", ".pdf");
+		try {
+			try (OutputStream outputStream = Files.newOutputStream(file)) {
+				renderer.render(order, orderItems, outputStream);
+			}
+			try (InputStream inputStream = Files.newInputStream(file)) {
+				blackhole.consume(inputStream.transferTo(OutputStream.nullOutputStream()));
+			}
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	// cached = false: bỏ qua bộ nhớ đệm font của iText để đo đúng chi phí đọc file TTF
+	private BaseFont loadFont(boolean cached) throws Exception {
+		if (fontPath == null) {
+			return BaseFont.createFont(BaseFont.HELVETICA, BaseFont.CP1252, BaseFont.NOT_EMBEDDED);
+		}
+		return BaseFont.createFont(fontPath, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, cached, null, null);
+	}
+}
@@ -0,0 +1,54 @@
+package com.haui.coffee_shop.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.haui.coffee_shop.security.JwtTokenProvider;
+
+import java.util.concurrent.TimeUnit;
+
+// Chi phí JWT trên mỗi request: JwtAuthenticationFilter gọi validateToken rồi getUsername (parse và kiểm chữ ký hai lần)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtBenchmark {
+	// Cùng độ dài với app.jwt-secret (HS256)
+	private static final String SECRET = "28DB7E8FCCB6E7491D4D4765A03CB2A814C7237A74B521628FF00578430BA516";
+
+	private JwtTokenProvider jwtTokenProvider;
+	private String token;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		jwtTokenProvider = new JwtTokenProvider();
+		ReflectionTestUtils.setField(jwtTokenProvider, "jwtSecret", SECRET);
+		ReflectionTestUtils.setField(jwtTokenProvider, "jwtExpirationDate", TimeUnit.DAYS.toMillis(7));
+		ReflectionTestUtils.setField(jwtTokenProvider, "jwtRefreshExpirationDate", TimeUnit.DAYS.toMillis(7));
+		token = jwtTokenProvider.generateAccessToken("customer@example.com");
+	}
+
+	@Benchmark
+	public String authenticateRequest() {
+		if (!jwtTokenProvider.validateToken(token)) {
+			throw new IllegalStateException("Token rejected");
+		}
+		return jwtTokenProvider.getUsername(token);
+	}
+
+	@Benchmark
+	public boolean validateToken() {
+		return jwtTokenProvider.validateToken(token);
+	}
+
+	@Benchmark
+	public String generateAccessToken() {
+		return jwtTokenProvider.generateAccessToken("customer@example.com");
+	}
+}
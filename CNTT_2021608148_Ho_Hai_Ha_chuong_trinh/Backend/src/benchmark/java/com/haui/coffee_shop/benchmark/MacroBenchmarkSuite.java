@@ -0,0 +1,353 @@
+package com.haui.coffee_shop.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+
+import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.common.enums.OrderStatus;
+import com.haui.coffee_shop.common.enums.PaymentMethod;
+import com.haui.coffee_shop.common.enums.RoleEnum;
+import com.haui.coffee_shop.common.enums.Status;
+import com.haui.coffee_shop.model.Brand;
+import com.haui.coffee_shop.model.Category;
+import com.haui.coffee_shop.model.Product;
+import com.haui.coffee_shop.model.ProductItem;
+import com.haui.coffee_shop.model.ShippingAddress;
+import com.haui.coffee_shop.model.TypeProduct;
+import com.haui.coffee_shop.model.User;
+import com.haui.coffee_shop.payload.request.OrderItemRequest;
+import com.haui.coffee_shop.payload.request.OrderRequest;
+import com.haui.coffee_shop.payload.response.ProductPageResponse;
+import com.haui.coffee_shop.payload.response.RespMessage;
+import com.haui.coffee_shop.repository.BrandRepository;
+import com.haui.coffee_shop.repository.CategoryRepository;
+import com.haui.coffee_shop.repository.ProductItemRepository;
+import com.haui.coffee_shop.repository.ProductRepository;
+import com.haui.coffee_shop.repository.RoleRepository;
+import com.haui.coffee_shop.repository.ShippingAddressRepository;
+import com.haui.coffee_shop.repository.TypeProductRepository;
+import com.haui.coffee_shop.repository.UserRepository;
+import com.haui.coffee_shop.service.OrderService;
+import com.haui.coffee_shop.service.ProductService;
+import com.haui.coffee_shop.service.ProductStatsService;
+import com.haui.coffee_shop.service.StatisticService;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Benchmark toàn luồng trên H2 (chế độ MySQL) với dữ liệu cỡ thật: checkout, danh sách sản phẩm,
+// lịch sử đơn hàng và thống kê. Đo throughput, phân vị độ trễ và số câu SQL mỗi thao tác,
+// kết quả ghi vào target/benchmark-results/macro.json.
+// Chạy: mvn -P benchmark test (-Dbenchmark.products=... -Dbenchmark.orders=... -Dbenchmark.threads=...)
+// Số tuyệt đối trên H2 không phải số của MySQL production: dùng để so sánh giữa các commit trên cùng máy
+@SpringBootTest
+@Import(SqlStatementCounter.class)
+@TestPropertySource(properties = {
+		"spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.hikari.maximum-pool-size=32",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.show-sql=false",
+		"spring.jpa.properties.hibernate.format_sql=false",
+		"logging.level.org.hibernate.SQL=INFO",
+		"logging.level.org.hibernate.orm.jdbc.bind=INFO",
+		"logging.level.com.haui.coffee_shop.security=WARN",
+		// Không để job nền chen vào số câu SQL đo được
+		"order.outbox.dispatch-ms=3600000",
+		"autocomplete.refresh-ms=3600000"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@Slf4j
+class MacroBenchmarkSuite {
+	private static final int PRODUCTS = Integer.getInteger("benchmark.products", 1000);
+	private static final int ITEMS_PER_PRODUCT = 3;
+	private static final int CATEGORIES = 10;
+	private static final int BRANDS = 20;
+	private static final int USERS = Integer.getInteger("benchmark.users", 200);
+	private static final int HISTORICAL_ORDERS = Integer.getInteger("benchmark.orders", 10000);
+	private static final int OPERATIONS = Integer.getInteger("benchmark.operations", 1000);
+	private static final int WARMUP = Integer.getInteger("benchmark.warmup", 200);
+	private static final int THREADS = Integer.getInteger("benchmark.threads", 8);
+	private static final int PAGE_SIZE = 20;
+
+	private static final String INSERT_ORDER_SQL = "INSERT INTO `order` (shipping_address_id, status, order_date, payment_method, " +
+			"subtotal, shipping_fee, total) VALUES (?, ?, ?, ?, ?, ?, ?)";
+	private static final String INSERT_ORDER_ITEM_SQL = "INSERT INTO order_item (amount, price, discount, product_item_id, order_id, " +
+			"is_reviewed, stock_applied) VALUES (?, ?, 0, ?, ?, false, true)";
+
+	@Autowired
+	private OrderService orderService;
+	@Autowired
+	private ProductService productService;
+	@Autowired
+	private ProductStatsService productStatsService;
+	@Autowired
+	private StatisticService statisticService;
+	@Autowired
+	private CategoryRepository categoryRepository;
+	@Autowired
+	private BrandRepository brandRepository;
+	@Autowired
+	private TypeProductRepository typeProductRepository;
+	@Autowired
+	private ProductRepository productRepository;
+	@Autowired
+	private ProductItemRepository productItemRepository;
+	@Autowired
+	private RoleRepository roleRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private ShippingAddressRepository shippingAddressRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final BenchmarkResults results = new BenchmarkResults("macro");
+	private final List<ProductItem> productItems = new ArrayList<>();
+	private final List<ShippingAddress> addresses = new ArrayList<>();
+	private final List<Long> categoryIds = new ArrayList<>();
+
+	@BeforeAll
+	void seed() {
+		long start = System.nanoTime();
+		TypeProduct type = typeProductRepository.save(TypeProduct.builder().name("250g").status(Status.ACTIVE).build());
+		List<Category> categories = new ArrayList<>();
+		for (int i = 0; i < CATEGORIES; i++) {
+			Category category = new Category();
+			category.setName("Category " + i);
+			category.setStatus(Status.ACTIVE);
+			categories.add(category);
+		}
+		categoryRepository.saveAll(categories).forEach(category -> categoryIds.add(category.getId()));
+		List<Brand> brands = new ArrayList<>();
+		for (int i = 0; i < BRANDS; i++) {
+			Brand brand = new Brand();
+			brand.setName("Brand " + i);
+			brand.setStatus(Status.ACTIVE);
+			brands.add(brand);
+		}
+		brands = brandRepository.saveAll(brands);
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		List<Product> products = new ArrayList<>(PRODUCTS);
+		for (int i = 0; i < PRODUCTS; i++) {
+			products.add(Product.builder()
+					.name("Coffee " + i)
+					.description("Benchmark product " + i)
+					.category(categories.get(i % CATEGORIES))
+					.brand(brands.get(i % BRANDS))
+					.status(Status.ACTIVE)
+					.origin(i % 2 == 0 ? "Buon Ma Thuot" : "Da Lat")
+					.beanType(i % 3 == 0 ? "Arabica" : "Robusta")
+					.createdAt(new Date())
+					.build());
+		}
+		products = productRepository.saveAll(products);
+		List<ProductItem> items = new ArrayList<>(PRODUCTS * ITEMS_PER_PRODUCT);
+		for (Product product : products) {
+			for (int i = 0; i < ITEMS_PER_PRODUCT; i++) {
+				items.add(ProductItem.builder()
+						.product(product)
+						.type(type)
+						.price(50000 + random.nextInt(20) * 10000)
+						.stock(1_000_000)
+						.status(Status.ACTIVE)
+						.build());
+			}
+		}
+		productItems.addAll(productItemRepository.saveAll(items));
+
+		var role = roleRepository.getRoleByName(RoleEnum.ROLE_USER).orElseThrow();
+		for (int i = 0; i < USERS; i++) {
+			User user = userRepository.save(User.builder()
+					.email("benchmark" + i + "@example.com")
+					.password("benchmark")
+					.name("User " + i)
+					.role(role)
+					.status(Status.ACTIVE)
+					.build());
+			ShippingAddress address = new ShippingAddress();
+			address.setReceiverName(user.getName());
+			address.setReceiverPhone("0900000000");
+			address.setLocation("Ha Noi");
+			address.setStatus(Status.ACTIVE);
+			address.setUser(user);
+			addresses.add(shippingAddressRepository.save(address));
+		}
+		seedHistoricalOrders(random);
+		productStatsService.rebuild();
+
+		results.environment("products", PRODUCTS);
+		results.environment("productItems", productItems.size());
+		results.environment("users", USERS);
+		results.environment("historicalOrders", HISTORICAL_ORDERS);
+		results.environment("seedSeconds", (System.nanoTime() - start) / 1_000_000_000.0);
+	}
+
+	// Đơn cũ rải đều trong 365 ngày qua, chèn thẳng bằng JDBC batch cho nhanh
+	private void seedHistoricalOrders(ThreadLocalRandom random) {
+		OrderStatus[] statuses = OrderStatus.values();
+		long now = System.currentTimeMillis();
+		List<Object[]> orders = new ArrayList<>(HISTORICAL_ORDERS);
+		for (int i = 0; i < HISTORICAL_ORDERS; i++) {
+			double subtotal = 50000 + random.nextInt(50) * 10000;
+			orders.add(new Object[]{
+					addresses.get(random.nextInt(addresses.size())).getId(),
+					statuses[random.nextInt(statuses.length)].name(),
+					new Timestamp(now - random.nextLong(TimeUnit.DAYS.toMillis(365))),
+					PaymentMethod.values()[random.nextInt(PaymentMethod.values().length)].name(),
+					subtotal,
+					Constant.SHIPPING_FEE,
+					subtotal + Constant.SHIPPING_FEE
+			});
+		}
+		jdbcTemplate.batchUpdate(INSERT_ORDER_SQL, orders);
+		List<Object[]> orderItems = new ArrayList<>();
+		for (Long orderId : jdbcTemplate.queryForList("SELECT id FROM `order` ORDER BY id", Long.class)) {
+			int lines = 1 + random.nextInt(3);
+			for (int i = 0; i < lines; i++) {
+				ProductItem item = productItems.get(random.nextInt(productItems.size()));
+				orderItems.add(new Object[]{1 + random.nextInt(3), item.getPrice(), item.getId(), orderId});
+			}
+		}
+		jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM_SQL, orderItems);
+	}
+
+	@AfterAll
+	void writeResults() throws Exception {
+		log.info("Macro benchmark results: {}", results.write().toAbsolutePath());
+	}
+
+	@Test
+	@Order(1)
+	void checkout() throws Exception {
+		run("checkout", index -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			List<OrderItemRequest> lines = new ArrayList<>();
+			int count = 1 + random.nextInt(3);
+			for (int i = 0; i < count; i++) {
+				ProductItem item = productItems.get(random.nextInt(productItems.size()));
+				lines.add(new OrderItemRequest(item.getId(), 1 + random.nextInt(3), item.getPrice(), 0));
+			}
+			ShippingAddress address = addresses.get(random.nextInt(addresses.size()));
+			RespMessage response = orderService.addOrder(new OrderRequest(lines, address.getId(), PaymentMethod.COD));
+			assertEquals(Constant.SUCCESS, response.getRespCode());
+		});
+	}
+
+	@Test
+	@Order(2)
+	void catalogListing() throws Exception {
+		// Mỗi thao tác đọc tối đa 3 trang liên tiếp theo con trỏ, lọc theo một danh mục ngẫu nhiên
+		String[] sorts = {"newest", "price_asc", "best_selling", "rating"};
+		run("catalog_listing", index -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			Long categoryId = random.nextBoolean() ? null : categoryIds.get(random.nextInt(categoryIds.size()));
+			String sort = sorts[index % sorts.length];
+			String cursor = null;
+			for (int page = 0; page < 3; page++) {
+				RespMessage response = productService.getProductPage(categoryId, null, sort, cursor, PAGE_SIZE);
+				ProductPageResponse pageResponse = (ProductPageResponse) response.getData();
+				if (!pageResponse.isHasNext()) {
+					break;
+				}
+				cursor = pageResponse.getNextCursor();
+			}
+		});
+	}
+
+	@Test
+	@Order(3)
+	void orderHistory() throws Exception {
+		run("order_history", index -> {
+			User user = addresses.get(ThreadLocalRandom.current().nextInt(addresses.size())).getUser();
+			SecurityContextHolder.getContext().setAuthentication(
+					new UsernamePasswordAuthenticationToken(user.getEmail(), null, List.of()));
+			try {
+				assertEquals(Constant.SUCCESS, orderService.getOrdersByUser().getRespCode());
+			} finally {
+				SecurityContextHolder.clearContext();
+			}
+		});
+	}
+
+	@Test
+	@Order(4)
+	void statistics() throws Exception {
+		LocalDate today = LocalDate.now();
+		run("statistics_revenue", index ->
+				assertEquals(Constant.SUCCESS, statisticService.getRevenue(today.minusDays(30), today).getRespCode()));
+		run("statistics_top_customers", index ->
+				assertEquals(Constant.SUCCESS, statisticService.getTop5BestCustomers().getRespCode()));
+	}
+
+	// Chạy WARMUP thao tác khởi động rồi OPERATIONS thao tác đo trên THREADS luồng
+	private void run(String name, Operation operation) throws Exception {
+		execute(WARMUP, operation, new long[WARMUP]);
+		long[] latencies = new long[OPERATIONS];
+		long statementsBefore = SqlStatementCounter.count();
+		long elapsed = execute(OPERATIONS, operation, latencies);
+		results.add(name, THREADS, latencies, elapsed, SqlStatementCounter.count() - statementsBefore);
+	}
+
+	private long execute(int operations, Operation operation, long[] latencies) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger next = new AtomicInteger();
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int index = next.getAndIncrement(); index < operations; index = next.getAndIncrement()) {
+					long begin = System.nanoTime();
+					operation.run(index);
+					latencies[index] = System.nanoTime() - begin;
+				}
+				return null;
+			}));
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(10, TimeUnit.MINUTES);
+		}
+		long elapsed = System.nanoTime() - begin;
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		return elapsed;
+	}
+
+	@FunctionalInterface
+	private interface Operation {
+		void run(int index) throws Exception;
+	}
+}
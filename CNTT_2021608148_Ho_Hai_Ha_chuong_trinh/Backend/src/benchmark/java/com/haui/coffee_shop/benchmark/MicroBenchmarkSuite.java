@@ -0,0 +1,52 @@
+package com.haui.coffee_shop.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+
+// Chạy các JMH benchmark trong package này qua surefire (mvn -P benchmark test), kết quả JSON ở
+// target/benchmark-results/jmh.json. Lọc bằng -Dbenchmark.include=Jwt, rút ngắn bằng -Dbenchmark.forks=0 khi thử nhanh.
+// Font cho InvoiceRenderBenchmark: -Dbenchmark.invoice-font=fonts/Arial-Unicode-MS.ttf
+@Slf4j
+class MicroBenchmarkSuite {
+
+	@Test
+	void runMicroBenchmarks() throws Exception {
+		Path dir = BenchmarkResults.resultsDir();
+		Files.createDirectories(dir);
+		Path result = dir.resolve("jmh.json");
+
+		OptionsBuilder builder = new OptionsBuilder();
+		// JVM con của JMH không nhận system property đặt qua surefire
+		String invoiceFont = System.getProperty("benchmark.invoice-font");
+		if (invoiceFont != null) {
+			builder.jvmArgsAppend("-Dbenchmark.invoice-font=" + invoiceFont);
+		}
+		Options options = builder
+				.include(MicroBenchmarkSuite.class.getPackageName() + ".*" + System.getProperty("benchmark.include", "Benchmark") + ".*")
+				.forks(Integer.getInteger("benchmark.forks", 1))
+				.warmupIterations(Integer.getInteger("benchmark.warmup-iterations", 3))
+				.warmupTime(TimeValue.seconds(1))
+				.measurementIterations(Integer.getInteger("benchmark.iterations", 5))
+				.measurementTime(TimeValue.seconds(1))
+				.shouldFailOnError(true)
+				.resultFormat(ResultFormatType.JSON)
+				.result(result.toString())
+				.build();
+		Collection<RunResult> results = new Runner(options).run();
+
+		assertFalse(results.isEmpty());
+		log.info("JMH results: {}", result.toAbsolutePath());
+	}
+}
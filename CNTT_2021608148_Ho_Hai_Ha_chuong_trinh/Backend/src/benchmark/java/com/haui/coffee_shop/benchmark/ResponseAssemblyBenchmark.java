@@ -0,0 +1,49 @@
+package com.haui.coffee_shop.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.haui.coffee_shop.model.Product;
+import com.haui.coffee_shop.payload.response.ProductResponse;
+import com.haui.coffee_shop.service.ProductService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Chi phí dựng ProductResponse (gom ảnh, product_stats theo sản phẩm) ngoài phần truy vấn DB.
+// Repository được thay bằng mock trả dữ liệu có sẵn, nên số đo gồm cả chi phí gọi mock (cỡ vài trăm ns mỗi lần)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseAssemblyBenchmark {
+	@Param({"1", "20", "100"})
+	private int products;
+
+	private ProductService productService;
+	private List<Product> page;
+	private Product single;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		page = BenchmarkFixtures.products(products);
+		single = page.get(0);
+		productService = BenchmarkFixtures.productService(page);
+	}
+
+	@Benchmark
+	public List<ProductResponse> productResponses() {
+		return productService.getProductResponses(page);
+	}
+
+	@Benchmark
+	public ProductResponse productResponse() {
+		return productService.getProductResponse(single);
+	}
+}
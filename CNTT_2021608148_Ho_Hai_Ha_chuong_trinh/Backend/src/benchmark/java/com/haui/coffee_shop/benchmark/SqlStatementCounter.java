@@ -0,0 +1,79 @@
+package com.haui.coffee_shop.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Đếm số câu lệnh SQL gửi xuống DB (mỗi lần execute*, một executeBatch tính là một) qua mọi đường:
+// Hibernate, JdbcTemplate, native query. Bọc DataSource bằng proxy nên không cần thư viện ngoài
+public class SqlStatementCounter implements BeanPostProcessor {
+	private static final AtomicLong EXECUTED = new AtomicLong();
+
+	public static long count() {
+		return EXECUTED.get();
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (bean instanceof DataSource dataSource) {
+			return proxy(DataSource.class, dataSource, (target, method, args) -> {
+				Object result = invoke(target, method, args);
+				return result instanceof Connection connection ? wrapConnection(connection) : result;
+			});
+		}
+		return bean;
+	}
+
+	private static Connection wrapConnection(Connection connection) {
+		return proxy(Connection.class, connection, (target, method, args) -> {
+			Object result = invoke(target, method, args);
+			if (result instanceof CallableStatement statement) {
+				return wrapStatement(CallableStatement.class, statement);
+			}
+			if (result instanceof PreparedStatement statement) {
+				return wrapStatement(PreparedStatement.class, statement);
+			}
+			if (result instanceof Statement statement) {
+				return wrapStatement(Statement.class, statement);
+			}
+			return result;
+		});
+	}
+
+	private static <T extends Statement> T wrapStatement(Class<T> type, T statement) {
+		return proxy(type, statement, (target, method, args) -> {
+			if (method.getName().startsWith("execute")) {
+				EXECUTED.incrementAndGet();
+			}
+			return invoke(target, method, args);
+		});
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, T target, Handler handler) {
+		InvocationHandler invocationHandler = (proxy, method, args) -> handler.handle(target, method, args);
+		return (T) Proxy.newProxyInstance(SqlStatementCounter.class.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+	}
+
+	@FunctionalInterface
+	private interface Handler {
+		Object handle(Object target, Method method, Object[] args) throws Throwable;
+	}
+}
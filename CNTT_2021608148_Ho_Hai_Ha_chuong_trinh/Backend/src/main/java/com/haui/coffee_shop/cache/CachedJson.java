@@ -0,0 +1,52 @@
+package com.haui.coffee_shop.cache;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+// Dữ liệu catalog đã tuần tự hóa sẵn, bất biến nên dùng chung an toàn giữa các request.
+// Giữ cả bản Gson (controller dùng GsonUtil) và bản Jackson (controller trả ResponseEntity<RespMessage>)
+// để mỗi endpoint vẫn trả đúng định dạng như trước; khi ghi response chỉ chép nguyên văn chuỗi JSON
+@JsonAdapter(CachedJson.GsonAdapter.class)
+public final class CachedJson implements JsonSerializable {
+    private final String gsonJson;
+    private final String jacksonJson;
+
+    CachedJson(String gsonJson, String jacksonJson) {
+        this.gsonJson = gsonJson;
+        this.jacksonJson = jacksonJson;
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeRawValue(jacksonJson);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer) throws IOException {
+        serialize(generator, provider);
+    }
+
+    static final class GsonAdapter extends TypeAdapter<CachedJson> {
+        @Override
+        public void write(JsonWriter out, CachedJson value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.jsonValue(value.gsonJson);
+            }
+        }
+
+        @Override
+        public CachedJson read(JsonReader in) {
+            throw new UnsupportedOperationException("CachedJson is write-only");
+        }
+    }
+}
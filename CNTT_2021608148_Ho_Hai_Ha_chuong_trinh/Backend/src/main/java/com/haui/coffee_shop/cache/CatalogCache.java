@@ -0,0 +1,170 @@
+package com.haui.coffee_shop.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.haui.coffee_shop.common.GsonUtil;
+import com.haui.coffee_shop.common.event.CatalogChangedEvent;
+
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Cache LRU trong bộ nhớ cho các danh sách catalog (sản phẩm, danh mục, thương hiệu, loại).
+// Lưu dữ liệu đã tuần tự hóa (CachedJson) chứ không giữ entity/DTO: không request nào sửa được bản dùng chung,
+// entity không bị giữ lại ngoài session, và RespMessage (kèm respDesc theo ngôn ngữ) được dựng mới cho mỗi request.
+// Bị xóa toàn bộ mỗi khi có CatalogChangedEvent (sau khi transaction commit), TTL chỉ là lưới an toàn
+@Component
+@Slf4j
+public class CatalogCache {
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Entry> entries;
+    private final Map<String, CompletableFuture<CachedJson>> inFlight = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    // Tăng mỗi lần invalidate để bỏ qua kết quả được nạp trước thời điểm invalidate
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CatalogCache(@Value("${catalog.cache.max-entries:500}") int maxEntries,
+                        @Value("${catalog.cache.ttl-seconds:600}") long ttlSeconds,
+                        ObjectMapper objectMapper) {
+        this.maxEntries = maxEntries;
+        this.objectMapper = objectMapper;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > CatalogCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // loader trả về dữ liệu (danh sách DTO/entity), được tuần tự hóa ngay trong luồng nạp
+    public CachedJson get(String key, Supplier<?> loader) {
+        CachedJson cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+
+        // Chỉ một luồng nạp cho mỗi key, các luồng khác chờ kết quả
+        CompletableFuture<CachedJson> future = new CompletableFuture<>();
+        CompletableFuture<CachedJson> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e;
+            }
+        }
+
+        long loadGeneration = generation.get();
+        try {
+            CachedJson value = serialize(loader.get());
+            store(key, value, loadGeneration);
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Kể cả Error: future phải được hoàn tất để các luồng đang chờ không bị treo
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        log.debug("Invalidate catalog cache: {}", event);
+        invalidateAll();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private CachedJson serialize(Object data) {
+        try {
+            return new CachedJson(GsonUtil.getInstance().toJson(data), objectMapper.writeValueAsString(data));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CachedJson lookup(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() > entry.expiresAt) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    private void store(String key, CachedJson value, long loadGeneration) {
+        synchronized (entries) {
+            if (generation.get() == loadGeneration) {
+                entries.put(key, new Entry(value, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+    }
+
+    private record Entry(CachedJson value, long expiresAt) {
+    }
+}
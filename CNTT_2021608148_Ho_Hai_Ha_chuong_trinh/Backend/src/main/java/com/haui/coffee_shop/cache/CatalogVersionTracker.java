@@ -0,0 +1,71 @@
+package com.haui.coffee_shop.cache;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.WebRequest;
+
+import com.haui.coffee_shop.common.event.CatalogChangedEvent;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Phiên bản và thời điểm thay đổi cuối của từng nhóm dữ liệu catalog, dùng cho ETag/Last-Modified.
+// Giá trị khởi tạo theo thời điểm khởi động nên ETag cũ không bị dùng lại sau khi restart
+@Component
+public class CatalogVersionTracker {
+    public enum Scope {
+        PRODUCT,
+        CATEGORY,
+        BRAND
+    }
+
+    private final long startedAt = System.currentTimeMillis();
+    private final Map<Scope, AtomicLong> versions = new EnumMap<>(Scope.class);
+    private final Map<Scope, AtomicLong> lastModified = new EnumMap<>(Scope.class);
+
+    public CatalogVersionTracker() {
+        for (Scope scope : Scope.values()) {
+            versions.put(scope, new AtomicLong());
+            lastModified.put(scope, new AtomicLong(startedAt));
+        }
+    }
+
+    // Chạy sau khi CatalogCache đã bị xóa để ETag mới không đi kèm dữ liệu cũ
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        switch (event.getType()) {
+            // Sản phẩm chứa thông tin danh mục và thương hiệu nên cũng phải đổi phiên bản
+            case CATEGORY -> {
+                bump(Scope.CATEGORY);
+                bump(Scope.PRODUCT);
+            }
+            case BRAND -> {
+                bump(Scope.BRAND);
+                bump(Scope.PRODUCT);
+            }
+            default -> bump(Scope.PRODUCT);
+        }
+    }
+
+    public String etag(Scope scope) {
+        return "\"" + scope.name().toLowerCase() + "-" + Long.toString(startedAt, 36) + "-" + versions.get(scope).get() + "\"";
+    }
+
+    public long lastModified(Scope scope) {
+        return lastModified.get(scope).get();
+    }
+
+    // Trả về true (và response đã được đặt 304) khi client đang giữ bản mới nhất
+    public boolean checkNotModified(WebRequest request, Scope scope) {
+        return request.checkNotModified(etag(scope), lastModified(scope));
+    }
+
+    private void bump(Scope scope) {
+        lastModified.get(scope).set(System.currentTimeMillis());
+        versions.get(scope).incrementAndGet();
+    }
+}
@@ -0,0 +1,133 @@
+package com.haui.coffee_shop.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.exception.CoffeeShopException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Lưu kết quả của các request ghi theo Idempotency-Key do client gửi lên, để request gửi lại
+// nhận đúng response cũ thay vì chạy lại giao dịch. Request trùng đang chạy song song thì chờ kết quả của request đầu.
+// Giới hạn số lượng (bỏ khóa cũ nhất) và có hạn dùng; response lỗi 5xx không được lưu để client có thể thử lại
+@Component
+public class IdempotencyStore {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long waitMillis;
+    private final LinkedHashMap<String, Entry> entries;
+
+    public IdempotencyStore(@Value("${idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${idempotency.ttl-seconds:86400}") long ttlSeconds,
+                            @Value("${idempotency.wait-seconds:30}") long waitSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.waitMillis = waitSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > IdempotencyStore.this.maxEntries;
+            }
+        };
+    }
+
+    // fingerprint là dấu vân tay nội dung request: cùng khóa nhưng khác nội dung bị từ chối
+    public ResponseEntity<String> execute(String key, String fingerprint, Supplier<ResponseEntity<String>> action) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{HEADER}, "Idempotency-Key is too long");
+        }
+        long now = System.currentTimeMillis();
+        Entry entry;
+        boolean owner = false;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.expiresAt <= now) {
+                entries.remove(key);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new Entry(fingerprint, new CompletableFuture<>(), now + ttlMillis);
+                entries.put(key, entry);
+                owner = true;
+            }
+        }
+        if (!entry.fingerprint.equals(fingerprint)) {
+            throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{HEADER}, "Idempotency-Key was already used for a different request");
+        }
+        if (owner) {
+            return run(key, entry, action);
+        }
+        return replay(await(entry));
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private ResponseEntity<String> run(String key, Entry entry, Supplier<ResponseEntity<String>> action) {
+        ResponseEntity<String> response;
+        try {
+            response = action.get();
+        } catch (Throwable e) {
+            // Kể cả Error: future phải được hoàn tất để request trùng đang chờ không bị treo
+            remove(key, entry);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            remove(key, entry);
+        }
+        entry.future.complete(response);
+        return response;
+    }
+
+    private ResponseEntity<String> await(Entry entry) {
+        try {
+            return entry.future.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new CoffeeShopException(Constant.FIELD_EXISTED, new Object[]{HEADER}, "A request with this Idempotency-Key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CoffeeShopException(Constant.SYSTEM_ERROR, new Object[]{HEADER}, "Interrupted while waiting for the original request");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private ResponseEntity<String> replay(ResponseEntity<String> original) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(original.getHeaders());
+        headers.set(REPLAYED_HEADER, "true");
+        return new ResponseEntity<>(original.getBody(), headers, original.getStatusCode());
+    }
+
+    private void remove(String key, Entry entry) {
+        synchronized (entries) {
+            entries.remove(key, entry);
+        }
+    }
+
+    private record Entry(String fingerprint, CompletableFuture<ResponseEntity<String>> future, long expiresAt) {
+    }
+}
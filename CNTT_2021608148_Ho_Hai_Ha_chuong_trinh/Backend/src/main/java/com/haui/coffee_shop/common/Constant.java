@@ -14,9 +14,12 @@ public class Constant {
         public static final String UNDEFINED = "Undefined";
         public static final String SYSTEM_ERROR = "500";
         public static final String NOT_FOUND = "404";
+        public static final String SERVICE_BUSY = "503";
 
         public static final String FILE_UPLOAD_ERROR = "200";
 
         public static final String UNAUTHORIZED = "401";
 
+        public static final double SHIPPING_FEE = 10000;
+
 }
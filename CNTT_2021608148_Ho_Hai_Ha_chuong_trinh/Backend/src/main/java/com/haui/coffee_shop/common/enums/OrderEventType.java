@@ -0,0 +1,8 @@
+package com.haui.coffee_shop.common.enums;
+
+public enum OrderEventType {
+    CREATED,
+    STATUS_CHANGED,
+    CANCELLED,
+    REFUNDED
+}
@@ -5,5 +5,16 @@ public enum OrderStatus {
     Processed,
     Shipping,
     Completed,
-    Cancelled
+    Cancelled;
+
+    // Trạng thái liền trước trong luồng Processing -> Processed -> Shipping -> Completed,
+    // null nếu không thể chuyển tới trạng thái này bằng thao tác của nhân viên
+    public OrderStatus previousStep() {
+        return switch (this) {
+            case Processed -> Processing;
+            case Shipping -> Processed;
+            case Completed -> Shipping;
+            default -> null;
+        };
+    }
 }
@@ -0,0 +1,28 @@
+package com.haui.coffee_shop.common.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// Phát ra khi dữ liệu danh mục sản phẩm thay đổi. productId = null nghĩa là thay đổi ảnh hưởng nhiều sản phẩm
+@Getter
+@ToString
+@AllArgsConstructor
+public class CatalogChangedEvent {
+    public enum Type {
+        PRODUCT,
+        PRODUCT_ITEM,
+        IMAGE,
+        REVIEW,
+        CATEGORY,
+        BRAND,
+        TYPE_PRODUCT
+    }
+
+    private final Type type;
+    private final Long productId;
+
+    public boolean affectsAllProducts() {
+        return productId == null;
+    }
+}
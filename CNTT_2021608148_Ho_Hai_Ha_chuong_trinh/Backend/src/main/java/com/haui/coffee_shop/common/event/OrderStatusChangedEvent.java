@@ -0,0 +1,18 @@
+package com.haui.coffee_shop.common.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+import com.haui.coffee_shop.common.enums.OrderStatus;
+
+// Phát ra một lần cho mỗi lượt chuyển trạng thái (một hoặc nhiều đơn cùng sang một trạng thái mới)
+@Getter
+@ToString
+@AllArgsConstructor
+public class OrderStatusChangedEvent {
+    private final List<Long> orderIds;
+    private final OrderStatus status;
+}
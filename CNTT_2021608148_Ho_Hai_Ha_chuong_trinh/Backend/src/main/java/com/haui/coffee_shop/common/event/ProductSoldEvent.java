@@ -0,0 +1,14 @@
+package com.haui.coffee_shop.common.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// Phát ra khi số lượng đã bán (product_stats.total_sold) của sản phẩm thay đổi: đặt hàng hoặc hủy đơn.
+// Không dùng trực tiếp CatalogChangedEvent vì mỗi đơn hàng sẽ xóa cache catalog, ProductStatsService gom lại rồi mới phát
+@Getter
+@ToString
+@AllArgsConstructor
+public class ProductSoldEvent {
+    private final long productId;
+}
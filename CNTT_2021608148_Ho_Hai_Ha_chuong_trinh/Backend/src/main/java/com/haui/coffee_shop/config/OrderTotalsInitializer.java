@@ -0,0 +1,33 @@
+package com.haui.coffee_shop.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.repository.OrderRepository;
+
+// Backfill subtotal/shipping_fee/total cho các đơn tạo trước khi có các cột này.
+// Chạy theo lô nhỏ để không khóa bảng order lâu; khi đã đủ thì chỉ tốn một truy vấn trả về 0
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class OrderTotalsInitializer implements CommandLineRunner {
+    private static final int BATCH_SIZE = 1000;
+
+    private final OrderRepository orderRepository;
+
+    @Override
+    public void run(String... args) {
+        int total = 0;
+        int updated;
+        do {
+            updated = orderRepository.backfillTotals(Constant.SHIPPING_FEE, BATCH_SIZE);
+            total += updated;
+        } while (updated == BATCH_SIZE);
+        if (total > 0) {
+            log.info("Backfilled totals for {} orders", total);
+        }
+    }
+}
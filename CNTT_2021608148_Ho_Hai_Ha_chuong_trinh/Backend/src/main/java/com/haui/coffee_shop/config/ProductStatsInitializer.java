@@ -0,0 +1,31 @@
+package com.haui.coffee_shop.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import com.haui.coffee_shop.repository.ProductStatsRepository;
+import com.haui.coffee_shop.service.ProductStatsService;
+
+import java.util.Arrays;
+
+// Chạy với tham số --rebuild-product-stats để tính lại bảng product_stats khi khởi động
+@Component
+@RequiredArgsConstructor
+public class ProductStatsInitializer implements CommandLineRunner {
+    public static final String REBUILD_ARG = "--rebuild-product-stats";
+
+    private final ProductStatsRepository productStatsRepository;
+    private final ProductStatsService productStatsService;
+
+    @Override
+    public void run(String... args) {
+        boolean requested = Arrays.asList(args).contains(REBUILD_ARG);
+        if (requested || productStatsRepository.count() == 0) {
+            productStatsService.rebuild();
+        } else {
+            // Không tính lại các bản ghi đã có, chỉ thêm cho sản phẩm chưa có bản ghi
+            productStatsService.insertMissing();
+        }
+    }
+}
@@ -1,9 +1,49 @@
 package com.haui.coffee_shop.config;
 
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 @Configuration
 @EnableScheduling
 public class SchedulerConfig {
+    public static final String INVENTORY_SCHEDULER = "inventoryScheduler";
+    public static final String ORDER_EVENT_SCHEDULER = "orderEventScheduler";
+    public static final String INDEX_SCHEDULER = "indexScheduler";
+
+    // WebSocket broker đã đăng ký một TaskScheduler (messageBrokerTaskScheduler) nên Spring Boot không tạo scheduler
+    // mặc định và mọi @Scheduled dồn vào luồng của broker. Khai báo rõ scheduler mặc định theo spring.task.scheduling.*
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    // Flush kho (200ms) và đẩy sự kiện đơn hàng (500ms) có luồng riêng, không phải chờ các job chậm
+    // như dọn file export hay nạp lại index
+    @Bean(INVENTORY_SCHEDULER)
+    public ThreadPoolTaskScheduler inventoryScheduler() {
+        return singleThreadScheduler("inventory-flush-");
+    }
+
+    @Bean(ORDER_EVENT_SCHEDULER)
+    public ThreadPoolTaskScheduler orderEventScheduler() {
+        return singleThreadScheduler("order-events-");
+    }
+
+    // Nạp lại toàn bộ chỉ mục tìm kiếm định kỳ (đọc cả bảng sản phẩm) không chiếm luồng của scheduler dùng chung
+    @Bean(INDEX_SCHEDULER)
+    public ThreadPoolTaskScheduler indexScheduler() {
+        return singleThreadScheduler("index-reload-");
+    }
+
+    private static ThreadPoolTaskScheduler singleThreadScheduler(String threadNamePrefix) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix(threadNamePrefix);
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(10);
+        return scheduler;
+    }
 }
@@ -43,6 +43,7 @@ public class WebConfig {
         config.addAllowedMethod("PUT");
         config.addAllowedMethod("DELETE");
         config.addAllowedHeader("*");
+        config.addExposedHeader("Idempotent-Replayed");
         config.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,85 @@
+package com.haui.coffee_shop.config.websocket;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+
+import com.haui.coffee_shop.common.enums.RoleEnum;
+import com.haui.coffee_shop.exception.CoffeeShopException;
+import com.haui.coffee_shop.security.JwtTokenProvider;
+
+import java.security.Principal;
+import java.util.Set;
+
+// Xác thực phiên STOMP bằng JWT gửi trong header Authorization của frame CONNECT (giống JwtAuthenticationFilter).
+// Không có token thì vẫn kết nối được (chat của khách) nhưng không có principal, nên không nhận được /user/queue/**.
+// Token sai thì từ chối CONNECT. SUBSCRIBE vào /topic/admin/** chỉ dành cho ADMIN và STAFF
+@Component
+@RequiredArgsConstructor
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+    private static final String ADMIN_DESTINATIONS = "/topic/admin/**";
+    private static final Set<String> ADMIN_AUTHORITIES = Set.of(RoleEnum.ROLE_ADMIN.toString(), RoleEnum.ROLE_STAFF.toString());
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final UserDetailsService userDetailsService;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return message;
+        }
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            String token = getToken(accessor);
+            if (token != null) {
+                accessor.setUser(authenticate(token));
+            }
+        } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            String destination = accessor.getDestination();
+            if (destination != null && pathMatcher.match(ADMIN_DESTINATIONS, destination) && !isStaff(accessor.getUser())) {
+                throw new MessageDeliveryException(message, "Subscription to " + destination + " is not allowed");
+            }
+        }
+        return message;
+    }
+
+    private Authentication authenticate(String token) {
+        try {
+            jwtTokenProvider.validateToken(token);
+            UserDetails userDetails = userDetailsService.loadUserByUsername(jwtTokenProvider.getUsername(token));
+            return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        } catch (CoffeeShopException | UsernameNotFoundException e) {
+            throw new MessageDeliveryException(e.getMessage());
+        }
+    }
+
+    private boolean isStaff(Principal principal) {
+        if (!(principal instanceof Authentication authentication)) {
+            return false;
+        }
+        return authentication.getAuthorities().stream()
+                .anyMatch(authority -> ADMIN_AUTHORITIES.contains(authority.getAuthority()));
+    }
+
+    private static String getToken(StompHeaderAccessor accessor) {
+        String bearerToken = accessor.getFirstNativeHeader("Authorization");
+        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
+            return bearerToken.substring(7);
+        }
+        return null;
+    }
+}
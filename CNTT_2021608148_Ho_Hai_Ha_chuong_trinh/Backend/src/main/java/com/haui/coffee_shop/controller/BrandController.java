@@ -5,6 +5,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import com.haui.coffee_shop.cache.CatalogVersionTracker;
 import com.haui.coffee_shop.common.Constant;
 import com.haui.coffee_shop.common.GsonUtil;
 import com.haui.coffee_shop.config.MessageBuilder;
@@ -19,6 +21,7 @@ import com.haui.coffee_shop.service.BrandService;
 public class BrandController {
     private final BrandService brandService;
     private final MessageBuilder messageBuilder;
+    private final CatalogVersionTracker catalogVersionTracker;
 
     @RequestMapping(value = "", method = RequestMethod.POST, produces = "application/json")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
@@ -36,7 +39,10 @@ public class BrandController {
     }
 
     @RequestMapping(value = "/all", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<String> getAllBrand() {
+    public ResponseEntity<String> getAllBrand(WebRequest webRequest) {
+        if (catalogVersionTracker.checkNotModified(webRequest, CatalogVersionTracker.Scope.BRAND)) {
+            return null;
+        }
         RespMessage respMessage = brandService.getAllBrands();
         return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.OK);
     }
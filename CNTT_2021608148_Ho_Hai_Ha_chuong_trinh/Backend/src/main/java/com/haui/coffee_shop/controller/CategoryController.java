@@ -1,6 +1,7 @@
 package com.haui.coffee_shop.controller;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.haui.coffee_shop.cache.CatalogVersionTracker;
 import com.haui.coffee_shop.common.Constant;
 import com.haui.coffee_shop.common.GsonUtil;
 import com.haui.coffee_shop.config.MessageBuilder;
@@ -15,6 +16,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.http.MediaType;
 
@@ -27,6 +29,7 @@ public class CategoryController {
     public final ProductService productService;
     public final MessageBuilder messageBuilder;
     private final CategoryService categoryService;
+    private final CatalogVersionTracker catalogVersionTracker;
 
     @RequestMapping(value = "", method = RequestMethod.POST, produces = "application/json",
                         consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -49,13 +52,19 @@ public class CategoryController {
     }
 
     @RequestMapping(value = "/all" , method = RequestMethod.GET , produces = "application/json")
-    public ResponseEntity<String> getAllCategory () {
+    public ResponseEntity<String> getAllCategory (WebRequest webRequest) {
+        if (catalogVersionTracker.checkNotModified(webRequest, CatalogVersionTracker.Scope.CATEGORY)) {
+            return null;
+        }
         RespMessage respMessage = categoryService.getAllCategories();
         return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.OK);
     }
 
     @RequestMapping(value = "/{id}" , method = RequestMethod.GET , produces = "application/json")
-    public ResponseEntity<String> getCategory (@PathVariable long id) {
+    public ResponseEntity<String> getCategory (@PathVariable long id, WebRequest webRequest) {
+        if (catalogVersionTracker.checkNotModified(webRequest, CatalogVersionTracker.Scope.CATEGORY)) {
+            return null;
+        }
         try {
             RespMessage respMessage = categoryService.getCategoryById(id);
             return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.OK);
@@ -0,0 +1,89 @@
+package com.haui.coffee_shop.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.common.GsonUtil;
+import com.haui.coffee_shop.config.MessageBuilder;
+import com.haui.coffee_shop.exception.CoffeeShopException;
+import com.haui.coffee_shop.export.ExportJobService;
+import com.haui.coffee_shop.payload.response.RespMessage;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+// Theo dõi và tải file của các job xuất dữ liệu chạy nền (tạo job qua POST /api/order/export/jobs,
+// /api/order/invoice/jobs, /api/product/export/jobs)
+@RestController
+@RequestMapping("api/export/jobs")
+@RequiredArgsConstructor
+public class ExportController {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ExportJobService exportJobService;
+    private final MessageBuilder messageBuilder;
+
+    @GetMapping("/{jobId}")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF')")
+    public ResponseEntity<String> getJob(@PathVariable String jobId) {
+        try {
+            RespMessage respMessage = messageBuilder.buildSuccessMessage(exportJobService.getJob(jobId, currentOwner()));
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.OK);
+        } catch (CoffeeShopException e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(e.getCode(), e.getObjects(), e.getMessage());
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    // Tomcat hỗ trợ sendfile (NIO connector) thì giao file cho connector gửi thẳng từ đĩa ra socket,
+    // ngược lại chép bằng FileChannel.transferTo. Không có bước nào nạp cả file vào heap
+    @GetMapping("/{jobId}/download")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF')")
+    public ResponseEntity<String> download(@PathVariable String jobId, HttpServletRequest request,
+                                           HttpServletResponse response) throws IOException {
+        ExportJobService.Artifact artifact;
+        try {
+            artifact = exportJobService.getArtifact(jobId, currentOwner());
+        } catch (CoffeeShopException e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(e.getCode(), e.getObjects(), e.getMessage());
+            HttpStatus status = Constant.NOT_FOUND.equals(e.getCode()) ? HttpStatus.NOT_FOUND : HttpStatus.CONFLICT;
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), status);
+        }
+
+        response.setContentType(artifact.contentType());
+        response.setContentLengthLong(artifact.size());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename*=UTF-8''" +
+                URLEncoder.encode(artifact.fileName(), StandardCharsets.UTF_8).replace("+", "%20"));
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, artifact.path().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, artifact.size());
+        } else {
+            exportJobService.transfer(artifact, response.getOutputStream());
+        }
+        // Response đã được ghi trực tiếp
+        return null;
+    }
+
+    private String currentOwner() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "anonymous" : authentication.getName();
+    }
+}
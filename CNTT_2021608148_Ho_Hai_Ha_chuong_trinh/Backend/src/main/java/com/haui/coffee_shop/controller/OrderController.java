@@ -4,25 +4,36 @@ package com.haui.coffee_shop.controller;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
 
+import com.haui.coffee_shop.cache.IdempotencyStore;
 import com.haui.coffee_shop.common.Constant;
 import com.haui.coffee_shop.common.GsonUtil;
 import com.haui.coffee_shop.common.enums.OrderStatus;
+import com.haui.coffee_shop.common.enums.PaymentMethod;
 import com.haui.coffee_shop.config.MessageBuilder;
 import com.haui.coffee_shop.exception.CoffeeShopException;
 import com.haui.coffee_shop.model.Order;
+import com.haui.coffee_shop.payload.request.BulkOrderStatusRequest;
 import com.haui.coffee_shop.payload.request.OrderRequest;
+import com.haui.coffee_shop.payload.response.CheckoutTicketResponse;
+import com.haui.coffee_shop.payload.response.ExportJobResponse;
 import com.haui.coffee_shop.payload.response.RespMessage;
 import com.haui.coffee_shop.repository.OrderRepository;
+import com.haui.coffee_shop.service.CheckoutQueueService;
 import com.haui.coffee_shop.service.OrderService;
 
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.List;
 
@@ -34,6 +45,10 @@ public class OrderController {
     private final OrderService orderService;
     @Autowired
     private final MessageBuilder messageBuilder;
+    @Autowired
+    private final IdempotencyStore idempotencyStore;
+    @Autowired
+    private final CheckoutQueueService checkoutQueueService;
 
 
     @GetMapping("/get-all")
@@ -47,6 +62,26 @@ public class OrderController {
         return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.OK);
     }
 
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF')")
+    public ResponseEntity<String> searchOrders(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) PaymentMethod paymentMethod,
+            @RequestParam(required = false)
+            @DateTimeFormat(pattern = "yyyy-MM-dd") Date fromDate,
+            @RequestParam(required = false)
+            @DateTimeFormat(pattern = "yyyy-MM-dd") Date toDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            RespMessage respMessage = orderService.searchOrders(status, paymentMethod, fromDate, toDate, cursor, size);
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.OK);
+        } catch (CoffeeShopException e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(e.getCode(), e.getObjects(), e.getMessage());
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @GetMapping("/{orderId}")
     public ResponseEntity<String> getOrderById(@PathVariable long orderId) {
         try {
@@ -58,8 +93,60 @@ public class OrderController {
         }
     }
 
+    // Client gửi lại request khi timeout: cùng Idempotency-Key thì trả lại response cũ, không tạo đơn mới
     @PostMapping("")
-    public ResponseEntity<String> addOrder(@RequestBody OrderRequest orderRequest) {
+    public ResponseEntity<String> addOrder(@RequestBody OrderRequest orderRequest,
+                                           @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return submitOrder(orderRequest);
+        }
+        try {
+            String fingerprint = DigestUtils.md5DigestAsHex(
+                    GsonUtil.getInstance().toJson(orderRequest).getBytes(StandardCharsets.UTF_8));
+            return idempotencyStore.execute("order:" + currentOwner() + ":" + idempotencyKey, fingerprint,
+                    () -> submitOrder(orderRequest));
+        } catch (CoffeeShopException e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(e.getCode(), e.getObjects(), e.getMessage());
+            HttpStatus status = Constant.FIELD_EXISTED.equals(e.getCode()) ? HttpStatus.CONFLICT : HttpStatus.UNPROCESSABLE_ENTITY;
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), status);
+        }
+    }
+
+    // Checkout qua hàng đợi: trả ticket ngay (202), kết quả xem ở GET /checkout/{ticketId} hoặc /user/queue/checkout
+    @PostMapping("/async")
+    public ResponseEntity<String> addOrderAsync(@RequestBody OrderRequest orderRequest) {
+        try {
+            CheckoutTicketResponse ticket = checkoutQueueService.submit(orderRequest, currentOwner());
+            RespMessage respMessage = messageBuilder.buildSuccessMessage(ticket);
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.ACCEPTED);
+        } catch (CoffeeShopException e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(e.getCode(), e.getObjects(), e.getMessage());
+            if (Constant.SERVICE_BUSY.equals(e.getCode())) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(GsonUtil.getInstance().toJson(respMessage));
+            }
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/checkout/{ticketId}")
+    public ResponseEntity<String> getCheckoutTicket(@PathVariable String ticketId) {
+        try {
+            RespMessage respMessage = messageBuilder.buildSuccessMessage(checkoutQueueService.getTicket(ticketId, currentOwner()));
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.OK);
+        } catch (CoffeeShopException e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(e.getCode(), e.getObjects(), e.getMessage());
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    private String currentOwner() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "anonymous" : authentication.getName();
+    }
+
+    private ResponseEntity<String> submitOrder(OrderRequest orderRequest) {
         try {
             RespMessage respMessage = orderService.addOrder(orderRequest);
             return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.OK);
@@ -87,6 +174,21 @@ public class OrderController {
         }
     }
 
+    @PutMapping("/status/bulk")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF')")
+    public ResponseEntity<String> bulkUpdateOrderStatus(@RequestBody BulkOrderStatusRequest request) {
+        try {
+            RespMessage respMessage = orderService.bulkUpdateOrderStatus(request);
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.OK);
+        } catch (CoffeeShopException e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(e.getCode(), e.getObjects(), e.getMessage());
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.BAD_REQUEST);
+        } catch (RuntimeException e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(Constant.UNDEFINED, null, e.getMessage());
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @PutMapping("/cancel-order/{orderId}")
     public ResponseEntity<String> cancelOrder(@PathVariable long orderId) {
         try {
@@ -143,6 +245,71 @@ public class OrderController {
         }
     }
     
+    @GetMapping("/export/stream")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF')")
+    public ResponseEntity<String> exportFlat(HttpServletResponse response,
+            @RequestParam(defaultValue = "orders") String dataset,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false)
+            @DateTimeFormat(pattern = "yyyy-MM-dd") Date startDate,
+            @RequestParam(required = false)
+            @DateTimeFormat(pattern = "yyyy-MM-dd") Date endDate) throws IOException {
+        try {
+            orderService.exportOrdersFlat(response, dataset, format, startDate, endDate);
+            return null;
+        } catch (CoffeeShopException e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(e.getCode(), e.getObjects(), e.getMessage());
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Xuất Excel chạy nền: trả job ngay (202), theo dõi và tải file qua /api/export/jobs/{jobId}
+    @PostMapping("/export/jobs")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF')")
+    public ResponseEntity<String> submitExport(
+            @RequestParam(required = false)
+            @DateTimeFormat(pattern = "yyyy-MM-dd") Date startDate,
+            @RequestParam(required = false)
+            @DateTimeFormat(pattern = "yyyy-MM-dd") Date endDate) {
+        try {
+            ExportJobResponse job = orderService.submitOrderExport(startDate, endDate, currentOwner());
+            RespMessage respMessage = messageBuilder.buildSuccessMessage(job);
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.ACCEPTED);
+        } catch (CoffeeShopException e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(e.getCode(), e.getObjects(), e.getMessage());
+            if (Constant.SERVICE_BUSY.equals(e.getCode())) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "30")
+                        .body(GsonUtil.getInstance().toJson(respMessage));
+            }
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Hóa đơn hàng loạt (ZIP) cho kế toán, tải về qua /api/export/jobs/{jobId}/download
+    @PostMapping("/invoice/jobs")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF')")
+    public ResponseEntity<String> submitInvoiceArchive(
+            @RequestParam(required = false)
+            @DateTimeFormat(pattern = "yyyy-MM-dd") Date startDate,
+            @RequestParam(required = false)
+            @DateTimeFormat(pattern = "yyyy-MM-dd") Date endDate,
+            @RequestParam(required = false) OrderStatus status) {
+        try {
+            ExportJobResponse job = orderService.submitInvoiceArchive(startDate, endDate, status, currentOwner());
+            RespMessage respMessage = messageBuilder.buildSuccessMessage(job);
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.ACCEPTED);
+        } catch (CoffeeShopException e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(e.getCode(), e.getObjects(), e.getMessage());
+            if (Constant.SERVICE_BUSY.equals(e.getCode())) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "30")
+                        .body(GsonUtil.getInstance().toJson(respMessage));
+            }
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @GetMapping("/invoice/{orderId}")
     public ResponseEntity<String> exportInvoice(@PathVariable Long orderId, HttpServletResponse response) throws IOException {
         try {
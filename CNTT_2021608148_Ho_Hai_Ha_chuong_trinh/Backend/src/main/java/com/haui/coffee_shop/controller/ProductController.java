@@ -10,18 +10,25 @@ import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.haui.coffee_shop.cache.CatalogCache;
+import com.haui.coffee_shop.cache.CatalogVersionTracker;
 import com.haui.coffee_shop.common.Constant;
 import com.haui.coffee_shop.common.GsonUtil;
 import com.haui.coffee_shop.config.MessageBuilder;
 import com.haui.coffee_shop.exception.CoffeeShopException;
 import com.haui.coffee_shop.model.Product;
+import com.haui.coffee_shop.payload.request.ProductFilterRequest;
 import com.haui.coffee_shop.payload.request.ProductRequest;
 import com.haui.coffee_shop.payload.response.RespMessage;
 import com.haui.coffee_shop.service.ProductService;
+import com.haui.coffee_shop.service.ProductStatsService;
 
 import jakarta.servlet.http.HttpServletResponse;
 
@@ -33,14 +40,66 @@ import org.springframework.web.bind.annotation.GetMapping;
 @RequestMapping("/api/product")
 public class ProductController {
     private final ProductService productService;
+    private final ProductStatsService productStatsService;
+    private final CatalogCache catalogCache;
+    private final CatalogVersionTracker catalogVersionTracker;
     private final MessageBuilder messageBuilder;
 
     @RequestMapping(value = "/all", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<String> getAllProducts() {
+    public ResponseEntity<String> getAllProducts(WebRequest webRequest) {
+        if (catalogVersionTracker.checkNotModified(webRequest, CatalogVersionTracker.Scope.PRODUCT)) {
+            return null;
+        }
         RespMessage respMessage = productService.getAllProduct();
         return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.OK);
     }
 
+    @RequestMapping(value = "/autocomplete", method = RequestMethod.GET, produces = "application/json")
+    public ResponseEntity<String> autocomplete(@RequestParam("q") String prefix,
+                                               @RequestParam(required = false) Integer limit) {
+        RespMessage respMessage = productService.autocomplete(prefix, limit);
+        return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.OK);
+    }
+
+    @RequestMapping(value = "/page", method = RequestMethod.GET, produces = "application/json")
+    public ResponseEntity<String> getProductPage(@RequestParam(required = false) Long categoryId,
+                                                 @RequestParam(required = false) Long brandId,
+                                                 @RequestParam(required = false) String sort,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer size,
+                                                 WebRequest webRequest) {
+        if (catalogVersionTracker.checkNotModified(webRequest, CatalogVersionTracker.Scope.PRODUCT)) {
+            return null;
+        }
+        try {
+            RespMessage respMessage = productService.getProductPage(categoryId, brandId, sort, cursor, size);
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.OK);
+        } catch (CoffeeShopException e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(e.getCode(), e.getObjects(), e.getMessage());
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(Constant.UNDEFINED, null, e.getMessage());
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @RequestMapping(value = "/filter", method = RequestMethod.GET, produces = "application/json")
+    public ResponseEntity<String> filterProducts(@ModelAttribute ProductFilterRequest request, WebRequest webRequest) {
+        if (catalogVersionTracker.checkNotModified(webRequest, CatalogVersionTracker.Scope.PRODUCT)) {
+            return null;
+        }
+        try {
+            RespMessage respMessage = productService.filterProducts(request);
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.OK);
+        } catch (CoffeeShopException e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(e.getCode(), e.getObjects(), e.getMessage());
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(Constant.UNDEFINED, null, e.getMessage());
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @RequestMapping(value = "", method = RequestMethod.POST, produces = "application/json")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     public ResponseEntity<String> addProduct(@RequestBody ProductRequest request) {
@@ -89,7 +148,10 @@ public class ProductController {
     }
 
     @RequestMapping(value = "/{id}", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<RespMessage> getProduct(@PathVariable Long id) {
+    public ResponseEntity<RespMessage> getProduct(@PathVariable Long id, WebRequest webRequest) {
+        if (catalogVersionTracker.checkNotModified(webRequest, CatalogVersionTracker.Scope.PRODUCT)) {
+            return null;
+        }
         try {
             RespMessage respMessage = productService.getProductById(id);
             return new ResponseEntity<>(respMessage, HttpStatus.OK);
@@ -120,7 +182,10 @@ public class ProductController {
         }
     }
     @RequestMapping(value = "category/{categoryId}", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<RespMessage> getProductsByCategoryId(@PathVariable Long categoryId) {
+    public ResponseEntity<RespMessage> getProductsByCategoryId(@PathVariable Long categoryId, WebRequest webRequest) {
+        if (catalogVersionTracker.checkNotModified(webRequest, CatalogVersionTracker.Scope.PRODUCT)) {
+            return null;
+        }
         try {
             RespMessage respMessage = productService.getProductsByCategoryId(categoryId);
             return new ResponseEntity<>(respMessage, HttpStatus.OK);
@@ -134,7 +199,10 @@ public class ProductController {
     }
     
     @RequestMapping(value = "brand/{brandId}", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<RespMessage> getProductsByBrandId(@PathVariable Long brandId) {
+    public ResponseEntity<RespMessage> getProductsByBrandId(@PathVariable Long brandId, WebRequest webRequest) {
+        if (catalogVersionTracker.checkNotModified(webRequest, CatalogVersionTracker.Scope.PRODUCT)) {
+            return null;
+        }
         try {
             RespMessage respMessage = productService.getProductsByBrandId(brandId);
             return new ResponseEntity<>(respMessage, HttpStatus.OK);
@@ -193,6 +261,58 @@ public class ProductController {
         }
     }
     
+    @RequestMapping(value = "/cache/stats", method = RequestMethod.GET, produces = "application/json")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<String> getCacheStats() {
+        RespMessage respMessage = messageBuilder.buildSuccessMessage(catalogCache.getStats());
+        return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.OK);
+    }
+
+    @RequestMapping(value = "/stats/rebuild", method = RequestMethod.POST, produces = "application/json")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<String> rebuildProductStats() {
+        try {
+            RespMessage respMessage = productStatsService.rebuildStats();
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.OK);
+        } catch (Exception e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(Constant.SYSTEM_ERROR, null, e.getMessage());
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping("/export/stream")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF')")
+    public ResponseEntity<String> exportFlat(HttpServletResponse response,
+                                             @RequestParam(defaultValue = "csv") String format) throws IOException {
+        try {
+            productService.exportFlat(response, format);
+            return null;
+        } catch (CoffeeShopException e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(e.getCode(), e.getObjects(), e.getMessage());
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Xuất Excel chạy nền: trả job ngay (202), theo dõi và tải file qua /api/export/jobs/{jobId}
+    @PostMapping("/export/jobs")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF')")
+    public ResponseEntity<String> submitExport() {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            String owner = authentication == null ? "anonymous" : authentication.getName();
+            RespMessage respMessage = messageBuilder.buildSuccessMessage(productService.submitProductExport(owner));
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.ACCEPTED);
+        } catch (CoffeeShopException e) {
+            RespMessage respMessage = messageBuilder.buildFailureMessage(e.getCode(), e.getObjects(), e.getMessage());
+            if (Constant.SERVICE_BUSY.equals(e.getCode())) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "30")
+                        .body(GsonUtil.getInstance().toJson(respMessage));
+            }
+            return new ResponseEntity<>(GsonUtil.getInstance().toJson(respMessage), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @GetMapping("/export")
     public ResponseEntity<String> exportProducts(HttpServletResponse response) throws IOException {
         try {
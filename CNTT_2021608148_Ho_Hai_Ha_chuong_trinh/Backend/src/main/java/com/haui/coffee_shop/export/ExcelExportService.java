@@ -0,0 +1,226 @@
+package com.haui.coffee_shop.export;
+
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import com.haui.coffee_shop.common.Constant;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+// Xuất Excel danh sách đơn hàng và sản phẩm: một câu SELECT duy nhất đọc theo kiểu streaming
+// (không nạp entity, không giữ cả danh sách), dòng được gom theo đơn hàng/sản phẩm rồi ghi thẳng vào SXSSF.
+// Bộ nhớ dùng chỉ phụ thuộc vào một nhóm và cửa sổ dòng của SXSSF, không phụ thuộc số dòng
+// SXSSF đệm các dòng ra file tạm, outputStream chỉ được ghi sau khi đã đọc hết dữ liệu
+@Service
+public class ExcelExportService {
+    public static final String CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    private static final String[] ORDER_HEADERS = {
+            "STT", "ID Đơn hàng", "Trạng thái đơn hàng", "Phương thức thanh toán", "Ngày đặt", "Tổng giá trị",
+            "Địa chỉ", "Người nhận", "Số điện thoại", "Tên từng sản phẩm trong đơn", "Số lượng", "Loại", "Giá", "Giảm giá"
+    };
+    private static final int[] ORDER_WIDTHS = {6, 12, 20, 24, 20, 14, 45, 24, 15, 45, 10, 14, 12, 10};
+    private static final int ORDER_GROUP_COLUMNS = 9;
+
+    private static final String[] PRODUCT_HEADERS = {
+            "STT", "ID sản phẩm", "Tên sản phẩm", "Mô tả", "Danh mục", "Thương hiệu", "Trạng thái",
+            "Khối lượng tịnh", "Loại hạt", "Xuất xứ", "Mức độ rang",
+            "Ghi chú hương vị", "Hàm lượng caffeine", "Dạng cà phê", "Ngày tạo",
+            "ID từng phiên bản", "Loại sản phẩm", "Giá", "Số lượng", "Giảm giá", "Trạng thái phiên bản"
+    };
+    private static final int[] PRODUCT_WIDTHS = {6, 12, 40, 60, 20, 20, 12, 16, 14, 18, 14, 30, 20, 16, 20, 18, 16, 12, 10, 10, 20};
+    private static final int PRODUCT_GROUP_COLUMNS = 15;
+
+    // Sắp xếp theo khóa nhóm để các dòng của cùng một đơn/sản phẩm nằm liền nhau
+    private static final String ORDER_EXPORT_SQL = "SELECT o.id, o.status, o.payment_method, o.order_date, o.total, " +
+            "sa.location, sa.receiver_name, sa.receiver_phone, " +
+            "p.name, oi.amount, t.name, oi.price, oi.discount " +
+            "FROM `order` o " +
+            "LEFT JOIN shipping_address sa ON sa.id = o.shipping_address_id " +
+            "LEFT JOIN order_item oi ON oi.order_id = o.id " +
+            "LEFT JOIN product_item pi ON pi.id = oi.product_item_id " +
+            "LEFT JOIN product p ON p.id = pi.product_id " +
+            "LEFT JOIN type_product t ON t.id = pi.type_id " +
+            "WHERE (? IS NULL OR o.order_date >= ?) AND (? IS NULL OR o.order_date <= ?) " +
+            "ORDER BY o.id, oi.id";
+    private static final String PRODUCT_EXPORT_SQL = "SELECT p.id, p.name, p.description, c.name, b.name, p.status, " +
+            "p.net_weight, p.bean_type, p.origin, p.road_level, p.flavo_notes, p.caffeine_contents, p.cafe_form, p.created_at, " +
+            "pi.id, t.name, pi.price, pi.stock, pi.discount, pi.status " +
+            "FROM product p " +
+            "LEFT JOIN category c ON c.id = p.category_id " +
+            "LEFT JOIN brand b ON b.id = p.brand_id " +
+            "LEFT JOIN product_item pi ON pi.product_id = p.id " +
+            "LEFT JOIN type_product t ON t.id = pi.type_id " +
+            "WHERE p.status = 'ACTIVE' " +
+            "ORDER BY p.id, pi.id";
+
+    private static final String COUNT_ORDERS_SQL = "SELECT COUNT(*) FROM `order` o " +
+            "WHERE (? IS NULL OR o.order_date >= ?) AND (? IS NULL OR o.order_date <= ?)";
+    private static final String COUNT_PRODUCTS_SQL = "SELECT COUNT(*) FROM product p WHERE p.status = 'ACTIVE'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    // fetch-size mặc định Integer.MIN_VALUE: MySQL Connector/J trả từng dòng thay vì nạp cả kết quả vào bộ nhớ
+    public ExcelExportService(DataSource dataSource,
+                              @Value("${export.fetch-size:" + Integer.MIN_VALUE + "}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    // Số nhóm (đơn hàng) sẽ được xuất, dùng để tính phần trăm tiến độ
+    public long countOrders(Date startDate, Date endDate) {
+        Long count = jdbcTemplate.queryForObject(COUNT_ORDERS_SQL, Long.class, startDate, startDate, endDate, endDate);
+        return count == null ? 0 : count;
+    }
+
+    public long countProducts() {
+        Long count = jdbcTemplate.queryForObject(COUNT_PRODUCTS_SQL, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    public void exportOrders(OutputStream outputStream, String sheetName, Date startDate, Date endDate) throws IOException {
+        exportOrders(outputStream, sheetName, startDate, endDate, groups -> { });
+    }
+
+    // progress nhận số đơn hàng đã ghi sau mỗi đơn
+    public void exportOrders(OutputStream outputStream, String sheetName, Date startDate, Date endDate,
+                             LongConsumer progress) throws IOException {
+        try (StreamingSheetWriter writer = new StreamingSheetWriter(sheetName, ORDER_HEADERS, ORDER_WIDTHS,
+                ORDER_GROUP_COLUMNS, HorizontalAlignment.CENTER)) {
+            GroupingHandler handler = new GroupingHandler(writer, progress) {
+                @Override
+                Object[] groupValues(ResultSet rs) throws SQLException {
+                    return new Object[]{writer.nextGroupNumber(), rs.getLong(1), rs.getString(2), rs.getString(3),
+                            rs.getTimestamp(4), getDouble(rs, 5), rs.getString(6), rs.getString(7), rs.getString(8)};
+                }
+
+                @Override
+                void completeGroup(Object[] group, List<Object[]> rows) {
+                    if (group[5] == null) {
+                        // Đơn cũ chưa được backfill tổng tiền
+                        double subtotal = 0;
+                        for (Object[] row : rows) {
+                            subtotal += ((Double) row[3] - (Double) row[4]) * (Integer) row[1];
+                        }
+                        group[5] = subtotal + Constant.SHIPPING_FEE;
+                    }
+                }
+
+                @Override
+                Object[] rowValues(ResultSet rs) throws SQLException {
+                    if (rs.getObject(10) == null) {
+                        return null;
+                    }
+                    return new Object[]{rs.getString(9), rs.getInt(10), rs.getString(11), rs.getDouble(12), rs.getDouble(13)};
+                }
+            };
+            streamingJdbcTemplate.query(ORDER_EXPORT_SQL, handler, startDate, startDate, endDate, endDate);
+            handler.finish();
+            writer.write(outputStream);
+        }
+    }
+
+    public void exportProducts(OutputStream outputStream, String sheetName) throws IOException {
+        exportProducts(outputStream, sheetName, groups -> { });
+    }
+
+    // progress nhận số sản phẩm đã ghi sau mỗi sản phẩm
+    public void exportProducts(OutputStream outputStream, String sheetName, LongConsumer progress) throws IOException {
+        try (StreamingSheetWriter writer = new StreamingSheetWriter(sheetName, PRODUCT_HEADERS, PRODUCT_WIDTHS,
+                PRODUCT_GROUP_COLUMNS, HorizontalAlignment.GENERAL)) {
+            GroupingHandler handler = new GroupingHandler(writer, progress) {
+                @Override
+                Object[] groupValues(ResultSet rs) throws SQLException {
+                    return new Object[]{writer.nextGroupNumber(), rs.getLong(1), rs.getString(2), rs.getString(3),
+                            rs.getString(4), rs.getString(5), rs.getString(6), rs.getString(7), rs.getString(8),
+                            rs.getString(9), rs.getString(10), rs.getString(11), rs.getString(12), rs.getString(13),
+                            rs.getTimestamp(14)};
+                }
+
+                @Override
+                Object[] rowValues(ResultSet rs) throws SQLException {
+                    if (rs.getObject(15) == null) {
+                        return null;
+                    }
+                    return new Object[]{rs.getLong(15), rs.getString(16), rs.getDouble(17), rs.getInt(18),
+                            rs.getDouble(19), rs.getString(20)};
+                }
+            };
+            streamingJdbcTemplate.query(PRODUCT_EXPORT_SQL, handler);
+            handler.finish();
+            writer.write(outputStream);
+        }
+    }
+
+    private static Double getDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    // Gom các dòng liên tiếp có cùng khóa ở cột 1 thành một nhóm, giá trị của nhóm lấy từ dòng đầu tiên.
+    // Chỉ giữ các dòng của nhóm hiện tại trong bộ nhớ
+    private abstract static class GroupingHandler implements RowCallbackHandler {
+        private final StreamingSheetWriter writer;
+        private final LongConsumer progress;
+        private final List<Object[]> rows = new ArrayList<>();
+        private long currentKey;
+        private Object[] group;
+
+        GroupingHandler(StreamingSheetWriter writer, LongConsumer progress) {
+            this.writer = writer;
+            this.progress = progress;
+        }
+
+        abstract Object[] groupValues(ResultSet rs) throws SQLException;
+
+        // null khi nhóm không có dòng con (LEFT JOIN không khớp)
+        abstract Object[] rowValues(ResultSet rs) throws SQLException;
+
+        // Bổ sung giá trị của nhóm cần đến tất cả các dòng con
+        void completeGroup(Object[] group, List<Object[]> rows) {
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long key = rs.getLong(1);
+            if (group != null && key != currentKey) {
+                flush();
+            }
+            if (group == null) {
+                currentKey = key;
+                group = groupValues(rs);
+            }
+            Object[] row = rowValues(rs);
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+
+        void finish() {
+            if (group != null) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            completeGroup(group, rows);
+            writer.writeGroup(group, rows);
+            rows.clear();
+            group = null;
+            progress.accept(writer.groupCount());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.haui.coffee_shop.export;
+
+import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.exception.CoffeeShopException;
+
+// Định dạng dạng phẳng cho việc nạp vào kho dữ liệu (không định dạng như Excel)
+public enum ExportFormat {
+    CSV("text/csv; charset=UTF-8", ".csv"),
+    // Mỗi dòng là một object JSON
+    NDJSON("application/x-ndjson; charset=UTF-8", ".ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat from(String value) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"format"}, "Format must be csv or ndjson");
+    }
+}
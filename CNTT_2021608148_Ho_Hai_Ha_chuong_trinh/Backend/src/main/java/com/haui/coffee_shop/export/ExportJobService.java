@@ -0,0 +1,249 @@
+package com.haui.coffee_shop.export;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.exception.CoffeeShopException;
+import com.haui.coffee_shop.payload.response.ExportJobResponse;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+// Chạy các tác vụ xuất file lớn ngoài luồng HTTP: trả jobId ngay, số worker và hàng đợi có giới hạn
+// (đầy thì từ chối với 503). File được ghi vào thư mục spool (ghi ra .part rồi đổi tên khi xong),
+// tiến độ tính theo số nhóm đã ghi trên tổng số nhóm. File hết hạn bị xóa định kỳ.
+// Thông tin job chỉ nằm trong bộ nhớ: khởi động lại thì các file cũ trong thư mục spool bị dọn
+@Service
+@Slf4j
+public class ExportJobService {
+    public static final String DOWNLOAD_PATH = "/api/export/jobs/%s/download";
+    // Phần trăm dành cho giai đoạn ghi dòng, phần còn lại là lúc đóng gói file
+    private static final int ROWS_PROGRESS = 95;
+
+    public enum JobType {
+        ORDER_EXCEL,
+        PRODUCT_EXCEL,
+        INVOICE_ZIP
+    }
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    // Nội dung của một job: count() trả số nhóm sẽ ghi, write() gọi progress với số nhóm đã ghi
+    public interface ExportTask {
+        long count();
+
+        void write(OutputStream outputStream, LongConsumer progress) throws IOException;
+    }
+
+    public record Artifact(Path path, String fileName, String contentType, long size) {
+    }
+
+    private final Path spoolDir;
+    private final long ttlMillis;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public ExportJobService(@Value("${export.jobs.spool-dir:${java.io.tmpdir}/coffee-shop-exports}") String spoolDir,
+                            @Value("${export.jobs.workers:2}") int workers,
+                            @Value("${export.jobs.queue-capacity:20}") int queueCapacity,
+                            @Value("${export.jobs.ttl-minutes:60}") long ttlMinutes) {
+        this.spoolDir = Paths.get(spoolDir).toAbsolutePath();
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(ttlMinutes);
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "export-worker-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(spoolDir);
+        // File còn sót từ lần chạy trước không còn job nào tham chiếu
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDir)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public ExportJobResponse submit(JobType type, String fileName, String contentType, String owner, ExportTask task) {
+        Job job = new Job(UUID.randomUUID().toString(), type, fileName, contentType, owner);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new CoffeeShopException(Constant.SERVICE_BUSY, null, "Too many exports in progress, please retry later");
+        }
+        return toResponse(job);
+    }
+
+    public ExportJobResponse getJob(String jobId, String owner) {
+        return toResponse(findJob(jobId, owner));
+    }
+
+    public Artifact getArtifact(String jobId, String owner) {
+        Job job = findJob(jobId, owner);
+        if (job.status != JobStatus.COMPLETED) {
+            throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"export"}, "Export is not ready");
+        }
+        return new Artifact(job.file, job.fileName, job.contentType, job.fileSize);
+    }
+
+    // Sao chép file sang response bằng FileChannel.transferTo: dữ liệu không đi qua bộ đệm trong heap.
+    // Khi đích là socket (sendfile của Tomcat) thì hệ điều hành chép thẳng, không qua user space
+    public void transfer(Artifact artifact, OutputStream outputStream) throws IOException {
+        WritableByteChannel target = Channels.newChannel(outputStream);
+        try (FileChannel source = FileChannel.open(artifact.path(), StandardOpenOption.READ)) {
+            long position = 0;
+            long size = source.size();
+            while (position < size) {
+                position += source.transferTo(position, size - position, target);
+            }
+        }
+        outputStream.flush();
+    }
+
+    @Scheduled(fixedDelayString = "${export.jobs.cleanup-ms:300000}")
+    public void removeExpiredJobs() {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> {
+            if (job.completedAt == null || job.completedAt.getTime() + ttlMillis > now) {
+                return false;
+            }
+            deleteQuietly(job.file);
+            return true;
+        });
+    }
+
+    private void run(Job job, ExportTask task) {
+        job.status = JobStatus.RUNNING;
+        Path part = spoolDir.resolve(job.id + ".part");
+        try {
+            long total = task.count();
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(part))) {
+                task.write(outputStream, written -> job.progress = total == 0
+                        ? ROWS_PROGRESS
+                        : (int) Math.min(ROWS_PROGRESS, written * ROWS_PROGRESS / total));
+            }
+            Path file = spoolDir.resolve(job.id + extension(job.fileName));
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.file = file;
+            job.fileSize = Files.size(file);
+            job.progress = 100;
+            job.completedAt = new Date();
+            job.status = JobStatus.COMPLETED;
+        } catch (Exception e) {
+            log.error("Export job {} ({}) failed", job.id, job.type, e);
+            deleteQuietly(part);
+            job.error = e.getMessage();
+            job.completedAt = new Date();
+            job.status = JobStatus.FAILED;
+        }
+    }
+
+    private Job findJob(String jobId, String owner) {
+        Job job = jobs.get(jobId);
+        if (job == null || !job.owner.equals(owner)) {
+            throw new CoffeeShopException(Constant.NOT_FOUND, new Object[]{"export"}, "Export job not found");
+        }
+        return job;
+    }
+
+    private ExportJobResponse toResponse(Job job) {
+        boolean completed = job.status == JobStatus.COMPLETED;
+        return ExportJobResponse.builder()
+                .jobId(job.id)
+                .type(job.type.toString())
+                .status(job.status.toString())
+                .progress(job.progress)
+                .fileName(job.fileName)
+                .fileSize(completed ? job.fileSize : null)
+                .downloadUrl(completed ? String.format(DOWNLOAD_PATH, job.id) : null)
+                .error(job.error)
+                .createdAt(job.createdAt)
+                .completedAt(job.completedAt)
+                .expiresAt(job.completedAt == null ? null : new Date(job.completedAt.getTime() + ttlMillis))
+                .build();
+    }
+
+    private static String extension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? "" : fileName.substring(dot);
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete export file {}", file, e);
+        }
+    }
+
+    private static class Job {
+        private final String id;
+        private final JobType type;
+        private final String fileName;
+        private final String contentType;
+        private final String owner;
+        private final Date createdAt = new Date();
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile int progress;
+        private volatile Path file;
+        private volatile long fileSize;
+        private volatile String error;
+        private volatile Date completedAt;
+
+        private Job(String id, JobType type, String fileName, String contentType, String owner) {
+            this.id = id;
+            this.type = type;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.owner = owner;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.haui.coffee_shop.export;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.haui.coffee_shop.common.Constant;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+// Xuất CSV/NDJSON cho kho dữ liệu: mỗi tập dữ liệu là một câu SELECT đọc theo kiểu streaming (cùng fetch-size
+// với ExcelExportService), mỗi dòng của ResultSet được ghi ra stream ngay, không dựng entity hay OrderResponse
+@Service
+public class FlatExportService {
+    private static final String[] ORDER_COLUMNS = {
+            "order_id", "status", "payment_method", "order_date", "subtotal", "shipping_fee", "total",
+            "user_id", "receiver_name", "receiver_phone", "location"
+    };
+    // Đơn cũ chưa được backfill tổng tiền thì tính lại từ order_item
+    private static final String ORDER_SQL = "SELECT o.id, o.status, o.payment_method, o.order_date, o.subtotal, o.shipping_fee, " +
+            "COALESCE(o.total, (SELECT SUM((oi.price - oi.discount) * oi.amount) FROM order_item oi WHERE oi.order_id = o.id) + " +
+            Constant.SHIPPING_FEE + "), " +
+            "sa.user_id, sa.receiver_name, sa.receiver_phone, sa.location " +
+            "FROM `order` o " +
+            "LEFT JOIN shipping_address sa ON sa.id = o.shipping_address_id " +
+            "WHERE (? IS NULL OR o.order_date >= ?) AND (? IS NULL OR o.order_date <= ?) " +
+            "ORDER BY o.id";
+
+    private static final String[] ORDER_ITEM_COLUMNS = {
+            "order_item_id", "order_id", "order_date", "product_id", "product_name", "product_item_id", "type",
+            "amount", "price", "discount"
+    };
+    private static final String ORDER_ITEM_SQL = "SELECT oi.id, o.id, o.order_date, p.id, p.name, pi.id, t.name, " +
+            "oi.amount, oi.price, oi.discount " +
+            "FROM order_item oi " +
+            "JOIN `order` o ON o.id = oi.order_id " +
+            "LEFT JOIN product_item pi ON pi.id = oi.product_item_id " +
+            "LEFT JOIN product p ON p.id = pi.product_id " +
+            "LEFT JOIN type_product t ON t.id = pi.type_id " +
+            "WHERE (? IS NULL OR o.order_date >= ?) AND (? IS NULL OR o.order_date <= ?) " +
+            "ORDER BY oi.id";
+
+    // Một dòng cho mỗi phiên bản (product_item), kể cả sản phẩm ngừng bán
+    private static final String[] PRODUCT_COLUMNS = {
+            "product_id", "name", "category", "brand", "status", "net_weight", "bean_type", "origin", "road_level",
+            "caffeine_contents", "cafe_form", "created_at",
+            "product_item_id", "type", "price", "stock", "discount", "item_status"
+    };
+    private static final String PRODUCT_SQL = "SELECT p.id, p.name, c.name, b.name, p.status, p.net_weight, p.bean_type, " +
+            "p.origin, p.road_level, p.caffeine_contents, p.cafe_form, p.created_at, " +
+            "pi.id, t.name, pi.price, pi.stock, pi.discount, pi.status " +
+            "FROM product p " +
+            "LEFT JOIN category c ON c.id = p.category_id " +
+            "LEFT JOIN brand b ON b.id = p.brand_id " +
+            "LEFT JOIN product_item pi ON pi.product_id = p.id " +
+            "LEFT JOIN type_product t ON t.id = pi.type_id " +
+            "ORDER BY p.id, pi.id";
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public FlatExportService(DataSource dataSource,
+                             @Value("${export.fetch-size:" + Integer.MIN_VALUE + "}") int fetchSize) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    public void exportOrders(OutputStream outputStream, ExportFormat format, Date startDate, Date endDate) throws IOException {
+        export(outputStream, format, ORDER_COLUMNS, ORDER_SQL, startDate, startDate, endDate, endDate);
+    }
+
+    public void exportOrderItems(OutputStream outputStream, ExportFormat format, Date startDate, Date endDate) throws IOException {
+        export(outputStream, format, ORDER_ITEM_COLUMNS, ORDER_ITEM_SQL, startDate, startDate, endDate, endDate);
+    }
+
+    public void exportProducts(OutputStream outputStream, ExportFormat format) throws IOException {
+        export(outputStream, format, PRODUCT_COLUMNS, PRODUCT_SQL);
+    }
+
+    private void export(OutputStream outputStream, ExportFormat format, String[] columns, String sql,
+                        Object... args) throws IOException {
+        RecordWriter writer = RecordWriter.create(format, outputStream, columns);
+        try {
+            streamingJdbcTemplate.query(sql, rs -> {
+                try {
+                    writer.write(readRow(rs, columns.length));
+                } catch (IOException e) {
+                    // Client ngắt kết nối: dừng đọc ResultSet
+                    throw new UncheckedIOException(e);
+                }
+            }, args);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+    }
+
+    private static Object[] readRow(ResultSet rs, int columnCount) throws SQLException {
+        Object[] values = new Object[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            Object value = rs.getObject(i + 1);
+            // Để RecordWriter định dạng ngày giờ thống nhất (DATETIME có thể về dạng LocalDateTime/Timestamp)
+            if (value instanceof LocalDateTime dateTime) {
+                value = Timestamp.valueOf(dateTime);
+            }
+            values[i] = value;
+        }
+        return values;
+    }
+}
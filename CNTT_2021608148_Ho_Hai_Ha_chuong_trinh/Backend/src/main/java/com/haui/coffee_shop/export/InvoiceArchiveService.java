@@ -0,0 +1,133 @@
+package com.haui.coffee_shop.export;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.haui.coffee_shop.common.enums.OrderStatus;
+import com.haui.coffee_shop.model.Order;
+import com.haui.coffee_shop.model.OrderItem;
+import com.haui.coffee_shop.repository.OrderItemRepository;
+import com.haui.coffee_shop.repository.OrderRepository;
+
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Gom hóa đơn PDF của nhiều đơn hàng vào một file ZIP (dùng bố cục của InvoiceRenderer, không gửi email).
+// Đơn được nạp theo lô (keyset trên id), mỗi lô được dựng PDF song song trên một pool có số luồng cố định
+// rồi ghi vào ZIP theo thứ tự id. Trong bộ nhớ chỉ có PDF của một lô
+@Service
+@Slf4j
+public class InvoiceArchiveService {
+    public static final String CONTENT_TYPE = "application/zip";
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final InvoiceRenderer invoiceRenderer;
+    private final ExecutorService renderPool;
+    private final int batchSize;
+
+    public InvoiceArchiveService(OrderRepository orderRepository, OrderItemRepository orderItemRepository,
+                                 InvoiceRenderer invoiceRenderer,
+                                 @Value("${invoice.bulk.threads:4}") int threads,
+                                 @Value("${invoice.bulk.batch-size:50}") int batchSize) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.invoiceRenderer = invoiceRenderer;
+        this.batchSize = batchSize;
+        AtomicInteger sequence = new AtomicInteger();
+        this.renderPool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "invoice-render-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        renderPool.shutdownNow();
+    }
+
+    public long count(Date startDate, Date endDate, OrderStatus status) {
+        return orderRepository.countInvoices(status, startDate, endDate);
+    }
+
+    // progress nhận số hóa đơn đã ghi sau mỗi lô
+    public void write(OutputStream outputStream, Date startDate, Date endDate, OrderStatus status,
+                      LongConsumer progress) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        // PDF đã được iText nén sẵn, nén thêm gần như không giảm kích thước
+        zip.setLevel(Deflater.BEST_SPEED);
+        long afterId = 0;
+        long written = 0;
+        while (true) {
+            List<Long> orderIds = orderRepository.findInvoiceIds(afterId, status, startDate, endDate,
+                    PageRequest.of(0, batchSize));
+            if (orderIds.isEmpty()) {
+                break;
+            }
+            for (RenderedInvoice invoice : renderBatch(orderIds)) {
+                zip.putNextEntry(new ZipEntry(invoice.fileName()));
+                zip.write(invoice.pdf());
+                zip.closeEntry();
+            }
+            written += orderIds.size();
+            progress.accept(written);
+            afterId = orderIds.get(orderIds.size() - 1);
+        }
+        zip.finish();
+    }
+
+    private List<RenderedInvoice> renderBatch(List<Long> orderIds) throws IOException {
+        List<Order> orders = orderRepository.findWithAddressByIdIn(orderIds);
+        Map<Long, List<OrderItem>> itemsByOrder = orderItemRepository.findWithProductByOrderIdIn(orderIds).stream()
+                .collect(Collectors.groupingBy(item -> item.getOrder().getId()));
+
+        List<Future<RenderedInvoice>> futures = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            List<OrderItem> items = itemsByOrder.getOrDefault(order.getId(), List.of());
+            // Bộ đệm của InvoiceRenderer được trả lại cho luồng render nên phải sao chép trước khi trả về
+            futures.add(renderPool.submit(() -> {
+                try (InvoiceRenderer.InvoiceBuffer pdf = invoiceRenderer.render(order, items)) {
+                    return new RenderedInvoice(InvoiceRenderer.fileName(order.getId()), pdf.toByteArray());
+                }
+            }));
+        }
+
+        List<RenderedInvoice> invoices = new ArrayList<>(futures.size());
+        try {
+            for (Future<RenderedInvoice> future : futures) {
+                invoices.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new InterruptedIOException("Invoice archive interrupted");
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new IOException("Could not render invoice", e.getCause());
+        }
+        return invoices;
+    }
+
+    private record RenderedInvoice(String fileName, byte[] pdf) {
+    }
+}
@@ -0,0 +1,318 @@
+package com.haui.coffee_shop.export;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.model.Order;
+import com.haui.coffee_shop.model.OrderItem;
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Chunk;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.DecimalFormat;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+
+// Dựng hóa đơn PDF của một đơn hàng. Font (file TTF Unicode vài MB) được nạp một lần khi cần lần đầu,
+// các Font iText dùng chung cho mọi hóa đơn. PDF được ghi vào bộ đệm trong bộ nhớ thay cho file tạm
+// phải ghi ra rồi đọc lại; bộ đệm được trả về cho luồng để dùng lại khi người gọi close() nó
+@Component
+public class InvoiceRenderer {
+    public static final String CONTENT_TYPE = "application/pdf";
+    // Bộ đệm lớn hơn mức này (hóa đơn rất nhiều dòng) thì không giữ lại cho lần sau
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+    private static final String[] PRODUCT_HEADERS = {"STT", "Tên sản phẩm", "SL", "Loại", "Đơn giá", "Giảm giá", "Thành tiền"};
+    private static final BaseColor HEADER_BACKGROUND = new BaseColor(230, 230, 230);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")
+            .withZone(ZoneId.systemDefault());
+    // DecimalFormat không an toàn khi dùng chung giữa các luồng
+    private static final ThreadLocal<DecimalFormat> CURRENCY_FORMAT = ThreadLocal.withInitial(() -> new DecimalFormat("#,###"));
+
+    // Bộ đệm rảnh của từng luồng; bộ đệm đang được dùng không nằm ở đây nên render lồng nhau không ghi đè lên nhau
+    private final ThreadLocal<InvoiceBuffer> buffers = new ThreadLocal<>();
+    private final String fontPath;
+    private volatile Fonts fonts;
+
+    @Autowired
+    public InvoiceRenderer(@Value("${invoice.font-path:fonts/Arial-Unicode-MS.ttf}") String fontPath) {
+        this.fontPath = fontPath;
+    }
+
+    // Dùng font có sẵn thay vì nạp từ fontPath (benchmark)
+    public InvoiceRenderer(BaseFont baseFont) {
+        this.fontPath = null;
+        this.fonts = new Fonts(baseFont);
+    }
+
+    // Người gọi phải close() bộ đệm trên cùng luồng khi dùng xong (try-with-resources)
+    public InvoiceBuffer render(Order order, List<OrderItem> items) throws IOException {
+        InvoiceBuffer buffer = buffers.get();
+        if (buffer == null) {
+            buffer = new InvoiceBuffer(this);
+        } else {
+            buffers.remove();
+            buffer.reset();
+            buffer.released = false;
+        }
+        try {
+            render(order, items, buffer);
+        } catch (IOException | RuntimeException e) {
+            buffer.close();
+            throw e;
+        }
+        return buffer;
+    }
+
+    public void render(Order order, List<OrderItem> items, OutputStream outputStream) throws IOException {
+        try {
+            write(order, items, outputStream, fonts());
+        } catch (DocumentException e) {
+            throw new IOException("Could not render invoice for order " + order.getId(), e);
+        }
+    }
+
+    public static String fileName(long orderId) {
+        return "hoa_don_" + orderId + ".pdf";
+    }
+
+    private Fonts fonts() throws IOException, DocumentException {
+        Fonts loaded = fonts;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = fonts;
+                if (loaded == null) {
+                    loaded = new Fonts(BaseFont.createFont(fontPath, BaseFont.IDENTITY_H, BaseFont.EMBEDDED));
+                    fonts = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private static void write(Order order, List<OrderItem> items, OutputStream outputStream, Fonts fonts)
+            throws DocumentException {
+        DecimalFormat currencyFormat = CURRENCY_FORMAT.get();
+
+        double subtotal = 0;
+        for (OrderItem item : items) {
+            subtotal += (item.getPrice() - item.getDiscount()) * item.getAmount();
+        }
+        // Phí vận chuyển
+        double shippingFee = Constant.SHIPPING_FEE;
+        double totalPrice = subtotal + shippingFee;
+        if (order.getTotal() != null) {
+            shippingFee = order.getShippingFee();
+            totalPrice = order.getTotal();
+        }
+
+        Document document = new Document(PageSize.A4, 50, 50, 50, 50);
+        PdfWriter.getInstance(document, outputStream).setCloseStream(false);
+        document.open();
+
+        // === HEADER ===
+        Paragraph companyInfo = new Paragraph();
+        companyInfo.add(new Chunk("CỬA HÀNG HACAFE\n", fonts.header));
+        companyInfo.add(new Chunk("Địa chỉ: Số 11, đường Hồ Tùng mậu, Cầu Giấy, Hà Nội\n", fonts.normal));
+        companyInfo.add(new Chunk("Điện thoại: 0386331126 | Email: hohaiha0210@gmail.com\n", fonts.normal));
+        companyInfo.setAlignment(Element.ALIGN_LEFT);
+        document.add(companyInfo);
+        document.add(Chunk.NEWLINE);
+
+        Paragraph title = new Paragraph("HÓA ĐƠN MUA HÀNG", fonts.title);
+        title.setAlignment(Element.ALIGN_CENTER);
+        title.setSpacingAfter(10);
+        document.add(title);
+
+        // === THÔNG TIN ĐƠN HÀNG ===
+        PdfPTable infoTable = new PdfPTable(4);
+        infoTable.setWidthPercentage(100);
+        infoTable.setSpacingBefore(10);
+        infoTable.setSpacingAfter(15);
+        infoTable.setWidths(new float[]{1.5f, 2f, 1.5f, 2f});
+        addInfoCell(infoTable, "Mã đơn hàng:", String.valueOf(order.getId()), fonts);
+        addInfoCell(infoTable, "Ngày đặt:", formatDate(order.getOrderDate()), fonts);
+        addInfoCell(infoTable, "Trạng thái:", order.getStatus().toString(), fonts);
+        addInfoCell(infoTable, "Thanh toán:", order.getPaymentMethod().toString(), fonts);
+        document.add(infoTable);
+
+        // === THÔNG TIN NGƯỜI NHẬN ===
+        Paragraph customerTitle = new Paragraph("THÔNG TIN NGƯỜI NHẬN", fonts.header);
+        customerTitle.setSpacingBefore(10);
+        customerTitle.setSpacingAfter(5);
+        document.add(customerTitle);
+
+        PdfPTable customerTable = new PdfPTable(2);
+        customerTable.setWidthPercentage(100);
+        customerTable.setSpacingAfter(15);
+        customerTable.setWidths(new float[]{1f, 3f});
+        addInfoCell(customerTable, "Họ tên:", order.getShippingAddress().getReceiverName(), fonts);
+        addInfoCell(customerTable, "Số điện thoại:", order.getShippingAddress().getReceiverPhone(), fonts);
+        addInfoCell(customerTable, "Địa chỉ:", order.getShippingAddress().getLocation(), fonts);
+        document.add(customerTable);
+
+        // === CHI TIẾT SẢN PHẨM ===
+        Paragraph productTitle = new Paragraph("CHI TIẾT ĐƠN HÀNG", fonts.header);
+        productTitle.setSpacingBefore(10);
+        productTitle.setSpacingAfter(10);
+        document.add(productTitle);
+
+        PdfPTable productTable = new PdfPTable(7);
+        productTable.setWidthPercentage(100);
+        productTable.setWidths(new float[]{1f, 2.2f, 0.8f, 1.2f, 1.2f, 1f, 1.3f});
+        for (String header : PRODUCT_HEADERS) {
+            PdfPCell cell = new PdfPCell(new Phrase(header, fonts.bold));
+            cell.setBackgroundColor(HEADER_BACKGROUND);
+            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+            cell.setPadding(8);
+            productTable.addCell(cell);
+        }
+        int stt = 1;
+        for (OrderItem item : items) {
+            double itemTotal = (item.getPrice() - item.getDiscount()) * item.getAmount();
+            productTable.addCell(productCell(String.valueOf(stt++), fonts.normal, Element.ALIGN_CENTER));
+            productTable.addCell(productCell(item.getProductItem().getProduct().getName(), fonts.normal, Element.ALIGN_LEFT));
+            productTable.addCell(productCell(String.valueOf(item.getAmount()), fonts.normal, Element.ALIGN_CENTER));
+            productTable.addCell(productCell(item.getProductItem().getType().getName(), fonts.normal, Element.ALIGN_CENTER));
+            productTable.addCell(productCell(currencyFormat.format(item.getPrice()) + "₫", fonts.normal, Element.ALIGN_RIGHT));
+            productTable.addCell(productCell(currencyFormat.format(item.getDiscount()) + "₫", fonts.normal, Element.ALIGN_RIGHT));
+            productTable.addCell(productCell(currencyFormat.format(itemTotal) + "₫", fonts.bold, Element.ALIGN_RIGHT));
+        }
+        document.add(productTable);
+
+        // === TỔNG TIỀN ===
+        PdfPTable summaryTable = new PdfPTable(2);
+        summaryTable.setWidthPercentage(50);
+        summaryTable.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        summaryTable.setSpacingBefore(15);
+        summaryTable.setWidths(new float[]{2f, 1.5f});
+        addSummaryRow(summaryTable, "Tạm tính:", currencyFormat.format(totalPrice - shippingFee) + "₫", fonts.normal);
+        addSummaryRow(summaryTable, "Thuế VAT:", 0 + "₫", fonts.normal);
+        addSummaryRow(summaryTable, "Phí vận chuyển:", currencyFormat.format(shippingFee) + "₫", fonts.normal);
+        addSummaryRow(summaryTable, "Ghi chú:", "", fonts.normal);
+        // Đường kẻ tổng
+        for (int i = 0; i < 2; i++) {
+            PdfPCell totalLine = new PdfPCell();
+            totalLine.setBorder(Rectangle.BOTTOM);
+            totalLine.setBorderWidth(1);
+            summaryTable.addCell(totalLine);
+        }
+        addSummaryRow(summaryTable, "TỔNG CỘNG:", currencyFormat.format(totalPrice) + "₫", fonts.total);
+        document.add(summaryTable);
+
+        // === FOOTER ===
+        Paragraph footer = new Paragraph();
+        footer.setSpacingBefore(30);
+        footer.add(new Chunk("Cảm ơn quý khách đã mua hàng!\n", fonts.bold));
+        footer.add(new Chunk("Mọi thắc mắc xin liên hệ: 0386331126\n", fonts.normal));
+        footer.add(new Chunk("Ngày in: " + formatDate(new Date()), fonts.normal));
+        footer.setAlignment(Element.ALIGN_CENTER);
+        document.add(footer);
+
+        document.close();
+    }
+
+    private static String formatDate(Date date) {
+        return DATE_FORMAT.format(date.toInstant());
+    }
+
+    private static void addInfoCell(PdfPTable table, String label, String value, Fonts fonts) {
+        table.addCell(infoCell(label, fonts.bold));
+        table.addCell(infoCell(value, fonts.normal));
+    }
+
+    private static PdfPCell infoCell(String text, Font font) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, font));
+        cell.setBorder(Rectangle.NO_BORDER);
+        cell.setPadding(5);
+        return cell;
+    }
+
+    private static PdfPCell productCell(String text, Font font, int alignment) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, font));
+        cell.setHorizontalAlignment(alignment);
+        cell.setPadding(6);
+        return cell;
+    }
+
+    private static void addSummaryRow(PdfPTable table, String label, String value, Font font) {
+        PdfPCell labelCell = infoCell(label, font);
+        labelCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        table.addCell(labelCell);
+        PdfPCell valueCell = infoCell(value, font);
+        valueCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        table.addCell(valueCell);
+    }
+
+    // Font iText chỉ được đọc khi dựng PDF nên dùng chung được giữa các luồng
+    private static class Fonts {
+        private final Font title;
+        private final Font header;
+        private final Font normal;
+        private final Font bold;
+        private final Font total;
+
+        private Fonts(BaseFont baseFont) {
+            title = new Font(baseFont, 20, Font.BOLD, BaseColor.BLUE);
+            header = new Font(baseFont, 14, Font.BOLD, BaseColor.BLACK);
+            normal = new Font(baseFont, 11, Font.NORMAL, BaseColor.BLACK);
+            bold = new Font(baseFont, 11, Font.BOLD, BaseColor.BLACK);
+            total = new Font(baseFont, 12, Font.BOLD, BaseColor.RED);
+        }
+    }
+
+    private void release(InvoiceBuffer buffer) {
+        // Bộ đệm lớn (hóa đơn rất nhiều dòng) bỏ luôn, không giữ lại cho lần sau
+        if (buffer.capacity() <= MAX_RETAINED_BUFFER && buffers.get() == null) {
+            buffers.set(buffer);
+        }
+    }
+
+    // ByteArrayOutputStream cho phép đọc lại nội dung mà không sao chép mảng (toByteArray luôn tạo bản sao).
+    // Sau close() không được đọc nữa vì mảng có thể đã được dùng cho hóa đơn khác
+    public static class InvoiceBuffer extends ByteArrayOutputStream implements InputStreamSource {
+        private final InvoiceRenderer owner;
+        private boolean released;
+
+        private InvoiceBuffer(InvoiceRenderer owner) {
+            super(64 * 1024);
+            this.owner = owner;
+        }
+
+        private int capacity() {
+            return buf.length;
+        }
+
+        @Override
+        public ByteArrayInputStream getInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                owner.release(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.haui.coffee_shop.export;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+// Ghi từng bản ghi ra OutputStream ngay khi nhận được: mỗi bản ghi được mã hóa thành một dòng rồi chuyển
+// xuống stream, không giữ lại bản ghi nào. Ngày giờ theo ISO-8601 (UTC) để kho dữ liệu đọc không phụ thuộc múi giờ
+public abstract class RecordWriter {
+    private static final String DATE_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+
+    protected final String[] columns;
+    private final OutputStream outputStream;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_PATTERN);
+    protected final StringBuilder line = new StringBuilder(256);
+
+    protected RecordWriter(OutputStream outputStream, String[] columns) {
+        this.outputStream = outputStream;
+        this.columns = columns;
+        this.dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    }
+
+    public static RecordWriter create(ExportFormat format, OutputStream outputStream, String[] columns) throws IOException {
+        RecordWriter writer = format == ExportFormat.CSV
+                ? new CsvRecordWriter(outputStream, columns)
+                : new NdjsonRecordWriter(outputStream, columns);
+        writer.start();
+        return writer;
+    }
+
+    // values theo đúng thứ tự của columns
+    public void write(Object[] values) throws IOException {
+        line.setLength(0);
+        encode(values);
+        line.append('\n');
+        emit();
+    }
+
+    public void finish() throws IOException {
+        outputStream.flush();
+    }
+
+    protected void start() throws IOException {
+    }
+
+    protected abstract void encode(Object[] values) throws IOException;
+
+    protected void emit() throws IOException {
+        outputStream.write(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected String formatDate(Date date) {
+        return dateFormat.format(date);
+    }
+
+    // RFC 4180: dòng tiêu đề, trường chứa dấu phẩy/nháy kép/xuống dòng được bọc trong nháy kép
+    private static class CsvRecordWriter extends RecordWriter {
+        CsvRecordWriter(OutputStream outputStream, String[] columns) {
+            super(outputStream, columns);
+        }
+
+        @Override
+        protected void start() throws IOException {
+            write(columns);
+        }
+
+        @Override
+        protected void encode(Object[] values) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                Object value = values[i];
+                if (value == null) {
+                    continue;
+                }
+                String text = value instanceof Date date ? formatDate(date) : value.toString();
+                if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                    line.append('"').append(text.replace("\"", "\"\"")).append('"');
+                } else {
+                    line.append(text);
+                }
+            }
+        }
+    }
+
+    private static class NdjsonRecordWriter extends RecordWriter {
+        private final StringWriter buffer = new StringWriter(256);
+
+        NdjsonRecordWriter(OutputStream outputStream, String[] columns) {
+            super(outputStream, columns);
+        }
+
+        @Override
+        protected void encode(Object[] values) throws IOException {
+            buffer.getBuffer().setLength(0);
+            JsonWriter json = new JsonWriter(buffer);
+            json.beginObject();
+            for (int i = 0; i < values.length; i++) {
+                json.name(columns[i]);
+                Object value = values[i];
+                if (value == null) {
+                    json.nullValue();
+                } else if (value instanceof Number number) {
+                    json.value(number);
+                } else if (value instanceof Date date) {
+                    json.value(formatDate(date));
+                } else {
+                    json.value(value.toString());
+                }
+            }
+            json.endObject();
+            json.flush();
+            line.append(buffer.getBuffer());
+        }
+    }
+}
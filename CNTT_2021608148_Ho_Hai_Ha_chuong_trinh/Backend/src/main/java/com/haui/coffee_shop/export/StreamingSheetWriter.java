@@ -0,0 +1,133 @@
+package com.haui.coffee_shop.export;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.List;
+
+// Ghi một sheet Excel theo kiểu streaming (SXSSF): chỉ ROW_WINDOW dòng gần nhất nằm trong heap,
+// các dòng cũ được đẩy xuống file tạm đã nén. Dữ liệu được ghi theo nhóm: các cột đầu (thông tin đơn hàng/sản phẩm)
+// nằm ở dòng đầu tiên của nhóm và được gộp ô, các cột còn lại là từng dòng con (OrderItem/ProductItem).
+// Độ rộng cột được định sẵn thay cho autoSizeColumn (phải quét lại toàn bộ dòng)
+public class StreamingSheetWriter implements Closeable {
+    public static final int ROW_WINDOW = 100;
+    // Vùng gộp ô được POI giữ trong bộ nhớ đến khi ghi file, quá giới hạn này thì không gộp nữa
+    // (giá trị vẫn nằm ở dòng đầu của nhóm) để heap không tăng theo số dòng
+    public static final int MAX_MERGED_REGIONS = 100_000;
+
+    private final SXSSFWorkbook workbook;
+    private final SXSSFSheet sheet;
+    private final int groupColumns;
+    private final CellStyle groupStyle;
+    private final CellStyle dateStyle;
+    private final CellStyle groupDateStyle;
+    private int rowIdx;
+    private int groups;
+    private int mergedRegions;
+
+    // columnWidths tính theo số ký tự
+    public StreamingSheetWriter(String sheetName, String[] headers, int[] columnWidths, int groupColumns,
+                                HorizontalAlignment groupAlignment) {
+        this.workbook = new SXSSFWorkbook(ROW_WINDOW);
+        this.workbook.setCompressTempFiles(true);
+        this.sheet = workbook.createSheet(sheetName);
+        this.groupColumns = groupColumns;
+
+        groupStyle = workbook.createCellStyle();
+        groupStyle.setVerticalAlignment(VerticalAlignment.CENTER);
+        groupStyle.setAlignment(groupAlignment);
+        short dateFormat = workbook.getCreationHelper().createDataFormat().getFormat("dd/MM/yyyy HH:mm:ss");
+        dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(dateFormat);
+        groupDateStyle = workbook.createCellStyle();
+        groupDateStyle.cloneStyleFrom(groupStyle);
+        groupDateStyle.setDataFormat(dateFormat);
+
+        Row headerRow = sheet.createRow(rowIdx++);
+        for (int i = 0; i < headers.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(headers[i]);
+            cell.setCellStyle(groupStyle);
+            sheet.setColumnWidth(i, Math.min(columnWidths[i], 255) * 256);
+        }
+    }
+
+    // STT của nhóm kế tiếp (bắt đầu từ 1)
+    public int nextGroupNumber() {
+        return groups + 1;
+    }
+
+    public int groupCount() {
+        return groups;
+    }
+
+    // groupValues điền các cột [0, groupColumns), mỗi phần tử của rows điền các cột từ groupColumns trở đi.
+    // Nhóm không có dòng con vẫn chiếm một dòng
+    public void writeGroup(Object[] groupValues, List<Object[]> rows) {
+        int startRow = rowIdx;
+        int rowCount = Math.max(rows.size(), 1);
+        for (int r = 0; r < rowCount; r++) {
+            Row row = sheet.createRow(rowIdx++);
+            if (r < rows.size()) {
+                Object[] values = rows.get(r);
+                for (int i = 0; i < values.length; i++) {
+                    setCell(row.createCell(groupColumns + i), values[i], false);
+                }
+            }
+            if (r == 0) {
+                for (int i = 0; i < groupColumns; i++) {
+                    setCell(row.createCell(i), groupValues[i], true);
+                }
+            }
+        }
+        if (rowCount > 1 && mergedRegions + groupColumns <= MAX_MERGED_REGIONS) {
+            // Các vùng không bao giờ chồng nhau nên bỏ qua bước kiểm tra (O(n) mỗi lần gọi addMergedRegion)
+            for (int i = 0; i < groupColumns; i++) {
+                sheet.addMergedRegionUnsafe(new CellRangeAddress(startRow, rowIdx - 1, i, i));
+            }
+            mergedRegions += groupColumns;
+        }
+        groups++;
+    }
+
+    public void write(OutputStream outputStream) throws IOException {
+        workbook.write(outputStream);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            workbook.close();
+        } finally {
+            // Xóa các file tạm của SXSSF
+            workbook.dispose();
+        }
+    }
+
+    private void setCell(Cell cell, Object value, boolean group) {
+        if (group) {
+            cell.setCellStyle(groupStyle);
+        }
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Number number) {
+            cell.setCellValue(number.doubleValue());
+        } else if (value instanceof Date date) {
+            cell.setCellValue(date);
+            cell.setCellStyle(group ? groupDateStyle : dateStyle);
+        } else {
+            cell.setCellValue(value.toString());
+        }
+    }
+}
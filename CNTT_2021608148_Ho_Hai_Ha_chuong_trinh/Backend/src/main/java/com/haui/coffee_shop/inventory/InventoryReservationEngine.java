@@ -0,0 +1,240 @@
+package com.haui.coffee_shop.inventory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.common.event.CatalogChangedEvent;
+import com.haui.coffee_shop.config.SchedulerConfig;
+import com.haui.coffee_shop.exception.CoffeeShopException;
+import com.haui.coffee_shop.service.ProductStatsService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Giữ hàng trong bộ nhớ cho các đợt flash sale (bật bằng inventory.reservation.enabled).
+// Số lượng còn lại của mỗi ProductItem nằm trong StripedCounter nên checkout không phải chờ khóa dòng product_item.
+// Dòng order_item được ghi với stock_applied = false và là nhật ký bền vững: flush định kỳ trừ
+// tổng các dòng này vào product_item rồi đánh dấu đã áp dụng trong cùng một giao dịch.
+// Khi khởi động lại sau sự cố, reconcile() áp dụng nốt các dòng còn treo từ lần chạy trước.
+// Chỉ đúng khi chạy một instance backend
+@Component
+@Slf4j
+public class InventoryReservationEngine {
+    private static final String LOAD_AVAILABLE_SQL = "SELECT pi.stock - COALESCE((SELECT SUM(oi.amount) FROM order_item oi " +
+            "WHERE oi.product_item_id = pi.id AND oi.stock_applied = false), 0) FROM product_item pi WHERE pi.id = ?";
+    private static final String SELECT_PENDING_SQL = "SELECT id, product_item_id, amount FROM order_item " +
+            "WHERE stock_applied = false ORDER BY id LIMIT ? FOR UPDATE";
+    private static final String APPLY_STOCK_SQL = "UPDATE product_item SET stock = stock - ? WHERE id = ?";
+    private static final String MARK_APPLIED_SQL = "UPDATE order_item SET stock_applied = true WHERE id IN (:ids)";
+    private static final String LOCK_STOCK_SQL = "SELECT stock FROM product_item WHERE id = ? FOR UPDATE";
+    private static final String SOLD_OUT_SQL = "SELECT DISTINCT product_id FROM product_item WHERE id IN (:ids) AND stock <= 0";
+
+    private final boolean enabled;
+    private final int stripes;
+    private final int flushBatchSize;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductStatsService productStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<Long, StripedCounter> counters = new ConcurrentHashMap<>();
+
+    public InventoryReservationEngine(@Value("${inventory.reservation.enabled:false}") boolean enabled,
+                                      @Value("${inventory.reservation.stripes:0}") int stripes,
+                                      @Value("${inventory.reservation.flush-batch-size:1000}") int flushBatchSize,
+                                      JdbcTemplate jdbcTemplate,
+                                      NamedParameterJdbcTemplate namedJdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      ProductStatsService productStatsService,
+                                      ApplicationEventPublisher eventPublisher) {
+        this.enabled = enabled;
+        this.stripes = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+        this.flushBatchSize = flushBatchSize;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productStatsService = productStatsService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Giữ hàng cho tất cả các dòng hoặc không dòng nào. Nếu giao dịch checkout rollback thì trả lại bộ đếm.
+    // Trả về số lượng còn lại (gần đúng) của từng ProductItem
+    public Map<Long, Integer> reserve(Map<Long, Integer> amounts) {
+        Map<Long, Integer> acquired = new LinkedHashMap<>();
+        Map<Long, Integer> remaining = new HashMap<>();
+        try {
+            for (Map.Entry<Long, Integer> entry : amounts.entrySet()) {
+                StripedCounter counter = counter(entry.getKey());
+                if (!counter.tryAcquire(entry.getValue())) {
+                    throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[] {"order_amount"}, "Amount Item cannot be greater than stock");
+                }
+                acquired.put(entry.getKey(), entry.getValue());
+                remaining.put(entry.getKey(), counter.available());
+            }
+        } catch (RuntimeException e) {
+            releaseNow(acquired);
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        releaseNow(acquired);
+                    }
+                }
+            });
+        }
+        return remaining;
+    }
+
+    // Hủy đơn: product_item đã được cộng trực tiếp trong DB, bộ đếm chỉ cộng sau khi commit
+    public void release(Map<Long, Integer> amounts) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    releaseNow(amounts);
+                }
+            });
+        } else {
+            releaseNow(amounts);
+        }
+    }
+
+    // Số lượng còn bán được theo bộ đếm; product_item.stock trong DB chưa trừ các dòng chưa flush
+    public int available(long productItemId) {
+        return counter(productItemId).available();
+    }
+
+    // Quản trị viên sửa tồn kho: gọi trước khi ghi stock mới, trong cùng giao dịch.
+    // Không nạp lại bộ đếm từ DB vì các lượt giữ hàng chưa commit chưa có dòng order_item và sẽ bị bán lần nữa.
+    // Thay vào đó cộng phần chênh lệch (stock mới - stock cũ) vào bộ đếm hiện có sau khi commit;
+    // các dòng chưa flush vẫn được trừ vào stock mới như với stock cũ
+    public void onStockOverwritten(long productItemId, int newStock) {
+        if (!enabled) {
+            return;
+        }
+        // Khóa dòng để flush không trừ xen vào giữa lúc đọc stock cũ và lúc ghi stock mới
+        List<Integer> stock = jdbcTemplate.queryForList(LOCK_STOCK_SQL, Integer.class, productItemId);
+        if (stock.isEmpty()) {
+            return;
+        }
+        int delta = newStock - stock.get(0);
+        // Nạp bộ đếm ngay (nếu chưa có) khi DB còn giữ stock cũ để chênh lệch không bị cộng hai lần
+        StripedCounter counter = counter(productItemId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counter.add(delta);
+                }
+            });
+        } else {
+            counter.add(delta);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        // Luôn chạy kể cả khi đã tắt engine, để không bỏ sót các dòng còn treo từ lần chạy trước
+        int applied = flushPending();
+        if (applied > 0) {
+            log.warn("Reconciled {} order items that were reserved in memory but not yet applied to stock", applied);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.flush-ms:200}", scheduler = SchedulerConfig.INVENTORY_SCHEDULER)
+    public void flush() {
+        if (enabled) {
+            flushPending();
+        }
+    }
+
+    public synchronized int flushPending() {
+        int total = 0;
+        Set<Long> soldOutProductIds = new HashSet<>();
+        while (true) {
+            Integer applied = transactionTemplate.execute(status -> applyBatch(soldOutProductIds));
+            total += applied == null ? 0 : applied;
+            if (applied == null || applied < flushBatchSize) {
+                break;
+            }
+        }
+        // Hết hàng làm thay đổi khoảng giá hiển thị của sản phẩm, chỉ biết được sau khi stock đã ghi xuống DB
+        for (Long productId : soldOutProductIds) {
+            productStatsService.refreshPriceRange(productId);
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.PRODUCT_ITEM, productId));
+        }
+        return total;
+    }
+
+    private int applyBatch(Set<Long> soldOutProductIds) {
+        List<long[]> rows = jdbcTemplate.query(SELECT_PENDING_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getInt(3)}, flushBatchSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        // Cộng dồn theo ProductItem và cập nhật theo id tăng dần, cùng thứ tự khóa với StockService
+        Map<Long, Integer> perItem = new TreeMap<>();
+        List<Long> orderItemIds = new ArrayList<>(rows.size());
+        for (long[] row : rows) {
+            orderItemIds.add(row[0]);
+            perItem.merge(row[1], (int) row[2], Integer::sum);
+        }
+        List<Object[]> updates = new ArrayList<>(perItem.size());
+        perItem.forEach((productItemId, amount) -> updates.add(new Object[]{amount, productItemId}));
+        jdbcTemplate.batchUpdate(APPLY_STOCK_SQL, updates);
+        namedJdbcTemplate.update(MARK_APPLIED_SQL, Map.of("ids", orderItemIds));
+        soldOutProductIds.addAll(namedJdbcTemplate.queryForList(SOLD_OUT_SQL, Map.of("ids", perItem.keySet()), Long.class));
+        return rows.size();
+    }
+
+    private StripedCounter counter(long productItemId) {
+        // Nạp lười từ DB: stock đã ghi trừ đi các dòng đã giữ trong bộ nhớ nhưng chưa flush
+        StripedCounter counter = counters.computeIfAbsent(productItemId, id -> {
+            List<Integer> available = jdbcTemplate.queryForList(LOAD_AVAILABLE_SQL, Integer.class, id);
+            return available.isEmpty() ? null : new StripedCounter(stripes, Math.max(available.get(0), 0));
+        });
+        if (counter == null) {
+            throw new CoffeeShopException(Constant.NOT_FOUND, new Object[] {"product_item"}, "ProductItem not found");
+        }
+        return counter;
+    }
+
+    private void releaseNow(Map<Long, Integer> amounts) {
+        amounts.forEach((productItemId, amount) -> {
+            StripedCounter counter = counters.get(productItemId);
+            if (counter != null) {
+                counter.release(amount);
+            }
+        });
+    }
+}
@@ -0,0 +1,103 @@
+package com.haui.coffee_shop.inventory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Bộ đếm số lượng còn lại được chia thành nhiều ngăn để các luồng trừ song song không tranh nhau một ô nhớ.
+// Mỗi lần trừ chỉ lấy từ ngăn đang có đủ hàng bằng CAS nên việc giữ hàng không bao giờ làm tổng âm.
+// Khi không ngăn nào đủ thì gom tất cả về một ngăn dưới khóa rồi thử lại, tránh từ chối nhầm lúc gần hết hàng.
+// Tổng có thể bị trừ xuống dưới 0 (giảm tồn kho dưới số đang giữ): phần thiếu ghi vào debt và cho tới khi bù đủ
+// thì mọi lượt giữ/trả hàng đều đi qua đường có khóa
+final class StripedCounter {
+    // Mỗi ngăn cách nhau 16 int (64 byte) để không nằm chung cache line
+    private static final int PADDING = 16;
+
+    private final int stripes;
+    private final AtomicIntegerArray cells;
+    // Chỉ ghi dưới khóa, luôn <= 0
+    private volatile int debt;
+
+    StripedCounter(int stripes, int initial) {
+        this.stripes = stripes;
+        this.cells = new AtomicIntegerArray(stripes * PADDING);
+        int share = initial / stripes;
+        int rest = initial % stripes;
+        for (int i = 0; i < stripes; i++) {
+            cells.set(i * PADDING, share + (i < rest ? 1 : 0));
+        }
+    }
+
+    boolean tryAcquire(int amount) {
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        if (debt < 0) {
+            return acquireConsolidated(amount, start);
+        }
+        for (int n = 0; n < stripes; n++) {
+            int index = ((start + n) % stripes) * PADDING;
+            int current = cells.get(index);
+            while (current >= amount) {
+                if (cells.compareAndSet(index, current, current - amount)) {
+                    return true;
+                }
+                current = cells.get(index);
+            }
+        }
+        return acquireConsolidated(amount, start);
+    }
+
+    void release(int amount) {
+        add(amount);
+    }
+
+    // Cộng hoặc trừ (delta âm) vào tổng
+    void add(int delta) {
+        int home = ThreadLocalRandom.current().nextInt(stripes);
+        if (delta >= 0 && debt == 0) {
+            cells.addAndGet(home * PADDING, delta);
+        } else {
+            addConsolidated(delta, home);
+        }
+    }
+
+    // Tổng gần đúng khi có luồng khác đang trừ, chính xác khi đứng yên
+    int available() {
+        int total = debt;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.get(i * PADDING);
+        }
+        return total;
+    }
+
+    private synchronized boolean acquireConsolidated(int amount, int home) {
+        int total = drain();
+        boolean granted = total >= amount;
+        settle(granted ? total - amount : total, home);
+        return granted;
+    }
+
+    private synchronized void addConsolidated(int delta, int home) {
+        if (delta < 0) {
+            // Ghi nợ trước khi gom để các luồng tới sau không lấy hàng từ các ngăn
+            debt += delta;
+            delta = 0;
+        }
+        settle(drain() + delta, home);
+    }
+
+    private int drain() {
+        int total = debt;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.getAndSet(i * PADDING, 0);
+        }
+        return total;
+    }
+
+    private void settle(int total, int home) {
+        if (total < 0) {
+            debt = total;
+        } else {
+            debt = 0;
+            cells.addAndGet(home * PADDING, total);
+        }
+    }
+}
@@ -16,7 +16,11 @@ import com.haui.coffee_shop.common.enums.PaymentMethod;
 @AllArgsConstructor
 @NoArgsConstructor
 
-@Table(name = "`order`")
+@Table(name = "`order`", indexes = {
+        @Index(name = "idx_order_date", columnList = "order_date, id"),
+        @Index(name = "idx_order_status_date", columnList = "status, order_date, id"),
+        @Index(name = "idx_order_payment_date", columnList = "payment_method, order_date, id")
+})
 
 public class Order {
     @Id
@@ -37,4 +41,15 @@ public class Order {
     @Column(name = "payment_method")
     @Enumerated(EnumType.STRING)
     private PaymentMethod paymentMethod;
+
+    // Tính một lần khi đặt hàng: subtotal = tổng (price - discount) * amount của các dòng, total = subtotal + shippingFee.
+    // null với các đơn cũ cho đến khi OrderTotalsInitializer chạy xong
+    @Column(name = "subtotal")
+    private Double subtotal;
+
+    @Column(name = "shipping_fee")
+    private Double shippingFee;
+
+    @Column(name = "total")
+    private Double total;
 }
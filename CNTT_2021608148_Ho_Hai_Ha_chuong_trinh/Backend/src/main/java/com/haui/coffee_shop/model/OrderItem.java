@@ -15,7 +15,9 @@ import lombok.NoArgsConstructor;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "order_item")
+@Table(name = "order_item", indexes = {
+        @Index(name = "idx_order_item_stock_applied", columnList = "stock_applied, id")
+})
 
 public class OrderItem {
     @Id
@@ -42,6 +44,10 @@ public class OrderItem {
     @Column(name = "is_reviewed")
     private boolean isReviewed;
 
+    // false khi kho mới chỉ được trừ trong bộ nhớ và chưa ghi xuống product_item (xem InventoryReservationEngine)
+    @Column(name = "stock_applied", nullable = false, columnDefinition = "boolean default true")
+    private boolean stockApplied = true;
+
     @PrePersist
     public void prePersist() {
         isReviewed = false;
@@ -0,0 +1,46 @@
+package com.haui.coffee_shop.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+import com.haui.coffee_shop.common.enums.OrderEventType;
+
+// Sự kiện vòng đời đơn hàng, ghi cùng transaction với thay đổi đơn hàng và được OrderEventDispatcher
+// đẩy qua WebSocket sau khi commit (published_at = null nghĩa là chưa gửi)
+@Entity
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "order_outbox", indexes = {
+        @Index(name = "idx_order_outbox_published", columnList = "published_at, id")
+})
+public class OrderOutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(name = "order_id", nullable = false)
+    private long orderId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private OrderEventType type;
+
+    @Column(name = "payload", columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt;
+
+    @Column(name = "published_at")
+    private Date publishedAt;
+}
@@ -22,7 +22,10 @@ import com.haui.coffee_shop.payload.response.ProductStatisticResponse;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "product")
+@Table(name = "product", indexes = {
+        @Index(name = "idx_product_status_category", columnList = "status, category_id"),
+        @Index(name = "idx_product_status_brand", columnList = "status, brand_id")
+})
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,51 @@
+package com.haui.coffee_shop.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+// Bảng thống kê phi chuẩn hóa theo sản phẩm, được cập nhật cùng transaction với các thao tác ghi
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "product_stats", indexes = {
+        @Index(name = "idx_product_stats_min_price", columnList = "min_price"),
+        @Index(name = "idx_product_stats_max_price", columnList = "max_price"),
+        @Index(name = "idx_product_stats_total_sold", columnList = "total_sold"),
+        @Index(name = "idx_product_stats_average_rating", columnList = "average_rating")
+})
+public class ProductStats {
+    @Id
+    @Column(name = "product_id")
+    private long productId;
+
+    @Column(name = "rating_sum")
+    private double ratingSum;
+
+    @Column(name = "review_count")
+    private int reviewCount;
+
+    // Lưu sẵn điểm trung bình để có thể sắp xếp/phân trang theo rating ngay trong SQL
+    @Column(name = "average_rating")
+    private double averageRating;
+
+    @Column(name = "total_sold")
+    private int totalSold;
+
+    @Column(name = "min_price")
+    private double minPrice;
+
+    @Column(name = "max_price")
+    private double maxPrice;
+
+    @Column(name = "updated_at")
+    private Date updatedAt;
+
+    public double getRating() {
+        return reviewCount == 0 ? 0 : ratingSum / reviewCount;
+    }
+}
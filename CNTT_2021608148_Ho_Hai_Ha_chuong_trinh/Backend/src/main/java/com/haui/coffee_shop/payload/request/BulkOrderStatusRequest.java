@@ -0,0 +1,21 @@
+package com.haui.coffee_shop.payload.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.haui.coffee_shop.common.enums.OrderStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkOrderStatusRequest {
+    @JsonProperty("OrderIds")
+    private List<Long> orderIds;
+
+    @JsonProperty("TargetStatus")
+    private OrderStatus targetStatus;
+}
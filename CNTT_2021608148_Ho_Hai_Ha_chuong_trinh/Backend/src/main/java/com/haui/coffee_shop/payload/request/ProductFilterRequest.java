@@ -0,0 +1,26 @@
+package com.haui.coffee_shop.payload.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Tham số lọc sản phẩm: các giá trị trong cùng một thuộc tính là OR, giữa các thuộc tính là AND
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class ProductFilterRequest {
+    private List<String> categoryId;
+    private List<String> brandId;
+    private List<String> origin;
+    private List<String> roadLevel;
+    private List<String> beanType;
+    private List<String> caffeineContents;
+    private List<String> cafeForm;
+    private List<String> netWeight;
+    private Double minPrice;
+    private Double maxPrice;
+    private Integer page;
+    private Integer size;
+}
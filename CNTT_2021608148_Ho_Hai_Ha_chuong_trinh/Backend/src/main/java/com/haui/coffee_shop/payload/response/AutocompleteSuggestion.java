@@ -0,0 +1,19 @@
+package com.haui.coffee_shop.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AutocompleteSuggestion {
+    // product, brand hoặc category
+    private String type;
+
+    private long id;
+
+    private String text;
+
+    private long weight;
+}
@@ -0,0 +1,33 @@
+package com.haui.coffee_shop.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkOrderStatusResponse {
+    public static final String UPDATED = "UPDATED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String INVALID_TRANSITION = "INVALID_TRANSITION";
+
+    private String targetStatus;
+    private int updated;
+    private int failed;
+    private List<Result> results;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Result {
+        private long orderId;
+        private String result;
+        // Trạng thái của đơn sau lượt cập nhật (null nếu không tìm thấy)
+        private String status;
+    }
+}
@@ -0,0 +1,22 @@
+package com.haui.coffee_shop.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CheckoutTicketResponse {
+    private String ticketId;
+    // QUEUED, PROCESSING, COMPLETED, FAILED
+    private String status;
+    private Date createdAt;
+    private Date completedAt;
+    // Kết quả giống hệt response của POST /api/order (data là orderId khi thành công)
+    private RespMessage result;
+}
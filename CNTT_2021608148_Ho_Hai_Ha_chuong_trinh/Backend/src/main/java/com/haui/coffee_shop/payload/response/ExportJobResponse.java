@@ -0,0 +1,31 @@
+package com.haui.coffee_shop.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExportJobResponse {
+    private String jobId;
+    // ORDER_EXCEL, PRODUCT_EXCEL, INVOICE_ZIP
+    private String type;
+    // QUEUED, RUNNING, COMPLETED, FAILED
+    private String status;
+    // 0 - 100
+    private int progress;
+    private String fileName;
+    private Long fileSize;
+    // Đường dẫn tải file khi status là COMPLETED
+    private String downloadUrl;
+    private String error;
+    private Date createdAt;
+    private Date completedAt;
+    // Sau thời điểm này file bị xóa khỏi máy chủ
+    private Date expiresAt;
+}
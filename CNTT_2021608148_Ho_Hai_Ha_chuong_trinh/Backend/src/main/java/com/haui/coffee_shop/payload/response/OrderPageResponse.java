@@ -0,0 +1,23 @@
+package com.haui.coffee_shop.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderPageResponse {
+    private List<OrderResponse> items;
+
+    private int size;
+
+    private boolean hasNext;
+
+    // Con trỏ để lấy trang tiếp theo, null khi đã hết dữ liệu
+    private String nextCursor;
+}
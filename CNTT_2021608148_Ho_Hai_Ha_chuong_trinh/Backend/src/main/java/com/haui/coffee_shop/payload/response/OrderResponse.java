@@ -20,6 +20,8 @@ public class OrderResponse {
     private String orderStatus;
     private Date orderDate;
     private List<OrderItemResponse> orderItems;
+    private double subtotal;
+    private double shippingFee;
     private double total;
     private String paymentMethod;
     private ShippingAddressResponse shippingAddress;
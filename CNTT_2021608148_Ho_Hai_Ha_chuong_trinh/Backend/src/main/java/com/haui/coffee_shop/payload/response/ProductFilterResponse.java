@@ -0,0 +1,30 @@
+package com.haui.coffee_shop.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductFilterResponse {
+    private List<ProductSummaryResponse> items;
+
+    private int total;
+
+    private int page;
+
+    private int size;
+
+    // thuộc tính -> (giá trị -> số sản phẩm nếu chọn thêm giá trị đó)
+    private Map<String, Map<String, Integer>> facets;
+
+    private double minPrice;
+
+    private double maxPrice;
+}
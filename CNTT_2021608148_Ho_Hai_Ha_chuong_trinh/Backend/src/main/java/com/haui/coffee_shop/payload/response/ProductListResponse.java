@@ -0,0 +1,88 @@
+package com.haui.coffee_shop.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.haui.coffee_shop.common.enums.Status;
+
+// Một sản phẩm trong các danh sách /all, theo danh mục, theo thương hiệu, bán chạy và tìm kiếm.
+// Dựng từ truy vấn JPQL không chọn description/article; danh mục, thương hiệu và ảnh chỉ gồm id và tên/url
+// (cùng tên trường với ProductResponse nên giao diện đọc như cũ). Dữ liệu đầy đủ ở /api/product/{id}
+@Data
+@NoArgsConstructor
+public class ProductListResponse {
+    private long id;
+
+    private String name;
+
+    private Ref category;
+
+    private Ref brand;
+
+    private Status status;
+
+    private List<ImageRef> images = new ArrayList<>();
+
+    private double rating;
+
+    private int totalReview;
+
+    private int totalSold;
+
+    private double maxPrice;
+
+    private double minPrice;
+    private String netWeight;
+    private String beanType;
+    private String origin;
+    private String roadLevel;
+    private String flavoNotes;
+    private String caffeineContents;
+    private String cafeForm;
+    private Date createdAt;
+
+    public ProductListResponse(long id, String name, Long categoryId, String categoryName, Long brandId, String brandName,
+                               Status status, double minPrice, double maxPrice, double rating, int totalReview, int totalSold,
+                               String netWeight, String beanType, String origin, String roadLevel, String flavoNotes,
+                               String caffeineContents, String cafeForm, Date createdAt) {
+        this.id = id;
+        this.name = name;
+        this.category = categoryId == null ? null : new Ref(categoryId, categoryName);
+        this.brand = brandId == null ? null : new Ref(brandId, brandName);
+        this.status = status;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.rating = rating;
+        this.totalReview = totalReview;
+        this.totalSold = totalSold;
+        this.netWeight = netWeight;
+        this.beanType = beanType;
+        this.origin = origin;
+        this.roadLevel = roadLevel;
+        this.flavoNotes = flavoNotes;
+        this.caffeineContents = caffeineContents;
+        this.cafeForm = cafeForm;
+        this.createdAt = createdAt;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Ref {
+        private long id;
+        private String name;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ImageRef {
+        private long id;
+        private String url;
+    }
+}
@@ -0,0 +1,25 @@
+package com.haui.coffee_shop.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductPageResponse {
+    private List<ProductSummaryResponse> items;
+
+    private String sort;
+
+    private int size;
+
+    private boolean hasNext;
+
+    // Con trỏ để lấy trang tiếp theo, null khi đã hết dữ liệu
+    private String nextCursor;
+}
@@ -0,0 +1,53 @@
+package com.haui.coffee_shop.payload.response;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+// Dữ liệu rút gọn cho trang danh sách, dựng trực tiếp từ truy vấn JPQL (không nạp mô tả/bài viết)
+@Data
+@NoArgsConstructor
+public class ProductSummaryResponse {
+    private long id;
+
+    private String name;
+
+    private Long categoryId;
+
+    private String categoryName;
+
+    private Long brandId;
+
+    private String brandName;
+
+    private String thumbnail;
+
+    private double minPrice;
+
+    private double maxPrice;
+
+    private double rating;
+
+    private int totalReview;
+
+    private int totalSold;
+
+    private Date createdAt;
+
+    public ProductSummaryResponse(long id, String name, Long categoryId, String categoryName, Long brandId, String brandName,
+                                  double minPrice, double maxPrice, double rating, int totalReview, int totalSold, Date createdAt) {
+        this.id = id;
+        this.name = name;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.brandId = brandId;
+        this.brandName = brandName;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.rating = rating;
+        this.totalReview = totalReview;
+        this.totalSold = totalSold;
+        this.createdAt = createdAt;
+    }
+}
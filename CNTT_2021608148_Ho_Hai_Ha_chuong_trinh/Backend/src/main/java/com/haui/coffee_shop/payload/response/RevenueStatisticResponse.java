@@ -0,0 +1,31 @@
+package com.haui.coffee_shop.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RevenueStatisticResponse {
+    private String startDate;
+    private String endDate;
+    private long orderCount;
+    private double subtotal;
+    private double shippingFee;
+    private double total;
+    private List<DailyRevenue> daily;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class DailyRevenue {
+        private String date;
+        private long orderCount;
+        private double total;
+    }
+}
@@ -7,10 +7,21 @@ import org.springframework.data.repository.query.Param;
 import com.haui.coffee_shop.model.Image;
 import com.haui.coffee_shop.model.Product;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ImageRepository extends JpaRepository<Image, Long> {
     List<Image> findByProduct(Product product);
+    List<Image> findByProductIdIn(Collection<Long> productIds);
     void deleteByProduct(Product product);
+
+    // Ảnh đại diện (ảnh tải lên đầu tiên) của từng sản phẩm: [productId, url]
+    @Query("SELECT i.product.id, i.url FROM Image i WHERE i.id IN " +
+            "(SELECT MIN(i2.id) FROM Image i2 WHERE i2.product.id IN :productIds GROUP BY i2.product.id)")
+    List<Object[]> findThumbnails(@Param("productIds") Collection<Long> productIds);
+
+    // Ảnh cho các danh sách sản phẩm, không nạp entity Product đi kèm: [productId, imageId, url]
+    @Query("SELECT i.product.id, i.id, i.url FROM Image i WHERE i.product.id IN :productIds ORDER BY i.id")
+    List<Object[]> findUrlsByProductIdIn(@Param("productIds") Collection<Long> productIds);
     
 }
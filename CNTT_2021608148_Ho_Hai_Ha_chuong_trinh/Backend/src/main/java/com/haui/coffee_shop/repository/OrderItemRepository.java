@@ -9,6 +9,7 @@ import com.haui.coffee_shop.model.OrderItem;
 
 import javax.swing.text.html.Option;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -18,6 +19,18 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     @Query("SELECT oi FROM OrderItem oi WHERE oi.order.id = :orderId")
     List<OrderItem> findByOrderId(@Param("orderId") long orderId);
 
+    // Dòng hàng của nhiều đơn cùng lúc, nạp sẵn sản phẩm và loại sản phẩm
+    @Query("SELECT oi FROM OrderItem oi " +
+            "JOIN FETCH oi.order o " +
+            "JOIN FETCH oi.productItem pi " +
+            "JOIN FETCH pi.product p " +
+            "LEFT JOIN FETCH p.category " +
+            "LEFT JOIN FETCH p.brand " +
+            "LEFT JOIN FETCH pi.type " +
+            "WHERE o.id IN :orderIds " +
+            "ORDER BY oi.id")
+    List<OrderItem> findWithProductByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
     @Query("SELECT oi.productItem.product, " +
     	       "SUM(oi.amount) AS totalQuantity, " +
     	       "SUM(oi.amount * (oi.price - oi.discount)) AS totalRevenue " +
@@ -70,44 +83,17 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     		        Pageable pageable);
 
 
-    @Query("SELECT oi.order.shippingAddress.user, SUM(oi.amount * (oi.price - oi.discount)) AS total " +
-            "FROM OrderItem oi " +
-            "JOIN oi.order o " +
-            "WHERE o.status = 'Completed'" +
-            "GROUP BY oi.order.shippingAddress.user " +
-            "ORDER BY total DESC")
-    List<Object[]> findTop5BestCustomers();
-
-    @Query("SELECT oi.order.shippingAddress.user, SUM(oi.amount * (oi.price - oi.discount)) AS totalQuantity " +
-            "FROM OrderItem oi " +
-            "JOIN oi.order o " +
-            "WHERE o.status = 'Completed' AND MONTH(o.orderDate) = :month AND YEAR(o.orderDate) = :year " +
-            "GROUP BY oi.order.shippingAddress.user " +
-            "ORDER BY totalQuantity DESC")
-    List<Object[]> findTop5MonthlyCustomers(@Param("month") int month,
-                                                   @Param("year") int year,
-                                                   Pageable pageable);
-
     @Query("SELECT SUM(oi.amount) FROM OrderItem oi WHERE oi.productItem.product.id = :productId")
     Optional<Integer> findTotalSold(long productId);
     
-    @Query("SELECT oi.productItem.product.id " +
-    	       "FROM OrderItem oi " +
-    	       "JOIN oi.order o " +
-    	       "JOIN oi.productItem pi " +
-    	       "JOIN pi.product p " +
-    	       "WHERE o.status = 'Completed' " +
-    	       "AND p.status = 'ACTIVE' " +
-    	       "AND o.orderDate >= :fromDate " +
-    	       "AND (:categoryId IS NULL OR p.category.id = :categoryId) " +
-    	       "AND (:brandId IS NULL OR p.brand.id = :brandId) " +
-    	       "GROUP BY oi.productItem.product.id " +
-    	       "ORDER BY SUM(oi.amount) DESC")
-    	List<Long> findTop15ActiveBestSellingProductsInLast90Days(
-    	        @Param("categoryId") Long categoryId,
-    	        @Param("brandId") Long brandId,
-    	        @Param("fromDate") Date fromDate,
-    	        Pageable pageable);
+    // Số lượng bán của các đơn Completed, gom theo sản phẩm và ngày đặt, dùng để nạp bảng xếp hạng
+    @Query(value = "SELECT pi.product_id, DATE(o.order_date), SUM(oi.amount) " +
+            "FROM order_item oi " +
+            "JOIN `order` o ON oi.order_id = o.id " +
+            "JOIN product_item pi ON oi.product_item_id = pi.id " +
+            "WHERE o.status = 'Completed' AND o.order_date >= :fromDate " +
+            "GROUP BY pi.product_id, DATE(o.order_date)", nativeQuery = true)
+    List<Object[]> sumCompletedAmountByProductAndDay(@Param("fromDate") Date fromDate);
 
  
 
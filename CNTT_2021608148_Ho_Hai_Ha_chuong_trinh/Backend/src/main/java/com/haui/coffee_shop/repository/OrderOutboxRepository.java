@@ -0,0 +1,25 @@
+package com.haui.coffee_shop.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.haui.coffee_shop.model.OrderOutboxEvent;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEvent, Long> {
+
+    // SKIP LOCKED để nhiều instance cùng chạy dispatcher không gửi trùng một sự kiện
+    @Query(value = "SELECT * FROM order_outbox WHERE published_at IS NULL ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<OrderOutboxEvent> lockUnpublished(@Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM OrderOutboxEvent e WHERE e.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") Date before);
+}
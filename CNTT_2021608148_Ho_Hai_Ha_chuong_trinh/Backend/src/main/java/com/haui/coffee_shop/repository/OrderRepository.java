@@ -1,32 +1,137 @@
 package com.haui.coffee_shop.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.haui.coffee_shop.common.enums.OrderStatus;
+import com.haui.coffee_shop.common.enums.PaymentMethod;
 import com.haui.coffee_shop.model.Order;
 
+import jakarta.persistence.LockModeType;
+
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+    // Nạp kèm địa chỉ giao hàng và người dùng trong cùng truy vấn, tránh N+1 do các quan hệ EAGER
+    String ORDER_WITH_ADDRESS = "SELECT od FROM Order od " +
+            "LEFT JOIN FETCH od.shippingAddress sa " +
+            "LEFT JOIN FETCH sa.user u " +
+            "LEFT JOIN FETCH u.role " +
+            "LEFT JOIN FETCH u.forgotPassword ";
+
     @Query("SELECT od FROM Order od WHERE od.shippingAddress.id = :shippingAddressId")
     Optional<Order> findByShippingAddressId(@Param("shippingAddressId") Long shippingAddressId);
 
-    @Query("SELECT od FROM Order od WHERE od.shippingAddress.user.id = :userId")
+    @Query(ORDER_WITH_ADDRESS + "WHERE u.id = :userId")
     List<Order> findByUserId(@Param("userId") Long userId);
 
+    @Query(ORDER_WITH_ADDRESS + "WHERE od.id = :orderId")
+    Optional<Order> findWithAddressById(@Param("orderId") long orderId);
 
-    @Query("SELECT od FROM Order od WHERE od.status = :orderStatus")
+    @Query(ORDER_WITH_ADDRESS + "WHERE od.status = :orderStatus")
     List<Order> findByStatus(@Param("orderStatus") OrderStatus orderStatus );
     
-    @Query("SELECT od FROM Order od WHERE "
+    @Query(ORDER_WITH_ADDRESS + "WHERE "
             + "(:startDate IS NULL OR od.orderDate >= :startDate) AND "
             + "(:endDate IS NULL OR od.orderDate <= :endDate)")
        List<Order> findAllFilterOrderDate(
            @Param("startDate") Date startDate,
            @Param("endDate") Date endDate);
+
+    // Id các đơn cần in hóa đơn hàng loạt, duyệt theo keyset trên id tăng dần
+    @Query("SELECT od.id FROM Order od WHERE od.id > :afterId AND "
+            + "(:status IS NULL OR od.status = :status) AND "
+            + "(:startDate IS NULL OR od.orderDate >= :startDate) AND "
+            + "(:endDate IS NULL OR od.orderDate <= :endDate) "
+            + "ORDER BY od.id")
+    List<Long> findInvoiceIds(@Param("afterId") long afterId,
+                              @Param("status") OrderStatus status,
+                              @Param("startDate") Date startDate,
+                              @Param("endDate") Date endDate,
+                              Pageable pageable);
+
+    @Query("SELECT COUNT(od) FROM Order od WHERE "
+            + "(:status IS NULL OR od.status = :status) AND "
+            + "(:startDate IS NULL OR od.orderDate >= :startDate) AND "
+            + "(:endDate IS NULL OR od.orderDate <= :endDate)")
+    long countInvoices(@Param("status") OrderStatus status,
+                       @Param("startDate") Date startDate,
+                       @Param("endDate") Date endDate);
+
+    @Query(ORDER_WITH_ADDRESS + "WHERE od.id IN :orderIds ORDER BY od.id")
+    List<Order> findWithAddressByIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    // Tìm kiếm đơn hàng phân trang theo keyset trên (order_date, id) giảm dần
+    @Query(ORDER_WITH_ADDRESS + "WHERE "
+            + "(:status IS NULL OR od.status = :status) AND "
+            + "(:paymentMethod IS NULL OR od.paymentMethod = :paymentMethod) AND "
+            + "(:fromDate IS NULL OR od.orderDate >= :fromDate) AND "
+            + "(:toDate IS NULL OR od.orderDate < :toDate) AND "
+            + "(:lastId IS NULL OR od.orderDate < :lastDate OR (od.orderDate = :lastDate AND od.id < :lastId)) "
+            + "ORDER BY od.orderDate DESC, od.id DESC")
+    List<Order> searchPage(@Param("status") OrderStatus status,
+                           @Param("paymentMethod") PaymentMethod paymentMethod,
+                           @Param("fromDate") Date fromDate,
+                           @Param("toDate") Date toDate,
+                           @Param("lastDate") Date lastDate,
+                           @Param("lastId") Long lastId,
+                           Pageable pageable);
+
+    // [id, status, userId, total] của các đơn, khóa dòng tới hết giao dịch để kết quả chuyển trạng thái hàng loạt là chính xác
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT od.id, od.status, u.id, od.total FROM Order od LEFT JOIN od.shippingAddress sa LEFT JOIN sa.user u " +
+            "WHERE od.id IN :orderIds")
+    List<Object[]> lockStatusesByIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    @Modifying
+    @Query("UPDATE Order od SET od.status = :target WHERE od.id IN :orderIds AND od.status = :expected")
+    int transitionStatus(@Param("orderIds") Collection<Long> orderIds,
+                         @Param("expected") OrderStatus expected,
+                         @Param("target") OrderStatus target);
+
+    // Điền subtotal/shipping_fee/total cho các đơn tạo trước khi có các cột này, mỗi lần tối đa :limit đơn.
+    // MySQL gán SET từ trái sang phải nên total dùng subtotal vừa tính
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE `order` o SET " +
+            "o.subtotal = (SELECT COALESCE(SUM(oi.amount * (oi.price - oi.discount)), 0) FROM order_item oi WHERE oi.order_id = o.id), " +
+            "o.shipping_fee = :shippingFee, " +
+            "o.total = o.subtotal + :shippingFee " +
+            "WHERE o.total IS NULL LIMIT :limit", nativeQuery = true)
+    int backfillTotals(@Param("shippingFee") double shippingFee, @Param("limit") int limit);
+
+    // [số đơn, tổng subtotal, tổng phí vận chuyển, tổng total] của các đơn Completed trong [startDate, endDate)
+    @Query("SELECT COUNT(o), COALESCE(SUM(o.subtotal), 0), COALESCE(SUM(o.shippingFee), 0), COALESCE(SUM(o.total), 0) " +
+            "FROM Order o WHERE o.status = 'Completed' AND o.orderDate >= :startDate AND o.orderDate < :endDate")
+    List<Object[]> sumCompletedRevenue(@Param("startDate") Date startDate, @Param("endDate") Date endDate);
+
+    @Query(value = "SELECT DATE(o.order_date), COUNT(*), COALESCE(SUM(o.total), 0) FROM `order` o " +
+            "WHERE o.status = 'Completed' AND o.order_date >= :startDate AND o.order_date < :endDate " +
+            "GROUP BY DATE(o.order_date) ORDER BY DATE(o.order_date)", nativeQuery = true)
+    List<Object[]> sumCompletedRevenueByDay(@Param("startDate") Date startDate, @Param("endDate") Date endDate);
+
+    @Query("SELECT o.shippingAddress.user, SUM(o.subtotal) AS total " +
+            "FROM Order o " +
+            "WHERE o.status = 'Completed' " +
+            "GROUP BY o.shippingAddress.user " +
+            "ORDER BY total DESC")
+    List<Object[]> findTopCustomers();
+
+    @Query("SELECT o.shippingAddress.user, SUM(o.subtotal) AS total " +
+            "FROM Order o " +
+            "WHERE o.status = 'Completed' AND o.orderDate >= :startDate AND o.orderDate < :endDate " +
+            "GROUP BY o.shippingAddress.user " +
+            "ORDER BY total DESC")
+    List<Object[]> findTopCustomersBetween(@Param("startDate") Date startDate,
+                                           @Param("endDate") Date endDate,
+                                           Pageable pageable);
 }
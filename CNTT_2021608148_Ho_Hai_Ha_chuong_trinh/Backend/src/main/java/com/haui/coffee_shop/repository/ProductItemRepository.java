@@ -1,10 +1,17 @@
 package com.haui.coffee_shop.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.haui.coffee_shop.model.ProductItem;
 
+import jakarta.persistence.LockModeType;
+
+import java.util.Collection;
 import java.util.List;
 
 
@@ -14,4 +21,18 @@ public interface ProductItemRepository extends JpaRepository<ProductItem, Long>
     boolean existsByProductIdAndTypeId(long productId, long typeId);
 
     List<ProductItem> findByProductId(long productId);
-}
\ No newline at end of file
+
+    // Trừ kho nguyên tử: chỉ cập nhật khi còn đủ hàng, trả về 0 nếu không đủ
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ProductItem pi SET pi.stock = pi.stock - :amount WHERE pi.id = :id AND pi.stock >= :amount")
+    int decrementStock(@Param("id") long id, @Param("amount") int amount);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ProductItem pi SET pi.stock = pi.stock + :amount WHERE pi.id = :id")
+    int incrementStock(@Param("id") long id, @Param("amount") int amount);
+
+    // [id, stock] theo id tăng dần, khóa các dòng tới hết transaction (trừ kho theo lô của hàng đợi checkout)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT pi.id, pi.stock FROM ProductItem pi WHERE pi.id IN :ids ORDER BY pi.id")
+    List<Object[]> lockStocks(@Param("ids") Collection<Long> ids);
+}
@@ -1,5 +1,6 @@
 package com.haui.coffee_shop.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -8,7 +9,10 @@ import org.springframework.stereotype.Repository;
 import com.haui.coffee_shop.common.enums.Status;
 import com.haui.coffee_shop.model.Image;
 import com.haui.coffee_shop.model.Product;
+import com.haui.coffee_shop.payload.response.ProductListResponse;
+import com.haui.coffee_shop.payload.response.ProductSummaryResponse;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,13 +20,104 @@ import java.util.Optional;
 public interface ProductRepository extends JpaRepository<Product, Long> {
     Optional<Product> findByName(String name);
 
-    @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(p.brand.name) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Product> searchByKeyword(String keyword);
-
     List<Product> findByCategoryId(Long categoryId);
     
     List<Product> findByBrandId(Long BrandId);
 
+    List<Product> findByStatus(Status status);
+
+    List<Product> findByCategoryIdAndStatus(Long categoryId, Status status);
+
+    List<Product> findByBrandIdAndStatus(Long brandId, Status status);
+
+    // Phần SELECT dùng chung cho các truy vấn danh sách: chỉ lấy các cột cần hiển thị,
+    // không chọn description/article. JOIN (không LEFT JOIN) để sắp xếp dùng được index của product_stats:
+    // mỗi sản phẩm luôn có bản ghi product_stats (addProduct tạo cùng transaction, ProductStatsInitializer bổ sung khi khởi động)
+    String SUMMARY_SELECT = "SELECT new com.haui.coffee_shop.payload.response.ProductSummaryResponse(" +
+            "p.id, p.name, c.id, c.name, b.id, b.name, ps.minPrice, ps.maxPrice, ps.averageRating, " +
+            "ps.reviewCount, ps.totalSold, p.createdAt) " +
+            "FROM Product p JOIN ProductStats ps ON ps.productId = p.id " +
+            "LEFT JOIN p.category c LEFT JOIN p.brand b ";
+
+    // Các danh sách cũ (/all, theo danh mục/thương hiệu, bán chạy, tìm kiếm): thêm các thuộc tính ngắn mà bộ lọc
+    // của giao diện cần, vẫn không chọn description/article và không nạp entity Category/Brand
+    String LIST_SELECT = "SELECT new com.haui.coffee_shop.payload.response.ProductListResponse(" +
+            "p.id, p.name, c.id, c.name, b.id, b.name, p.status, ps.minPrice, ps.maxPrice, ps.averageRating, " +
+            "ps.reviewCount, ps.totalSold, p.netWeight, p.beanType, p.origin, p.roadLevel, p.flavoNotes, " +
+            "p.caffeineContents, p.cafeForm, p.createdAt) " +
+            "FROM Product p JOIN ProductStats ps ON ps.productId = p.id " +
+            "LEFT JOIN p.category c LEFT JOIN p.brand b ";
+
+    @Query(LIST_SELECT + "WHERE p.status = :status ORDER BY p.id")
+    List<ProductListResponse> findListByStatus(@Param("status") Status status);
+
+    @Query(LIST_SELECT + "WHERE c.id = :categoryId AND p.status = :status ORDER BY p.id")
+    List<ProductListResponse> findListByCategoryIdAndStatus(@Param("categoryId") Long categoryId, @Param("status") Status status);
+
+    @Query(LIST_SELECT + "WHERE b.id = :brandId AND p.status = :status ORDER BY p.id")
+    List<ProductListResponse> findListByBrandIdAndStatus(@Param("brandId") Long brandId, @Param("status") Status status);
+
+    @Query(LIST_SELECT + "WHERE p.id IN :ids AND p.status = 'ACTIVE'")
+    List<ProductListResponse> findActiveListByIdIn(@Param("ids") Collection<Long> ids);
+
+    String PAGE_FILTER = "WHERE p.status = :status " +
+            "AND (:categoryId IS NULL OR c.id = :categoryId) " +
+            "AND (:brandId IS NULL OR b.id = :brandId) ";
+
+    @Query(SUMMARY_SELECT + "WHERE p.id IN :ids AND p.status = 'ACTIVE'")
+    List<ProductSummaryResponse> findActiveSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Các truy vấn phân trang theo keyset: điều kiện (khóa sắp xếp, id) > con trỏ của trang trước,
+    // nên chi phí mỗi trang không phụ thuộc vào vị trí trang như OFFSET
+    @Query(SUMMARY_SELECT + PAGE_FILTER +
+            "AND (:lastId IS NULL OR p.id < :lastId) " +
+            "ORDER BY p.id DESC")
+    List<ProductSummaryResponse> findPageNewest(@Param("status") Status status,
+                                                @Param("categoryId") Long categoryId,
+                                                @Param("brandId") Long brandId,
+                                                @Param("lastId") Long lastId,
+                                                Pageable pageable);
+
+    @Query(SUMMARY_SELECT + PAGE_FILTER +
+            "AND (:lastId IS NULL OR ps.minPrice > :lastValue OR (ps.minPrice = :lastValue AND p.id > :lastId)) " +
+            "ORDER BY ps.minPrice ASC, p.id ASC")
+    List<ProductSummaryResponse> findPageByPriceAsc(@Param("status") Status status,
+                                                    @Param("categoryId") Long categoryId,
+                                                    @Param("brandId") Long brandId,
+                                                    @Param("lastValue") Double lastValue,
+                                                    @Param("lastId") Long lastId,
+                                                    Pageable pageable);
+
+    @Query(SUMMARY_SELECT + PAGE_FILTER +
+            "AND (:lastId IS NULL OR ps.maxPrice < :lastValue OR (ps.maxPrice = :lastValue AND p.id < :lastId)) " +
+            "ORDER BY ps.maxPrice DESC, p.id DESC")
+    List<ProductSummaryResponse> findPageByPriceDesc(@Param("status") Status status,
+                                                     @Param("categoryId") Long categoryId,
+                                                     @Param("brandId") Long brandId,
+                                                     @Param("lastValue") Double lastValue,
+                                                     @Param("lastId") Long lastId,
+                                                     Pageable pageable);
+
+    @Query(SUMMARY_SELECT + PAGE_FILTER +
+            "AND (:lastId IS NULL OR ps.totalSold < :lastValue OR (ps.totalSold = :lastValue AND p.id < :lastId)) " +
+            "ORDER BY ps.totalSold DESC, p.id DESC")
+    List<ProductSummaryResponse> findPageByBestSelling(@Param("status") Status status,
+                                                       @Param("categoryId") Long categoryId,
+                                                       @Param("brandId") Long brandId,
+                                                       @Param("lastValue") Integer lastValue,
+                                                       @Param("lastId") Long lastId,
+                                                       Pageable pageable);
+
+    @Query(SUMMARY_SELECT + PAGE_FILTER +
+            "AND (:lastId IS NULL OR ps.averageRating < :lastValue OR (ps.averageRating = :lastValue AND p.id < :lastId)) " +
+            "ORDER BY ps.averageRating DESC, p.id DESC")
+    List<ProductSummaryResponse> findPageByRating(@Param("status") Status status,
+                                                  @Param("categoryId") Long categoryId,
+                                                  @Param("brandId") Long brandId,
+                                                  @Param("lastValue") Double lastValue,
+                                                  @Param("lastId") Long lastId,
+                                                  Pageable pageable);
+
     @Query("SELECT MAX(pi.price) FROM ProductItem pi WHERE pi.product.id = :productId AND pi.stock > 0 AND pi.status = 'ACTIVE'")
     Optional<Double> maxPrice(long productId);
 
@@ -0,0 +1,79 @@
+package com.haui.coffee_shop.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.haui.coffee_shop.model.ProductStats;
+
+@Repository
+public interface ProductStatsRepository extends JpaRepository<ProductStats, Long> {
+    // Tính số liệu của từng sản phẩm từ dữ liệu gốc, điểm trung bình tính luôn từ tổng và số lượt đánh giá.
+    // Điều kiện lọc sản phẩm (nếu có) đặt giữa REBUILD_INSERT_START và REBUILD_INSERT_END
+    String REBUILD_INSERT_START = "INSERT INTO product_stats (product_id, rating_sum, review_count, average_rating, total_sold, min_price, max_price, updated_at) " +
+            "SELECT s.product_id, s.rating_sum, s.review_count, " +
+            "CASE WHEN s.review_count > 0 THEN s.rating_sum / s.review_count ELSE 0 END, " +
+            "s.total_sold, s.min_price, s.max_price, NOW() " +
+            "FROM (SELECT p.id AS product_id, " +
+            "COALESCE((SELECT SUM(rv.rating) FROM review rv " +
+            "    JOIN order_item oi ON rv.order_item_id = oi.id " +
+            "    JOIN product_item pi ON oi.product_item_id = pi.id " +
+            "    WHERE pi.product_id = p.id AND rv.status = 'ACTIVE'), 0) AS rating_sum, " +
+            "(SELECT COUNT(*) FROM review rv " +
+            "    JOIN order_item oi ON rv.order_item_id = oi.id " +
+            "    JOIN product_item pi ON oi.product_item_id = pi.id " +
+            "    WHERE pi.product_id = p.id AND rv.status = 'ACTIVE') AS review_count, " +
+            "COALESCE((SELECT SUM(oi.amount) FROM order_item oi " +
+            "    JOIN product_item pi ON oi.product_item_id = pi.id " +
+            "    JOIN `order` o ON oi.order_id = o.id " +
+            "    WHERE pi.product_id = p.id AND o.status <> 'Cancelled'), 0) AS total_sold, " +
+            "COALESCE((SELECT MIN(pi.price) FROM product_item pi WHERE pi.product_id = p.id AND pi.stock > 0 AND pi.status = 'ACTIVE'), 0) AS min_price, " +
+            "COALESCE((SELECT MAX(pi.price) FROM product_item pi WHERE pi.product_id = p.id AND pi.stock > 0 AND pi.status = 'ACTIVE'), 0) AS max_price " +
+            "FROM product p ";
+    String REBUILD_INSERT_END = ") s";
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO product_stats (product_id, rating_sum, review_count, average_rating, total_sold, min_price, max_price, updated_at) " +
+            "VALUES (:productId, 0, 0, 0, 0, 0, 0, NOW())", nativeQuery = true)
+    void insertIfAbsent(@Param("productId") long productId);
+
+    @Modifying
+    @Query(value = "INSERT INTO product_stats (product_id, rating_sum, review_count, average_rating, total_sold, min_price, max_price, updated_at) " +
+            "VALUES (:productId, :rating, :count, CASE WHEN :count > 0 THEN :rating / :count ELSE 0 END, 0, 0, 0, NOW()) " +
+            "ON DUPLICATE KEY UPDATE rating_sum = rating_sum + :rating, review_count = review_count + :count, " +
+            "average_rating = CASE WHEN review_count > 0 THEN rating_sum / review_count ELSE 0 END, updated_at = NOW()",
+            nativeQuery = true)
+    void addRating(@Param("productId") long productId, @Param("rating") double rating, @Param("count") int count);
+
+    @Modifying
+    @Query(value = "INSERT INTO product_stats (product_id, rating_sum, review_count, average_rating, total_sold, min_price, max_price, updated_at) " +
+            "VALUES (:productId, 0, 0, 0, :amount, 0, 0, NOW()) " +
+            "ON DUPLICATE KEY UPDATE total_sold = total_sold + :amount, updated_at = NOW()",
+            nativeQuery = true)
+    void addSold(@Param("productId") long productId, @Param("amount") int amount);
+
+    @Modifying
+    @Query(value = "UPDATE product_stats SET " +
+            "min_price = COALESCE((SELECT MIN(pi.price) FROM product_item pi WHERE pi.product_id = :productId AND pi.stock > 0 AND pi.status = 'ACTIVE'), 0), " +
+            "max_price = COALESCE((SELECT MAX(pi.price) FROM product_item pi WHERE pi.product_id = :productId AND pi.stock > 0 AND pi.status = 'ACTIVE'), 0), " +
+            "updated_at = NOW() " +
+            "WHERE product_id = :productId", nativeQuery = true)
+    void refreshPriceRange(@Param("productId") long productId);
+
+    @Modifying
+    @Query(value = "DELETE FROM product_stats", nativeQuery = true)
+    void deleteAllStats();
+
+    @Modifying
+    @Query(value = REBUILD_INSERT_START + REBUILD_INSERT_END, nativeQuery = true)
+    int rebuildAll();
+
+    // Chỉ thêm bản ghi cho các sản phẩm chưa có trong product_stats (vd. thêm thẳng vào DB), không đụng tới bản ghi cũ
+    @Modifying
+    @Query(value = REBUILD_INSERT_START +
+            "WHERE NOT EXISTS (SELECT 1 FROM product_stats ps WHERE ps.product_id = p.id)" + REBUILD_INSERT_END,
+            nativeQuery = true)
+    int insertMissing();
+}
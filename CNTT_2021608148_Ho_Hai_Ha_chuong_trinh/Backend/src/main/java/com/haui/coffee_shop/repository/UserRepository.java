@@ -10,6 +10,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.haui.coffee_shop.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +21,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsUserByEmail(String email);
 
+    // [id, email] của các user
+    @Query("SELECT u.id, u.email FROM User u WHERE u.id IN :ids")
+    List<Object[]> findEmailsByIdIn(@Param("ids") Collection<Long> ids);
+
     @Transactional
     @Modifying
     @Query("UPDATE User u SET u.password = ?2 WHERE u.email = ?1")
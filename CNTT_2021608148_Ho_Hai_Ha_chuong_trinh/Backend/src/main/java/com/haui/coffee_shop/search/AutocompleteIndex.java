@@ -0,0 +1,325 @@
+package com.haui.coffee_shop.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.haui.coffee_shop.common.enums.Status;
+import com.haui.coffee_shop.common.event.CatalogChangedEvent;
+import com.haui.coffee_shop.config.SchedulerConfig;
+import com.haui.coffee_shop.model.Product;
+import com.haui.coffee_shop.model.ProductStats;
+import com.haui.coffee_shop.payload.response.AutocompleteSuggestion;
+import com.haui.coffee_shop.repository.ProductRepository;
+import com.haui.coffee_shop.service.ProductStatsService;
+import com.haui.coffee_shop.utils.TextNormalizer;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Gợi ý tìm kiếm khi đang gõ, dựa trên trie bỏ dấu lưu sẵn top-k gợi ý tại mỗi nút.
+// Tra cứu chỉ đi theo độ dài tiền tố, không phụ thuộc số lượng sản phẩm.
+// Một sản phẩm thay đổi thì chỉ gỡ các khóa cũ và chèn khóa mới của sản phẩm (cùng gợi ý brand/category của nó)
+// dưới khóa ghi, top-k được tính lại dọc theo các đường đi bị ảnh hưởng. Nạp lại toàn bộ định kỳ để bù sai lệch
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AutocompleteIndex {
+    public static final int MAX_SUGGESTIONS = 10;
+    // Số từ đầu tiên trong tên được dùng làm điểm bắt đầu khớp ("arabica" gợi ý "Cà phê Arabica")
+    private static final int MAX_WORD_STARTS = 6;
+    private static final AutocompleteSuggestion[] NO_SUGGESTIONS = new AutocompleteSuggestion[0];
+
+    private final ProductRepository productRepository;
+    private final ProductStatsService productStatsService;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Các trường dưới đây chỉ đọc/ghi khi giữ lock
+    private Map<Long, ProductEntry> products = new HashMap<>();
+    private Map<Long, Group> brands = new HashMap<>();
+    private Map<Long, Group> categories = new HashMap<>();
+    private Map<String, AutocompleteSuggestion> suggestions = new HashMap<>();
+    private Node root = new Node();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        List<Product> activeProducts = productRepository.findByStatus(Status.ACTIVE);
+        Map<Long, ProductStats> stats = productStatsService.findByProductIds(
+                activeProducts.stream().map(Product::getId).toList());
+
+        // Dựng bộ mới ngoài khóa rồi thay một lần
+        Map<Long, ProductEntry> newProducts = new HashMap<>();
+        Map<Long, Group> newBrands = new HashMap<>();
+        Map<Long, Group> newCategories = new HashMap<>();
+        for (Product product : activeProducts) {
+            ProductEntry entry = toEntry(product, stats.get(product.getId()));
+            newProducts.put(entry.id, entry);
+            join(newBrands, entry.brandId, entry.brandName, entry.sold);
+            join(newCategories, entry.categoryId, entry.categoryName, entry.sold);
+        }
+        Map<String, AutocompleteSuggestion> newSuggestions = new HashMap<>();
+        newProducts.values().forEach(entry -> newSuggestions.put(productKey(entry.id), productSuggestion(entry)));
+        newBrands.forEach((id, group) -> newSuggestions.put(groupKey("brand", id), group.toSuggestion("brand", id)));
+        newCategories.forEach((id, group) -> newSuggestions.put(groupKey("category", id), group.toSuggestion("category", id)));
+        Node newRoot = new Node();
+        for (AutocompleteSuggestion suggestion : newSuggestions.values()) {
+            for (String key : keys(suggestion)) {
+                newRoot.descend(key).terminals.add(suggestion);
+            }
+        }
+        newRoot.refreshAll();
+
+        lock.writeLock().lock();
+        try {
+            products = newProducts;
+            brands = newBrands;
+            categories = newCategories;
+            suggestions = newSuggestions;
+            root = newRoot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Autocomplete trie rebuilt with {} suggestions", newSuggestions.size());
+    }
+
+    // Số lượng bán thay đổi theo đơn hàng mà không phát sự kiện catalog, nên làm mới trọng số định kỳ.
+    // Chạy trên scheduler riêng vì phải nạp lại toàn bộ sản phẩm
+    @Scheduled(fixedDelayString = "${autocomplete.refresh-ms:300000}", initialDelayString = "${autocomplete.refresh-ms:300000}",
+            scheduler = SchedulerConfig.INDEX_SCHEDULER)
+    public void refreshWeights() {
+        reload();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        switch (event.getType()) {
+            case PRODUCT -> {
+                if (event.affectsAllProducts()) {
+                    reload();
+                } else {
+                    update(event.getProductId());
+                }
+            }
+            case BRAND, CATEGORY -> reload();
+            default -> {
+            }
+        }
+    }
+
+    public void update(long productId) {
+        Optional<Product> product = productRepository.findById(productId)
+                .filter(p -> p.getStatus() == Status.ACTIVE);
+        ProductStats stats = product.isPresent()
+                ? productStatsService.findByProductIds(List.of(productId)).get(productId)
+                : null;
+        ProductEntry entry = product.map(p -> toEntry(p, stats)).orElse(null);
+
+        lock.writeLock().lock();
+        try {
+            ProductEntry previous = entry == null ? products.remove(productId) : products.put(productId, entry);
+            if (Objects.equals(previous, entry)) {
+                return;
+            }
+            if (previous != null) {
+                removeSuggestion(productKey(productId));
+                changeGroup(brands, "brand", previous.brandId, previous.brandName, -1, -previous.sold);
+                changeGroup(categories, "category", previous.categoryId, previous.categoryName, -1, -previous.sold);
+            }
+            if (entry != null) {
+                addSuggestion(productKey(productId), productSuggestion(entry));
+                changeGroup(brands, "brand", entry.brandId, entry.brandName, 1, entry.sold);
+                changeGroup(categories, "category", entry.categoryId, entry.categoryName, 1, entry.sold);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<AutocompleteSuggestion> suggest(String prefix, int limit) {
+        String key = String.join(" ", TextNormalizer.tokenize(prefix));
+        if (key.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+            }
+            if (node == null) {
+                return new ArrayList<>();
+            }
+            int size = Math.min(limit, node.top.length);
+            return new ArrayList<>(Arrays.asList(node.top).subList(0, size));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Trọng số của brand/category là tổng số lượng bán của các sản phẩm thuộc về nó: gợi ý được thay bằng bản mới
+    // (các gợi ý đã nằm trong top-k của trie không bị sửa tại chỗ). Không còn sản phẩm nào thì gỡ gợi ý
+    private void changeGroup(Map<Long, Group> groups, String type, Long id, String name, int products, long sold) {
+        if (id == null) {
+            return;
+        }
+        String key = groupKey(type, id);
+        removeSuggestion(key);
+        Group group = groups.computeIfAbsent(id, groupId -> new Group(name));
+        group.products += products;
+        group.sold += sold;
+        if (group.products <= 0) {
+            groups.remove(id);
+        } else {
+            addSuggestion(key, group.toSuggestion(type, id));
+        }
+    }
+
+    private void addSuggestion(String key, AutocompleteSuggestion suggestion) {
+        suggestions.put(key, suggestion);
+        for (String trieKey : keys(suggestion)) {
+            root.insert(trieKey, suggestion);
+        }
+    }
+
+    private void removeSuggestion(String key) {
+        AutocompleteSuggestion suggestion = suggestions.remove(key);
+        if (suggestion != null) {
+            for (String trieKey : keys(suggestion)) {
+                root.remove(trieKey, suggestion);
+            }
+        }
+    }
+
+    private static void join(Map<Long, Group> groups, Long id, String name, long sold) {
+        if (id != null) {
+            Group group = groups.computeIfAbsent(id, groupId -> new Group(name));
+            group.products++;
+            group.sold += sold;
+        }
+    }
+
+    // Khớp từ đầu tên hoặc từ đầu của một trong MAX_WORD_STARTS từ đầu tiên
+    private static List<String> keys(AutocompleteSuggestion suggestion) {
+        List<String> words = TextNormalizer.tokenize(suggestion.getText());
+        List<String> keys = new ArrayList<>();
+        for (int start = 0; start < Math.min(words.size(), MAX_WORD_STARTS); start++) {
+            keys.add(String.join(" ", words.subList(start, words.size())));
+        }
+        return keys;
+    }
+
+    private static String productKey(long productId) {
+        return "product:" + productId;
+    }
+
+    private static String groupKey(String type, long id) {
+        return type + ":" + id;
+    }
+
+    private static AutocompleteSuggestion productSuggestion(ProductEntry entry) {
+        return new AutocompleteSuggestion("product", entry.id, entry.name, entry.sold);
+    }
+
+    private static ProductEntry toEntry(Product product, ProductStats stats) {
+        return new ProductEntry(
+                product.getId(),
+                product.getName(),
+                product.getBrand() != null ? product.getBrand().getId() : null,
+                product.getBrand() != null ? product.getBrand().getName() : null,
+                product.getCategory() != null ? product.getCategory().getId() : null,
+                product.getCategory() != null ? product.getCategory().getName() : null,
+                stats != null ? stats.getTotalSold() : 0);
+    }
+
+    private record ProductEntry(long id, String name, Long brandId, String brandName,
+                                Long categoryId, String categoryName, long sold) {
+    }
+
+    private static final Comparator<AutocompleteSuggestion> BY_WEIGHT =
+            Comparator.comparingLong(AutocompleteSuggestion::getWeight).reversed()
+                    .thenComparing(AutocompleteSuggestion::getText);
+
+    // Gợi ý brand/category: số sản phẩm đang bán và tổng số lượng bán của chúng
+    private static final class Group {
+        final String name;
+        int products;
+        long sold;
+
+        Group(String name) {
+            this.name = name;
+        }
+
+        AutocompleteSuggestion toSuggestion(String type, long id) {
+            return new AutocompleteSuggestion(type, id, name, sold);
+        }
+    }
+
+    // top là top-k của các gợi ý tại nút và top-k của các nút con, luôn được tính lại sau khi nút hoặc nút con thay đổi
+    private static final class Node {
+        final Map<Character, Node> children = new HashMap<>();
+        final Set<AutocompleteSuggestion> terminals = Collections.newSetFromMap(new IdentityHashMap<>());
+        AutocompleteSuggestion[] top = NO_SUGGESTIONS;
+
+        Node descend(String key) {
+            Node node = this;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+            }
+            return node;
+        }
+
+        void insert(String key, AutocompleteSuggestion suggestion) {
+            Node[] path = new Node[key.length() + 1];
+            path[0] = this;
+            for (int i = 0; i < key.length(); i++) {
+                path[i + 1] = path[i].children.computeIfAbsent(key.charAt(i), c -> new Node());
+            }
+            path[key.length()].terminals.add(suggestion);
+            for (int i = key.length(); i >= 0; i--) {
+                path[i].refreshTop();
+            }
+        }
+
+        // Gỡ gợi ý khỏi nút cuối của khóa, bỏ các nút không còn gì rồi tính lại top-k ngược về gốc
+        void remove(String key, AutocompleteSuggestion suggestion) {
+            Node[] path = new Node[key.length() + 1];
+            path[0] = this;
+            for (int i = 0; i < key.length(); i++) {
+                path[i + 1] = path[i].children.get(key.charAt(i));
+                if (path[i + 1] == null) {
+                    return;
+                }
+            }
+            path[key.length()].terminals.remove(suggestion);
+            for (int i = key.length(); i >= 0; i--) {
+                if (i > 0 && path[i].terminals.isEmpty() && path[i].children.isEmpty()) {
+                    path[i - 1].children.remove(key.charAt(i - 1));
+                } else {
+                    path[i].refreshTop();
+                }
+            }
+        }
+
+        // Dựng từ dưới lên khi nạp lại toàn bộ
+        void refreshAll() {
+            children.values().forEach(Node::refreshAll);
+            refreshTop();
+        }
+
+        void refreshTop() {
+            Set<AutocompleteSuggestion> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+            candidates.addAll(terminals);
+            for (Node child : children.values()) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            top = candidates.stream()
+                    .sorted(BY_WEIGHT)
+                    .limit(MAX_SUGGESTIONS)
+                    .toArray(AutocompleteSuggestion[]::new);
+        }
+    }
+}
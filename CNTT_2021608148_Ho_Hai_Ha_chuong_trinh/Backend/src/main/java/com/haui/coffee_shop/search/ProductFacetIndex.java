@@ -0,0 +1,263 @@
+package com.haui.coffee_shop.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.haui.coffee_shop.common.enums.Status;
+import com.haui.coffee_shop.common.event.CatalogChangedEvent;
+import com.haui.coffee_shop.model.Product;
+import com.haui.coffee_shop.model.ProductStats;
+import com.haui.coffee_shop.repository.ProductRepository;
+import com.haui.coffee_shop.service.ProductStatsService;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// Chỉ mục bitmap cho lọc sản phẩm theo thuộc tính: mỗi giá trị của một thuộc tính là một BitSet
+// trên các slot sản phẩm, lọc bằng phép AND/OR bit và đếm facet bằng cardinality.
+// Khoảng giá dùng min/max tính sẵn trong product_stats
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ProductFacetIndex {
+    public enum Facet {
+        CATEGORY("categoryId", product -> product.getCategory() != null ? String.valueOf(product.getCategory().getId()) : null),
+        BRAND("brandId", product -> product.getBrand() != null ? String.valueOf(product.getBrand().getId()) : null),
+        ORIGIN("origin", Product::getOrigin),
+        ROAD_LEVEL("roadLevel", Product::getRoadLevel),
+        BEAN_TYPE("beanType", Product::getBeanType),
+        CAFFEINE_CONTENTS("caffeineContents", Product::getCaffeineContents),
+        CAFE_FORM("cafeForm", Product::getCafeForm),
+        NET_WEIGHT("netWeight", Product::getNetWeight);
+
+        private final String key;
+        private final Function<Product, String> extractor;
+
+        Facet(String key, Function<Product, String> extractor) {
+            this.key = key;
+            this.extractor = extractor;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        String valueOf(Product product) {
+            String value = extractor.apply(product);
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+    }
+
+    public record FacetResult(List<Long> productIds, Map<String, Map<String, Integer>> facets,
+                              double minPrice, double maxPrice) {
+    }
+
+    private static final Facet[] FACETS = Facet.values();
+
+    private final ProductRepository productRepository;
+    private final ProductStatsService productStatsService;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slotByProduct = new HashMap<>();
+    private long[] productBySlot = new long[0];
+    private double[] minPrices = new double[0];
+    private double[] maxPrices = new double[0];
+    // Giá trị thuộc tính của từng slot, dùng để gỡ bit cũ khi cập nhật
+    private String[][] valuesBySlot = new String[0][];
+    private final BitSet alive = new BitSet();
+    private final Map<Facet, Map<String, BitSet>> bitmaps = new EnumMap<>(Facet.class);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        List<Product> products = productRepository.findByStatus(Status.ACTIVE);
+        Map<Long, ProductStats> stats = productStatsService.findByProductIds(
+                products.stream().map(Product::getId).toList());
+
+        lock.writeLock().lock();
+        try {
+            slotByProduct.clear();
+            alive.clear();
+            bitmaps.clear();
+            productBySlot = new long[products.size()];
+            minPrices = new double[products.size()];
+            maxPrices = new double[products.size()];
+            valuesBySlot = new String[products.size()][];
+            for (Product product : products) {
+                put(product, stats.get(product.getId()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product facet index built: {} products", products.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        switch (event.getType()) {
+            case PRODUCT, PRODUCT_ITEM -> {
+                if (event.affectsAllProducts()) {
+                    reload();
+                } else {
+                    update(event.getProductId());
+                }
+            }
+            case BRAND, CATEGORY -> reload();
+            default -> {
+            }
+        }
+    }
+
+    public void update(long productId) {
+        Optional<Product> product = productRepository.findById(productId)
+                .filter(p -> p.getStatus() == Status.ACTIVE);
+        ProductStats stats = product.isPresent()
+                ? productStatsService.findByProductIds(List.of(productId)).get(productId)
+                : null;
+
+        lock.writeLock().lock();
+        try {
+            remove(productId);
+            product.ifPresent(p -> put(p, stats));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Lọc theo các giá trị đã chọn và khoảng giá. Số đếm của mỗi thuộc tính bỏ qua bộ lọc của
+    // chính thuộc tính đó, để giao diện hiển thị được số lượng khi chọn thêm giá trị khác
+    public FacetResult search(Map<Facet, Collection<String>> filters, Double minPrice, Double maxPrice) {
+        lock.readLock().lock();
+        try {
+            BitSet base = (BitSet) alive.clone();
+            if (minPrice != null || maxPrice != null) {
+                for (int slot = base.nextSetBit(0); slot >= 0; slot = base.nextSetBit(slot + 1)) {
+                    // Sản phẩm hết hàng có khoảng giá 0 - 0 nên bị loại khi lọc theo giá
+                    boolean inRange = maxPrices[slot] > 0
+                            && (minPrice == null || maxPrices[slot] >= minPrice)
+                            && (maxPrice == null || minPrices[slot] <= maxPrice);
+                    if (!inRange) {
+                        base.clear(slot);
+                    }
+                }
+            }
+
+            Map<Facet, BitSet> masks = new EnumMap<>(Facet.class);
+            for (Facet facet : FACETS) {
+                Collection<String> values = filters.get(facet);
+                if (values == null || values.isEmpty()) {
+                    continue;
+                }
+                BitSet mask = new BitSet();
+                Map<String, BitSet> byValue = bitmaps.getOrDefault(facet, Map.of());
+                for (String value : values) {
+                    BitSet bits = byValue.get(value.trim());
+                    if (bits != null) {
+                        mask.or(bits);
+                    }
+                }
+                masks.put(facet, mask);
+            }
+
+            BitSet matched = (BitSet) base.clone();
+            masks.values().forEach(matched::and);
+
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            for (Facet facet : FACETS) {
+                BitSet others = (BitSet) base.clone();
+                masks.forEach((other, mask) -> {
+                    if (other != facet) {
+                        others.and(mask);
+                    }
+                });
+                Map<String, Integer> counts = new TreeMap<>();
+                for (Map.Entry<String, BitSet> entry : bitmaps.getOrDefault(facet, Map.of()).entrySet()) {
+                    BitSet bits = (BitSet) entry.getValue().clone();
+                    bits.and(others);
+                    int count = bits.cardinality();
+                    if (count > 0) {
+                        counts.put(entry.getKey(), count);
+                    }
+                }
+                facets.put(facet.getKey(), counts);
+            }
+
+            List<Long> productIds = new ArrayList<>(matched.cardinality());
+            double lowest = 0;
+            double highest = 0;
+            for (int slot = matched.nextSetBit(0); slot >= 0; slot = matched.nextSetBit(slot + 1)) {
+                productIds.add(productBySlot[slot]);
+                if (maxPrices[slot] > 0) {
+                    lowest = lowest == 0 ? minPrices[slot] : Math.min(lowest, minPrices[slot]);
+                    highest = Math.max(highest, maxPrices[slot]);
+                }
+            }
+            productIds.sort(Comparator.reverseOrder());
+            return new FacetResult(productIds, facets, lowest, highest);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Product product, ProductStats stats) {
+        Integer existing = slotByProduct.get(product.getId());
+        int slot = existing != null ? existing : slotByProduct.size();
+        if (existing == null) {
+            ensureCapacity(slot + 1);
+            slotByProduct.put(product.getId(), slot);
+        }
+        productBySlot[slot] = product.getId();
+        minPrices[slot] = stats != null ? stats.getMinPrice() : 0;
+        maxPrices[slot] = stats != null ? stats.getMaxPrice() : 0;
+
+        String[] values = new String[FACETS.length];
+        for (Facet facet : FACETS) {
+            String value = facet.valueOf(product);
+            values[facet.ordinal()] = value;
+            if (value != null) {
+                bitmaps.computeIfAbsent(facet, f -> new HashMap<>())
+                        .computeIfAbsent(value, v -> new BitSet())
+                        .set(slot);
+            }
+        }
+        valuesBySlot[slot] = values;
+        alive.set(slot);
+    }
+
+    // Giữ nguyên slot của sản phẩm đã gỡ để dùng lại khi sản phẩm được kích hoạt lại
+    private void remove(long productId) {
+        Integer slot = slotByProduct.get(productId);
+        if (slot == null || !alive.get(slot)) {
+            return;
+        }
+        alive.clear(slot);
+        String[] values = valuesBySlot[slot];
+        for (Facet facet : FACETS) {
+            String value = values[facet.ordinal()];
+            if (value == null) {
+                continue;
+            }
+            Map<String, BitSet> byValue = bitmaps.get(facet);
+            BitSet bits = byValue.get(value);
+            bits.clear(slot);
+            if (bits.isEmpty()) {
+                byValue.remove(value);
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= productBySlot.length) {
+            return;
+        }
+        int newLength = Math.max(capacity, productBySlot.length * 2);
+        productBySlot = Arrays.copyOf(productBySlot, newLength);
+        minPrices = Arrays.copyOf(minPrices, newLength);
+        maxPrices = Arrays.copyOf(maxPrices, newLength);
+        valuesBySlot = Arrays.copyOf(valuesBySlot, newLength);
+    }
+}
@@ -0,0 +1,296 @@
+package com.haui.coffee_shop.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.haui.coffee_shop.common.enums.Status;
+import com.haui.coffee_shop.common.event.CatalogChangedEvent;
+import com.haui.coffee_shop.model.Product;
+import com.haui.coffee_shop.repository.ProductRepository;
+import com.haui.coffee_shop.utils.TextNormalizer;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Chỉ mục đảo ngược trong bộ nhớ cho tìm kiếm sản phẩm: bỏ dấu tiếng Việt, khớp tiền tố,
+// chấp nhận gõ sai 1-2 ký tự và xếp hạng theo trọng số trường * idf
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+    private static final float NAME_WEIGHT = 5f;
+    private static final float BRAND_WEIGHT = 3f;
+    private static final float CATEGORY_WEIGHT = 2f;
+    private static final float ATTRIBUTE_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    private static final float PREFIX_FACTOR = 0.6f;
+    private static final float FUZZY_FACTOR = 0.4f;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int LONG_TERM_LENGTH = 8;
+
+    private final ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // term -> (productId -> trọng số của term trong sản phẩm)
+    private NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    // productId -> các term đã đánh chỉ mục, dùng để gỡ khi cập nhật/xóa
+    private Map<Long, Map<String, Float>> documents = new HashMap<>();
+    // bigram -> các term chứa bigram đó, dùng để lọc ứng viên cho tìm gần đúng
+    private Map<String, Set<String>> termsByBigram = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Product> products = productRepository.findByStatus(Status.ACTIVE);
+        NavigableMap<String, Map<Long, Float>> newPostings = new TreeMap<>();
+        Map<Long, Map<String, Float>> newDocuments = new HashMap<>();
+        Map<String, Set<String>> newTermsByBigram = new HashMap<>();
+        for (Product product : products) {
+            Map<String, Float> terms = analyze(product);
+            newDocuments.put(product.getId(), terms);
+            addPostings(newPostings, newTermsByBigram, product.getId(), terms);
+        }
+
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            documents = newDocuments;
+            termsByBigram = newTermsByBigram;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product search index built: {} products, {} terms", newDocuments.size(), newPostings.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        switch (event.getType()) {
+            case PRODUCT -> {
+                if (event.affectsAllProducts()) {
+                    rebuild();
+                } else {
+                    reindex(event.getProductId());
+                }
+            }
+            // Đổi tên thương hiệu/danh mục ảnh hưởng tới nhiều sản phẩm
+            case BRAND, CATEGORY -> rebuild();
+            default -> {
+            }
+        }
+    }
+
+    public void reindex(long productId) {
+        Map<String, Float> terms = productRepository.findById(productId)
+                .filter(product -> product.getStatus() == Status.ACTIVE)
+                .map(this::analyze)
+                .orElse(null);
+
+        lock.writeLock().lock();
+        try {
+            Map<String, Float> previous = documents.remove(productId);
+            if (previous != null) {
+                for (String term : previous.keySet()) {
+                    Map<Long, Float> docs = postings.get(term);
+                    if (docs != null) {
+                        docs.remove(productId);
+                        if (docs.isEmpty()) {
+                            postings.remove(term);
+                            removeBigrams(termsByBigram, term);
+                        }
+                    }
+                }
+            }
+            if (terms != null) {
+                documents.put(productId, terms);
+                addPostings(postings, termsByBigram, productId, terms);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Trả về id sản phẩm theo thứ tự liên quan giảm dần.
+    // Ưu tiên sản phẩm khớp nhiều từ khóa hơn, sau đó tới tổng điểm
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = TextNormalizer.tokenize(query).stream().distinct().toList();
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, Float> scores = new HashMap<>();
+        Map<Long, Integer> matchedTokens = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            for (String token : tokens) {
+                for (Map.Entry<Long, Float> entry : matchToken(token, documentCount).entrySet()) {
+                    scores.merge(entry.getKey(), entry.getValue(), Float::sum);
+                    matchedTokens.merge(entry.getKey(), 1, Integer::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return scores.keySet().stream()
+                .sorted(Comparator.<Long>comparingInt(matchedTokens::get).reversed()
+                        .thenComparing(Comparator.<Long, Float>comparing(scores::get).reversed())
+                        .thenComparing(Comparator.<Long>reverseOrder()))
+                .limit(limit)
+                .toList();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Float> matchToken(String token, int documentCount) {
+        Map<Long, Float> result = new HashMap<>();
+        Map<Long, Float> exact = postings.get(token);
+        if (exact != null) {
+            accumulate(result, exact, 1f, documentCount);
+        }
+
+        int expansions = 0;
+        for (Map<Long, Float> docs : postings.subMap(token, false, token + Character.MAX_VALUE, true).values()) {
+            if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            accumulate(result, docs, PREFIX_FACTOR, documentCount);
+        }
+
+        // Chỉ tìm gần đúng khi không có kết quả khớp chính xác hoặc theo tiền tố
+        if (result.isEmpty() && token.length() >= MIN_FUZZY_LENGTH) {
+            int maxDistance = token.length() >= LONG_TERM_LENGTH ? 2 : 1;
+            for (String term : fuzzyCandidates(token, maxDistance)) {
+                if (editDistance(token, term, maxDistance) <= maxDistance) {
+                    accumulate(result, postings.get(term), FUZZY_FACTOR, documentCount);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Mỗi phép sửa làm mất tối đa 2 bigram của token, nên term cách token không quá maxDistance
+    // phải chung ít nhất (số bigram của token - 2 * maxDistance) bigram và lệch độ dài không quá maxDistance.
+    // Chỉ tính khoảng cách sửa cho các term này thay vì duyệt toàn bộ từ điển
+    private List<String> fuzzyCandidates(String token, int maxDistance) {
+        Set<String> tokenBigrams = bigrams(token);
+        Map<String, Integer> sharedBigrams = new HashMap<>();
+        for (String bigram : tokenBigrams) {
+            for (String term : termsByBigram.getOrDefault(bigram, Collections.emptySet())) {
+                if (Math.abs(term.length() - token.length()) <= maxDistance) {
+                    sharedBigrams.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+
+        int minShared = Math.max(1, tokenBigrams.size() - 2 * maxDistance);
+        List<String> candidates = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : sharedBigrams.entrySet()) {
+            if (entry.getValue() >= minShared) {
+                candidates.add(entry.getKey());
+            }
+        }
+        return candidates;
+    }
+
+    private void accumulate(Map<Long, Float> result, Map<Long, Float> docs, float factor, int documentCount) {
+        float idf = (float) Math.log(1 + (double) documentCount / docs.size());
+        for (Map.Entry<Long, Float> entry : docs.entrySet()) {
+            // Một từ khóa khớp nhiều term của cùng sản phẩm chỉ tính term tốt nhất
+            result.merge(entry.getKey(), entry.getValue() * factor * idf, Math::max);
+        }
+    }
+
+    private Map<String, Float> analyze(Product product) {
+        Map<String, Float> terms = new HashMap<>();
+        addField(terms, product.getName(), NAME_WEIGHT);
+        addField(terms, product.getBrand() != null ? product.getBrand().getName() : null, BRAND_WEIGHT);
+        addField(terms, product.getCategory() != null ? product.getCategory().getName() : null, CATEGORY_WEIGHT);
+        addField(terms, product.getOrigin(), ATTRIBUTE_WEIGHT);
+        addField(terms, product.getBeanType(), ATTRIBUTE_WEIGHT);
+        addField(terms, product.getFlavoNotes(), ATTRIBUTE_WEIGHT);
+        if (product.getDescription() != null) {
+            // Mô tả có thể chứa HTML từ trình soạn thảo
+            addField(terms, product.getDescription().replaceAll("<[^>]*>", " "), DESCRIPTION_WEIGHT);
+        }
+        return terms;
+    }
+
+    private void addField(Map<String, Float> terms, String text, float weight) {
+        for (String token : TextNormalizer.tokenize(text)) {
+            terms.merge(token, weight, Math::max);
+        }
+    }
+
+    private static void addPostings(NavigableMap<String, Map<Long, Float>> target, Map<String, Set<String>> bigramTarget,
+                                    long productId, Map<String, Float> terms) {
+        for (Map.Entry<String, Float> term : terms.entrySet()) {
+            Map<Long, Float> docs = target.get(term.getKey());
+            if (docs == null) {
+                docs = new HashMap<>();
+                target.put(term.getKey(), docs);
+                for (String bigram : bigrams(term.getKey())) {
+                    bigramTarget.computeIfAbsent(bigram, key -> new HashSet<>()).add(term.getKey());
+                }
+            }
+            docs.put(productId, term.getValue());
+        }
+    }
+
+    private static void removeBigrams(Map<String, Set<String>> target, String term) {
+        for (String bigram : bigrams(term)) {
+            Set<String> terms = target.get(bigram);
+            if (terms != null) {
+                terms.remove(term);
+                if (terms.isEmpty()) {
+                    target.remove(bigram);
+                }
+            }
+        }
+    }
+
+    static Set<String> bigrams(String term) {
+        Set<String> bigrams = new HashSet<>();
+        for (int i = 0; i + 2 <= term.length(); i++) {
+            bigrams.add(term.substring(i, i + 2));
+        }
+        return bigrams;
+    }
+
+    // Khoảng cách Levenshtein, dừng sớm khi chắc chắn vượt quá maxDistance
+    static int editDistance(String a, String b, int maxDistance) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -1,9 +1,12 @@
 package com.haui.coffee_shop.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import com.haui.coffee_shop.cache.CatalogCache;
 import com.haui.coffee_shop.common.Constant;
 import com.haui.coffee_shop.common.enums.Status;
+import com.haui.coffee_shop.common.event.CatalogChangedEvent;
 import com.haui.coffee_shop.config.MessageBuilder;
 import com.haui.coffee_shop.exception.CoffeeShopException;
 import com.haui.coffee_shop.model.Brand;
@@ -20,6 +23,8 @@ import java.util.stream.Collectors;
 public class BrandService {
     private final BrandRepository brandRepository;
     private final MessageBuilder messageBuilder;
+    private final CatalogCache catalogCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     public RespMessage addBrand(BrandRequest brandRequest) {
         if (brandRequest.getName() == null || brandRequest.getName().trim().isEmpty()) {
@@ -39,6 +44,7 @@ public class BrandService {
         try {
             Brand savedBrand = brandRepository.save(brand);
             BrandResponse brandResponse = convertToBrandResponse(savedBrand);
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.BRAND, null));
             return messageBuilder.buildSuccessMessage(brandResponse);
         } catch (Exception e) {
             throw new CoffeeShopException(Constant.UNDEFINED, null, "Could not add brand");
@@ -46,14 +52,14 @@ public class BrandService {
     }
 
     public RespMessage getAllBrands() {
-        List<Brand> brands = brandRepository.getAll()
-                .stream().filter(brand -> brand.getStatus().equals(Status.ACTIVE)).toList();
-                
-        List<BrandResponse> brandResponses = brands.stream()
-                .map(this::convertToBrandResponse)
-                .collect(Collectors.toList());
-                
-        return messageBuilder.buildSuccessMessage(brandResponses);
+        return messageBuilder.buildSuccessMessage(catalogCache.get("brand:all", () -> {
+            List<Brand> brands = brandRepository.getAll()
+                    .stream().filter(brand -> brand.getStatus().equals(Status.ACTIVE)).toList();
+
+            return brands.stream()
+                    .map(this::convertToBrandResponse)
+                    .collect(Collectors.toList());
+        }));
     }
 
     public RespMessage updateBrand(long id, BrandRequest brandRequest) {
@@ -80,6 +86,7 @@ public class BrandService {
             try {
                 Brand savedBrand = brandRepository.save(brandEntity);
                 BrandResponse brandResponse = convertToBrandResponse(savedBrand);
+                eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.BRAND, null));
                 return messageBuilder.buildSuccessMessage(brandResponse);
             } catch (Exception e) {
                 throw new CoffeeShopException(Constant.UNDEFINED, null, "Could not update brand");
@@ -97,6 +104,7 @@ public class BrandService {
             try {
                 Brand savedBrand = brandRepository.save(brandToDelete);
                 BrandResponse brandResponse = convertToBrandResponse(savedBrand);
+                eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.BRAND, null));
                 return messageBuilder.buildSuccessMessage(brandResponse);
             } catch (Exception e) {
                 throw new CoffeeShopException(Constant.UNDEFINED, null, "Could not delete brand");
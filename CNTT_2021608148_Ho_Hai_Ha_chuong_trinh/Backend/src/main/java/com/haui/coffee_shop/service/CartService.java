@@ -18,6 +18,7 @@ import com.haui.coffee_shop.repository.ImageRepository;
 import com.haui.coffee_shop.repository.ProductItemRepository;
 import com.haui.coffee_shop.repository.UserRepository;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -96,15 +97,18 @@ public class CartService {
         try {
 
             List<CartItem> cartItems = cartItemRepository.findByUserId(userId);
-            List<CartItemResponse> cartItemResponses = cartItems.stream().map(cartItem -> {
-                ProductItemResponse productItemResponse = toProductItemResponse(cartItem.getProductItem());
-                return new CartItemResponse(
+            List<ProductItemResponse> productItemResponses = toProductItemResponses(
+                    cartItems.stream().map(CartItem::getProductItem).toList());
+            List<CartItemResponse> cartItemResponses = new ArrayList<>();
+            for (int i = 0; i < cartItems.size(); i++) {
+                CartItem cartItem = cartItems.get(i);
+                cartItemResponses.add(new CartItemResponse(
                         cartItem.getId(),
-                        productItemResponse,
+                        productItemResponses.get(i),
                         cartItem.getQuantity(),
                         cartItem.getUser().getId()
-                );
-            }).collect(Collectors.toList());
+                ));
+            }
             return messageBuilder.buildSuccessMessage(cartItemResponses);
         } catch (Exception e) {
             throw new CoffeeShopException(Constant.SYSTEM_ERROR, new Object[]{"CartItem"}, "Get Cart Item failed");
@@ -149,15 +153,26 @@ public class CartService {
     }
 
     public ProductItemResponse toProductItemResponse(ProductItem productItem) {
-        return ProductItemResponse.builder()
-                .id(productItem.getId())
-                .price(productItem.getPrice())
-                .stock(productItem.getStock())
-                .discount(productItem.getDiscount())
-                .productResponse(productService.getProductResponse(productItem.getProduct()))
-                .status(productItem.getStatus())
-                .type(productItem.getType())
-                .build();
+        return toProductItemResponses(List.of(productItem)).get(0);
+    }
+
+    public List<ProductItemResponse> toProductItemResponses(List<ProductItem> productItems) {
+        List<ProductResponse> productResponses = productService.getProductResponses(
+                productItems.stream().map(ProductItem::getProduct).toList());
+        List<ProductItemResponse> productItemResponses = new ArrayList<>();
+        for (int i = 0; i < productItems.size(); i++) {
+            ProductItem productItem = productItems.get(i);
+            productItemResponses.add(ProductItemResponse.builder()
+                    .id(productItem.getId())
+                    .price(productItem.getPrice())
+                    .stock(productItem.getStock())
+                    .discount(productItem.getDiscount())
+                    .productResponse(productResponses.get(i))
+                    .status(productItem.getStatus())
+                    .type(productItem.getType())
+                    .build());
+        }
+        return productItemResponses;
     }
 
 }
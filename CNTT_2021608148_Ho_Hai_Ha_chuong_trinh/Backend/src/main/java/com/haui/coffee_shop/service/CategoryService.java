@@ -1,10 +1,13 @@
 package com.haui.coffee_shop.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.haui.coffee_shop.cache.CatalogCache;
 import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.common.event.CatalogChangedEvent;
 import com.haui.coffee_shop.common.enums.Status;
 import com.haui.coffee_shop.config.MessageBuilder;
 import com.haui.coffee_shop.exception.CoffeeShopException;
@@ -12,7 +15,6 @@ import com.haui.coffee_shop.model.Category;
 import com.haui.coffee_shop.payload.response.RespMessage;
 import com.haui.coffee_shop.repository.CategoryRepository;
 
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -22,11 +24,13 @@ public class CategoryService {
     final CategoryRepository categoryRepository;
     final MessageBuilder messageBuilder;
     final CloudinaryService cloudinaryService;
+    final CatalogCache catalogCache;
+    final ApplicationEventPublisher eventPublisher;
 
     public RespMessage getAllCategories() {
-        List<Category> categories = categoryRepository.findAllCategories()
-                .stream().filter(category -> category.getStatus().equals(Status.ACTIVE)).toList();
-        return messageBuilder.buildSuccessMessage(categories);
+        return messageBuilder.buildSuccessMessage(catalogCache.get("category:all", () ->
+                categoryRepository.findAllCategories()
+                        .stream().filter(category -> category.getStatus().equals(Status.ACTIVE)).toList()));
     }
 
     public RespMessage getCategoryById(long id) {
@@ -65,6 +69,7 @@ public class CategoryService {
         }
         try {
             categoryRepository.save(category);
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.CATEGORY, null));
             return messageBuilder.buildSuccessMessage(category);
         } catch (Exception e) {
             throw new RuntimeException("Category could not be saved");
@@ -108,6 +113,7 @@ public class CategoryService {
         }
         try {
             categoryRepository.save(existingCategory);
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.CATEGORY, null));
             return messageBuilder.buildSuccessMessage(existingCategory);
         } catch (Exception e) {
             throw new RuntimeException("Category could not be saved");
@@ -124,6 +130,7 @@ public class CategoryService {
         category.setStatus(Status.INACTIVE);
         try {
             categoryRepository.save(category);
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.CATEGORY, null));
             return messageBuilder.buildSuccessMessage(category.getId());
         } catch (Exception e) {
             throw new RuntimeException("Category could not be deleted");
@@ -0,0 +1,227 @@
+package com.haui.coffee_shop.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.common.GsonUtil;
+import com.haui.coffee_shop.config.MessageBuilder;
+import com.haui.coffee_shop.exception.CoffeeShopException;
+import com.haui.coffee_shop.payload.request.OrderRequest;
+import com.haui.coffee_shop.payload.response.CheckoutTicketResponse;
+import com.haui.coffee_shop.payload.response.RespMessage;
+
+import jakarta.annotation.PreDestroy;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Checkout bất đồng bộ (bật bằng checkout.async.enabled): request được kiểm tra rồi đưa vào hàng đợi có giới hạn,
+// client nhận ticket ngay. Một số worker cố định lấy các đơn theo thứ tự đến, mỗi lần tối đa batch-size đơn,
+// và tạo cả lô trong một transaction với một lần trừ kho cho mỗi ProductItem (OrderService.addOrderBatch).
+// Hàng đợi đầy thì từ chối ngay (503) thay vì giữ thread Tomcat. Kết quả xem qua GET ticket hoặc, với người dùng
+// đã đăng nhập, /user/queue/checkout của phiên STOMP đã xác thực. Ticket chỉ nằm trong bộ nhớ: đơn còn trong hàng đợi khi tắt server sẽ mất (chưa trừ kho)
+@Service
+@Slf4j
+public class CheckoutQueueService {
+    public static final String TICKET_QUEUE = "/queue/checkout";
+    // Tên Authentication của khách chưa đăng nhập, không có phiên STOMP nào mang principal này
+    private static final Set<String> ANONYMOUS_OWNERS = Set.of("anonymous", "anonymousUser");
+
+    public enum TicketStatus {
+        QUEUED,
+        PROCESSING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final boolean enabled;
+    private final int workers;
+    private final int batchSize;
+    private final long ticketTtlMillis;
+    private final BlockingQueue<Ticket> queue;
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final OrderService orderService;
+    private final MessageBuilder messageBuilder;
+    private final SimpMessageSendingOperations simpMessageSendingOperations;
+
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    public CheckoutQueueService(@Value("${checkout.async.enabled:false}") boolean enabled,
+                                @Value("${checkout.async.queue-capacity:1000}") int queueCapacity,
+                                @Value("${checkout.async.workers:2}") int workers,
+                                @Value("${checkout.async.batch-size:50}") int batchSize,
+                                @Value("${checkout.async.ticket-ttl-seconds:600}") long ticketTtlSeconds,
+                                OrderService orderService,
+                                MessageBuilder messageBuilder,
+                                SimpMessageSendingOperations simpMessageSendingOperations) {
+        this.enabled = enabled;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.ticketTtlMillis = ticketTtlSeconds * 1000;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity, true);
+        this.orderService = orderService;
+        this.messageBuilder = messageBuilder;
+        this.simpMessageSendingOperations = simpMessageSendingOperations;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        AtomicInteger sequence = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "checkout-worker-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::work);
+        }
+        log.info("Async checkout started with {} workers, queue capacity {}", workers, queue.remainingCapacity());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    public CheckoutTicketResponse submit(OrderRequest orderRequest, String owner) {
+        if (!enabled) {
+            throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"checkout"}, "Async checkout is disabled");
+        }
+        // Lỗi dữ liệu trả về ngay, không chiếm chỗ trong hàng đợi
+        orderService.validateOrderRequest(orderRequest);
+
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), owner, orderRequest);
+        tickets.put(ticket.id, ticket);
+        if (!queue.offer(ticket)) {
+            tickets.remove(ticket.id);
+            throw new CoffeeShopException(Constant.SERVICE_BUSY, null, "Checkout queue is full, please retry later");
+        }
+        return toResponse(ticket);
+    }
+
+    public CheckoutTicketResponse getTicket(String ticketId, String owner) {
+        Ticket ticket = tickets.get(ticketId);
+        if (ticket == null || !ticket.owner.equals(owner)) {
+            throw new CoffeeShopException(Constant.NOT_FOUND, new Object[]{"ticket"}, "Checkout ticket not found");
+        }
+        return toResponse(ticket);
+    }
+
+    @Scheduled(fixedDelayString = "${checkout.async.cleanup-ms:60000}")
+    public void removeExpiredTickets() {
+        long expiredBefore = System.currentTimeMillis() - ticketTtlMillis;
+        tickets.values().removeIf(ticket -> ticket.completedAt != null && ticket.completedAt.getTime() < expiredBefore);
+    }
+
+    private void work() {
+        List<Ticket> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Ticket first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Checkout worker failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<Ticket> batch) {
+        batch.forEach(ticket -> ticket.status = TicketStatus.PROCESSING);
+        List<RespMessage> results;
+        try {
+            results = orderService.addOrderBatch(batch.stream().map(ticket -> ticket.request).toList());
+        } catch (RuntimeException e) {
+            // Cả lô đã rollback: xử lý lại từng đơn để một đơn lỗi không kéo theo các đơn khác
+            log.warn("Checkout batch of {} orders failed, processing them one by one", batch.size(), e);
+            results = new ArrayList<>(batch.size());
+            for (Ticket ticket : batch) {
+                results.add(addSingle(ticket.request));
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            complete(batch.get(i), results.get(i));
+        }
+    }
+
+    private RespMessage addSingle(OrderRequest orderRequest) {
+        try {
+            return orderService.addOrder(orderRequest);
+        } catch (CoffeeShopException e) {
+            return messageBuilder.buildFailureMessage(e.getCode(), e.getObjects(), e.getMessage());
+        } catch (RuntimeException e) {
+            return messageBuilder.buildFailureMessage(Constant.UNDEFINED, null, e.getMessage());
+        }
+    }
+
+    private void complete(Ticket ticket, RespMessage result) {
+        ticket.result = result;
+        ticket.completedAt = new Date();
+        ticket.status = Constant.SUCCESS.equals(result.getRespCode()) ? TicketStatus.COMPLETED : TicketStatus.FAILED;
+        if (!ANONYMOUS_OWNERS.contains(ticket.owner)) {
+            simpMessageSendingOperations.convertAndSendToUser(ticket.owner, TICKET_QUEUE,
+                    GsonUtil.getInstance().toJson(messageBuilder.buildSuccessMessage(toResponse(ticket))));
+        }
+    }
+
+    private CheckoutTicketResponse toResponse(Ticket ticket) {
+        return CheckoutTicketResponse.builder()
+                .ticketId(ticket.id)
+                .status(ticket.status.toString())
+                .createdAt(ticket.createdAt)
+                .completedAt(ticket.completedAt)
+                .result(ticket.result)
+                .build();
+    }
+
+    private static class Ticket {
+        private final String id;
+        private final String owner;
+        private final OrderRequest request;
+        private final Date createdAt = new Date();
+        private volatile TicketStatus status = TicketStatus.QUEUED;
+        private volatile RespMessage result;
+        private volatile Date completedAt;
+
+        private Ticket(String id, String owner, OrderRequest request) {
+            this.id = id;
+            this.owner = owner;
+            this.request = request;
+        }
+    }
+}
@@ -40,17 +40,20 @@ public class FavoriteProductService {
             throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"UserId"}, "UserId invalid");
         }
 
-        List<FavoriteProduct> favoriteProducts = favoriteProductRepository.findByUserId(userId);
-        List<FavoriteProductResponse> favoriteProductResponses = favoriteProducts.stream()
+        List<FavoriteProduct> favoriteProducts = favoriteProductRepository.findByUserId(userId).stream()
                 .filter(favoriteProduct -> favoriteProduct.getProduct().getStatus().equals(Status.ACTIVE))
-                .map(favoriteProduct -> {
-                    ProductResponse productResponse =productService.getProductResponse(favoriteProduct.getProduct());
-                    return new FavoriteProductResponse(
-                            favoriteProduct.getId(),
-                            productResponse,
-                            favoriteProduct.getUser().getId()
-                    );
-                }).collect(Collectors.toList());
+                .toList();
+        List<ProductResponse> productResponses = productService.getProductResponses(
+                favoriteProducts.stream().map(FavoriteProduct::getProduct).toList());
+        List<FavoriteProductResponse> favoriteProductResponses = new ArrayList<>();
+        for (int i = 0; i < favoriteProducts.size(); i++) {
+            FavoriteProduct favoriteProduct = favoriteProducts.get(i);
+            favoriteProductResponses.add(new FavoriteProductResponse(
+                    favoriteProduct.getId(),
+                    productResponses.get(i),
+                    favoriteProduct.getUser().getId()
+            ));
+        }
 
         return messageBuilder.buildSuccessMessage(favoriteProductResponses);
     }
@@ -0,0 +1,176 @@
+package com.haui.coffee_shop.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.haui.coffee_shop.common.enums.OrderStatus;
+import com.haui.coffee_shop.common.enums.Status;
+import com.haui.coffee_shop.common.event.CatalogChangedEvent;
+import com.haui.coffee_shop.common.event.OrderStatusChangedEvent;
+import com.haui.coffee_shop.model.Order;
+import com.haui.coffee_shop.model.OrderItem;
+import com.haui.coffee_shop.model.Product;
+import com.haui.coffee_shop.repository.OrderItemRepository;
+import com.haui.coffee_shop.repository.ProductRepository;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Bảng xếp hạng bán chạy 90 ngày gần nhất, giữ trong bộ nhớ theo từng ngày (theo ngày đặt hàng).
+// Cộng dồn khi đơn chuyển sang Completed, bucket quá hạn được trừ khỏi tổng bởi job hằng ngày
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LeaderboardService {
+    public static final int WINDOW_DAYS = 90;
+
+    private final OrderItemRepository orderItemRepository;
+    private final ProductRepository productRepository;
+
+    // ngày -> (productId -> số lượng bán trong ngày)
+    private final NavigableMap<LocalDate, Map<Long, Long>> buckets = new TreeMap<>();
+    // Tổng cuốn chiếu của cả cửa sổ, đọc không cần khóa
+    private final Map<Long, Long> totals = new ConcurrentHashMap<>();
+    private final Map<Long, ProductMeta> productMeta = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        LocalDate fromDay = windowStart();
+        Date fromDate = Date.from(fromDay.atStartOfDay(ZoneId.systemDefault()).toInstant());
+
+        buckets.clear();
+        totals.clear();
+        for (Object[] row : orderItemRepository.sumCompletedAmountByProductAndDay(fromDate)) {
+            long productId = ((Number) row[0]).longValue();
+            LocalDate day = toLocalDate(row[1]);
+            long amount = ((Number) row[2]).longValue();
+            add(day, productId, amount);
+        }
+        refreshMeta(new ArrayList<>(totals.keySet()));
+        log.info("Leaderboard loaded: {} products over {} days", totals.size(), buckets.size());
+    }
+
+    // Một sự kiện có thể chứa nhiều đơn (chuyển trạng thái hàng loạt): nạp dòng hàng của tất cả trong một truy vấn
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getStatus() != OrderStatus.Completed) {
+            return;
+        }
+        Map<Long, List<OrderItem>> itemsByOrder = new LinkedHashMap<>();
+        for (OrderItem orderItem : orderItemRepository.findWithProductByOrderIdIn(event.getOrderIds())) {
+            itemsByOrder.computeIfAbsent(orderItem.getOrder().getId(), id -> new ArrayList<>()).add(orderItem);
+        }
+        for (List<OrderItem> orderItems : itemsByOrder.values()) {
+            recordCompletedOrder(orderItems.get(0).getOrder(), orderItems);
+        }
+    }
+
+    public synchronized void recordCompletedOrder(Order order, List<OrderItem> orderItems) {
+        LocalDate day = order.getOrderDate() != null
+                ? order.getOrderDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate()
+                : LocalDate.now();
+        if (day.isBefore(windowStart())) {
+            return;
+        }
+        for (OrderItem orderItem : orderItems) {
+            Product product = orderItem.getProductItem().getProduct();
+            add(day, product.getId(), orderItem.getAmount());
+            productMeta.put(product.getId(), ProductMeta.of(product));
+        }
+    }
+
+    @Scheduled(cron = "${leaderboard.expire-cron:0 5 0 * * *}")
+    public synchronized void expireOldBuckets() {
+        LocalDate windowStart = windowStart();
+        int expired = 0;
+        while (!buckets.isEmpty() && buckets.firstKey().isBefore(windowStart)) {
+            Map<Long, Long> bucket = buckets.pollFirstEntry().getValue();
+            for (Map.Entry<Long, Long> entry : bucket.entrySet()) {
+                Long remaining = totals.computeIfPresent(entry.getKey(), (id, total) -> total - entry.getValue());
+                if (remaining != null && remaining <= 0) {
+                    totals.remove(entry.getKey());
+                    productMeta.remove(entry.getKey());
+                }
+            }
+            expired++;
+        }
+        if (expired > 0) {
+            log.info("Leaderboard expired {} daily buckets", expired);
+        }
+    }
+
+    // Danh mục/thương hiệu/trạng thái của sản phẩm có thể đổi, cập nhật lại thông tin lọc
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        switch (event.getType()) {
+            case PRODUCT -> {
+                if (event.affectsAllProducts()) {
+                    refreshMeta(new ArrayList<>(totals.keySet()));
+                } else if (totals.containsKey(event.getProductId())) {
+                    refreshMeta(List.of(event.getProductId()));
+                }
+            }
+            case BRAND, CATEGORY -> refreshMeta(new ArrayList<>(totals.keySet()));
+            default -> {
+            }
+        }
+    }
+
+    // Top sản phẩm đang ACTIVE, lọc theo danh mục/thương hiệu nếu có
+    public List<Long> topProducts(Long categoryId, Long brandId, int limit) {
+        return totals.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .filter(entry -> {
+                    ProductMeta meta = productMeta.get(entry.getKey());
+                    return meta != null && meta.active()
+                            && (categoryId == null || categoryId.equals(meta.categoryId()))
+                            && (brandId == null || brandId.equals(meta.brandId()));
+                })
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private void add(LocalDate day, long productId, long amount) {
+        buckets.computeIfAbsent(day, d -> new HashMap<>()).merge(productId, amount, Long::sum);
+        totals.merge(productId, amount, Long::sum);
+    }
+
+    private void refreshMeta(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        for (Product product : productRepository.findAllById(productIds)) {
+            productMeta.put(product.getId(), ProductMeta.of(product));
+        }
+    }
+
+    private static LocalDate windowStart() {
+        return LocalDate.now().minusDays(WINDOW_DAYS);
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate localDate) {
+            return localDate;
+        }
+        return ((java.sql.Date) value).toLocalDate();
+    }
+
+    private record ProductMeta(Long categoryId, Long brandId, boolean active) {
+        static ProductMeta of(Product product) {
+            return new ProductMeta(
+                    product.getCategory() != null ? product.getCategory().getId() : null,
+                    product.getBrand() != null ? product.getBrand().getId() : null,
+                    product.getStatus() == Status.ACTIVE);
+        }
+    }
+}
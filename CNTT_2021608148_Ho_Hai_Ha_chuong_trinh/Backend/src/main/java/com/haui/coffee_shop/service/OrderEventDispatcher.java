@@ -0,0 +1,87 @@
+package com.haui.coffee_shop.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.haui.coffee_shop.config.SchedulerConfig;
+import com.haui.coffee_shop.model.OrderOutboxEvent;
+import com.haui.coffee_shop.repository.OrderOutboxRepository;
+import com.haui.coffee_shop.repository.UserRepository;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Đọc order_outbox và đẩy sự kiện qua STOMP broker: nhân viên nghe /topic/admin/orders,
+// khách hàng (phiên STOMP đã xác thực) nghe /user/queue/orders và chỉ nhận sự kiện đơn của mình. Gửi ít nhất một lần, client bỏ qua sự kiện trùng theo orderId/occurredAt
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class OrderEventDispatcher {
+    public static final String ADMIN_TOPIC = "/topic/admin/orders";
+    public static final String USER_QUEUE = "/queue/orders";
+    private static final int BATCH_SIZE = 200;
+
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final UserRepository userRepository;
+    private final SimpMessageSendingOperations simpMessageSendingOperations;
+
+    @Value("${order.outbox.retention-days:7}")
+    private int retentionDays;
+
+    @Scheduled(fixedDelayString = "${order.outbox.dispatch-ms:500}", scheduler = SchedulerConfig.ORDER_EVENT_SCHEDULER)
+    @Transactional
+    public void dispatch() {
+        List<OrderOutboxEvent> events = orderOutboxRepository.lockUnpublished(BATCH_SIZE);
+        if (events.isEmpty()) {
+            return;
+        }
+        Map<Long, String> emails = loadEmails(events);
+        Date now = new Date();
+        for (OrderOutboxEvent event : events) {
+            simpMessageSendingOperations.convertAndSend(ADMIN_TOPIC, event.getPayload());
+            String email = event.getUserId() == null ? null : emails.get(event.getUserId());
+            if (email != null) {
+                // Tên principal của phiên STOMP là email (CustomUserDetailsService)
+                simpMessageSendingOperations.convertAndSendToUser(email, USER_QUEUE, event.getPayload());
+            }
+            event.setPublishedAt(now);
+        }
+        log.debug("Dispatched {} order events", events.size());
+    }
+
+    private Map<Long, String> loadEmails(List<OrderOutboxEvent> events) {
+        Set<Long> userIds = events.stream()
+                .map(OrderOutboxEvent::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, String> emails = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            for (Object[] row : userRepository.findEmailsByIdIn(userIds)) {
+                emails.put((Long) row[0], (String) row[1]);
+            }
+        }
+        return emails;
+    }
+
+    @Scheduled(cron = "${order.outbox.cleanup-cron:0 30 0 * * *}")
+    @Transactional
+    public void cleanUp() {
+        Date before = Date.from(Instant.now().minus(retentionDays, ChronoUnit.DAYS));
+        int deleted = orderOutboxRepository.deletePublishedBefore(before);
+        if (deleted > 0) {
+            log.info("Deleted {} published order events", deleted);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.haui.coffee_shop.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.haui.coffee_shop.common.GsonUtil;
+import com.haui.coffee_shop.common.enums.OrderEventType;
+import com.haui.coffee_shop.common.enums.OrderStatus;
+import com.haui.coffee_shop.model.Order;
+import com.haui.coffee_shop.model.OrderOutboxEvent;
+import com.haui.coffee_shop.repository.OrderOutboxRepository;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Ghi sự kiện đơn hàng vào bảng order_outbox. Bắt buộc chạy trong transaction đang thay đổi đơn hàng
+// để sự kiện chỉ tồn tại khi thay đổi đã commit
+@Service
+@RequiredArgsConstructor
+public class OrderEventService {
+    private final OrderOutboxRepository orderOutboxRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Order order, OrderEventType type) {
+        Long userId = order.getShippingAddress() != null && order.getShippingAddress().getUser() != null
+                ? order.getShippingAddress().getUser().getId()
+                : null;
+        orderOutboxRepository.save(newEvent(order.getId(), userId, type, order.getStatus(), order.getTotal()));
+    }
+
+    // userIdsByOrder: orderId -> userId của các đơn vừa chuyển sang status, totalsByOrder: orderId -> total
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStatusChanged(Map<Long, Long> userIdsByOrder, Map<Long, Double> totalsByOrder, OrderStatus status) {
+        List<OrderOutboxEvent> events = new ArrayList<>(userIdsByOrder.size());
+        userIdsByOrder.forEach((orderId, userId) ->
+                events.add(newEvent(orderId, userId, OrderEventType.STATUS_CHANGED, status, totalsByOrder.get(orderId))));
+        orderOutboxRepository.saveAll(events);
+    }
+
+    private OrderOutboxEvent newEvent(long orderId, Long userId, OrderEventType type, OrderStatus status, Double total) {
+        Date now = new Date();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", type.toString());
+        payload.put("orderId", orderId);
+        payload.put("status", status == null ? null : status.toString());
+        payload.put("total", total);
+        payload.put("occurredAt", now.getTime());
+        return OrderOutboxEvent.builder()
+                .orderId(orderId)
+                .userId(userId)
+                .type(type)
+                .payload(GsonUtil.getInstance().toJson(payload))
+                .createdAt(now)
+                .build();
+    }
+}
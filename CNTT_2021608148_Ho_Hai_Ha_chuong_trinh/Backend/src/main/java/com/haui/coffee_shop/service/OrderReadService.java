@@ -0,0 +1,104 @@
+package com.haui.coffee_shop.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.model.Order;
+import com.haui.coffee_shop.model.OrderItem;
+import com.haui.coffee_shop.payload.response.OrderItemResponse;
+import com.haui.coffee_shop.payload.response.OrderResponse;
+import com.haui.coffee_shop.repository.ImageRepository;
+import com.haui.coffee_shop.repository.OrderItemRepository;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Dựng OrderResponse cho danh sách đơn hàng bằng số truy vấn cố định trên mỗi lô:
+// một truy vấn dòng hàng (kèm sản phẩm, loại) và một truy vấn ảnh đại diện
+@Service
+@RequiredArgsConstructor
+public class OrderReadService {
+    // Giới hạn số tham số trong mệnh đề IN
+    private static final int BATCH_SIZE = 1000;
+
+    private final OrderItemRepository orderItemRepository;
+    private final ImageRepository imageRepository;
+
+    // Các đơn hàng phải được nạp kèm địa chỉ giao hàng (OrderRepository.ORDER_WITH_ADDRESS)
+    public List<OrderResponse> toOrderResponses(List<Order> orders) {
+        List<OrderResponse> orderResponses = new ArrayList<>(orders.size());
+        for (int from = 0; from < orders.size(); from += BATCH_SIZE) {
+            List<Order> batch = orders.subList(from, Math.min(from + BATCH_SIZE, orders.size()));
+            orderResponses.addAll(toOrderResponseBatch(batch));
+        }
+        return orderResponses;
+    }
+
+    public OrderResponse toOrderResponse(Order order) {
+        return toOrderResponseBatch(List.of(order)).get(0);
+    }
+
+    private List<OrderResponse> toOrderResponseBatch(List<Order> orders) {
+        List<Long> orderIds = orders.stream().map(Order::getId).toList();
+        Map<Long, List<OrderItem>> itemsByOrder = orderItemRepository.findWithProductByOrderIdIn(orderIds).stream()
+                .collect(Collectors.groupingBy(orderItem -> orderItem.getOrder().getId()));
+
+        Set<Long> productIds = itemsByOrder.values().stream()
+                .flatMap(List::stream)
+                .map(orderItem -> orderItem.getProductItem().getProduct().getId())
+                .collect(Collectors.toSet());
+        Map<Long, String> imageByProduct = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            for (Object[] row : imageRepository.findThumbnails(productIds)) {
+                imageByProduct.put((Long) row[0], (String) row[1]);
+            }
+        }
+
+        List<OrderResponse> orderResponses = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            List<OrderItem> orderItems = itemsByOrder.getOrDefault(order.getId(), new ArrayList<>());
+            OrderResponse orderResponse = new OrderResponse();
+            orderResponse.setOrderId(order.getId());
+            orderResponse.setOrderDate(order.getOrderDate());
+            orderResponse.setOrderStatus(order.getStatus().toString());
+            orderResponse.setPaymentMethod(order.getPaymentMethod().toString());
+            orderResponse.setShippingAddress(order.getShippingAddress().toResponse());
+            orderResponse.setOrderItems(orderItems.stream()
+                    .map(orderItem -> toOrderItemResponse(orderItem, imageByProduct))
+                    .toList());
+            if (order.getTotal() != null) {
+                orderResponse.setSubtotal(order.getSubtotal());
+                orderResponse.setShippingFee(order.getShippingFee());
+                orderResponse.setTotal(order.getTotal());
+            } else {
+                // Đơn cũ chưa được backfill
+                double subtotal = 0;
+                for (OrderItem orderItem : orderItems) {
+                    subtotal += (orderItem.getPrice() - orderItem.getDiscount()) * orderItem.getAmount();
+                }
+                orderResponse.setSubtotal(subtotal);
+                orderResponse.setShippingFee(Constant.SHIPPING_FEE);
+                orderResponse.setTotal(subtotal + Constant.SHIPPING_FEE);
+            }
+            orderResponses.add(orderResponse);
+        }
+        return orderResponses;
+    }
+
+    private OrderItemResponse toOrderItemResponse(OrderItem orderItem, Map<Long, String> imageByProduct) {
+        long productId = orderItem.getProductItem().getProduct().getId();
+        return OrderItemResponse.builder()
+                .orderItemId(orderItem.getId())
+                .productItemId(orderItem.getProductItem().getId())
+                .productId(productId)
+                .productName(orderItem.getProductItem().getProduct().getName())
+                .productType(orderItem.getProductItem().getType().getName())
+                .amount(orderItem.getAmount())
+                .price(orderItem.getPrice())
+                .discount(orderItem.getDiscount())
+                .isReviewed(orderItem.isReviewed())
+                .productImage(imageByProduct.getOrDefault(productId, ""))
+                .build();
+    }
+}
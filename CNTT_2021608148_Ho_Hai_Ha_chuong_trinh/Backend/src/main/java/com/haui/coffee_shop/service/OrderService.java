@@ -1,15 +1,10 @@
 package com.haui.coffee_shop.service;
 
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.HorizontalAlignment;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.VerticalAlignment;
-import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.FileSystemResource;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
@@ -17,58 +12,66 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.apache.poi.ss.usermodel.Workbook;
 
 import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.common.enums.OrderEventType;
 import com.haui.coffee_shop.common.enums.OrderStatus;
 import com.haui.coffee_shop.common.enums.PaymentMethod;
 import com.haui.coffee_shop.common.enums.Status;
+import com.haui.coffee_shop.common.event.CatalogChangedEvent;
+import com.haui.coffee_shop.common.event.OrderStatusChangedEvent;
 import com.haui.coffee_shop.config.MessageBuilder;
 import com.haui.coffee_shop.exception.CoffeeShopException;
+import com.haui.coffee_shop.export.ExcelExportService;
+import com.haui.coffee_shop.export.ExportFormat;
+import com.haui.coffee_shop.export.ExportJobService;
+import com.haui.coffee_shop.export.FlatExportService;
+import com.haui.coffee_shop.export.InvoiceArchiveService;
+import com.haui.coffee_shop.export.InvoiceRenderer;
 import com.haui.coffee_shop.model.*;
+import com.haui.coffee_shop.payload.request.BulkOrderStatusRequest;
 import com.haui.coffee_shop.payload.request.OrderItemRequest;
 import com.haui.coffee_shop.payload.request.OrderRequest;
-import com.haui.coffee_shop.payload.response.OrderItemResponse;
+import com.haui.coffee_shop.payload.response.BulkOrderStatusResponse;
+import com.haui.coffee_shop.payload.response.ExportJobResponse;
+import com.haui.coffee_shop.payload.response.OrderPageResponse;
 import com.haui.coffee_shop.payload.response.OrderResponse;
 import com.haui.coffee_shop.payload.response.RespMessage;
 import com.haui.coffee_shop.payload.response.ShippingAddressResponse;
 import com.haui.coffee_shop.repository.*;
-import com.itextpdf.text.BaseColor;
-import com.itextpdf.text.Chunk;
-import com.itextpdf.text.Document;
-import com.itextpdf.text.Element;
-import com.itextpdf.text.Font;
-import com.itextpdf.text.FontFactory;
-import com.itextpdf.text.PageSize;
-import com.itextpdf.text.Paragraph;
-import com.itextpdf.text.Phrase;
-import com.itextpdf.text.Rectangle;
-import com.itextpdf.text.pdf.BaseFont;
-import com.itextpdf.text.pdf.PdfPCell;
-import com.itextpdf.text.pdf.PdfPTable;
-import com.itextpdf.text.pdf.PdfWriter;
 
 import jakarta.mail.internet.MimeMessage;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletResponse;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.text.DecimalFormat;
-import java.text.SimpleDateFormat;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongConsumer;
 
 @Service
 public class OrderService {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_BULK_SIZE = 1000;
+    public static final String ORDER_EXPORT_FILE_NAME = "danh_sach_don_hang.xlsx";
+    private static final String INSERT_ORDER_ITEM_SQL = "INSERT INTO order_item (amount, price, discount, product_item_id, order_id, is_reviewed, stock_applied) " +
+            "VALUES (?, ?, ?, ?, ?, false, ?)";
 
     @Autowired
     private OrderRepository orderRepository;
@@ -88,60 +91,162 @@ public class OrderService {
     private JavaMailSender mailSender;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private ProductStatsService productStatsService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private OrderReadService orderReadService;
+    @Autowired
+    private StockService stockService;
+    @Autowired
+    private OrderEventService orderEventService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ExcelExportService excelExportService;
+    @Autowired
+    private ExportJobService exportJobService;
+    @Autowired
+    private FlatExportService flatExportService;
+    @Autowired
+    private InvoiceRenderer invoiceRenderer;
+    @Autowired
+    private InvoiceArchiveService invoiceArchiveService;
 
+    @Transactional(readOnly = true)
     public RespMessage getAllOrders(Date startDate,Date endDate) {
         List<Order> orders = orderRepository.findAllFilterOrderDate(startDate,endDate);
-        List<OrderResponse> orderResponses = new ArrayList<>();
-        for (Order order : orders) {
-            OrderResponse orderResponse = new OrderResponse();
-            orderResponse.setOrderId(order.getId());
-            orderResponse.setOrderDate(order.getOrderDate());
-            orderResponse.setOrderStatus(order.getStatus().toString());
-            orderResponse.setPaymentMethod(order.getPaymentMethod().toString());
-            orderResponse.setShippingAddress(order.getShippingAddress().toResponse());
-            List<OrderItem> orderItems = orderItemRepository.findByOrderId(order.getId());
-            List<OrderItemResponse> orderItemResponses = orderItems.stream().map(this::toOrderItemResponse).toList();
-            double totalPrice = 0;
-            for (OrderItem orderItem : orderItems) {
-                totalPrice += (orderItem.getPrice() - orderItem.getDiscount())*orderItem.getAmount();
+        return messageBuilder.buildSuccessMessage(orderReadService.toOrderResponses(orders));
+    }
+
+    // Tìm kiếm đơn hàng cho trang quản trị, phân trang theo keyset (order_date, id) giảm dần.
+    // toDate được tính trọn ngày
+    @Transactional(readOnly = true)
+    public RespMessage searchOrders(OrderStatus status, PaymentMethod paymentMethod, Date fromDate, Date toDate,
+                                    String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"size"}, "Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        long[] position = decodeOrderCursor(cursor);
+        Date toExclusive = toDate == null ? null : Date.from(toDate.toInstant().plus(1, ChronoUnit.DAYS));
+
+        // Lấy dư một phần tử để biết còn trang sau hay không
+        List<Order> orders = orderRepository.searchPage(status, paymentMethod, fromDate, toExclusive,
+                position == null ? null : new Date(position[0]),
+                position == null ? null : position[1],
+                PageRequest.of(0, pageSize + 1));
+        boolean hasNext = orders.size() > pageSize;
+        List<Order> pageOrders = hasNext ? orders.subList(0, pageSize) : orders;
+
+        String nextCursor = null;
+        if (hasNext) {
+            Order last = pageOrders.get(pageOrders.size() - 1);
+            String raw = last.getOrderDate().getTime() + ":" + last.getId();
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        OrderPageResponse pageResponse = OrderPageResponse.builder()
+                .items(orderReadService.toOrderResponses(pageOrders))
+                .size(pageSize)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+        return messageBuilder.buildSuccessMessage(pageResponse);
+    }
+
+    private long[] decodeOrderCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Cursor must have 2 parts");
             }
-            totalPrice += 10000;
-            orderResponse.setOrderItems(orderItemResponses);
-            orderResponse.setTotal(totalPrice);
-            orderResponses.add(orderResponse);
+            return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+        } catch (IllegalArgumentException e) {
+            throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"cursor"}, "Cursor is not valid");
         }
-        return messageBuilder.buildSuccessMessage(orderResponses);
     }
 
+    @Transactional(readOnly = true)
     public RespMessage getOrderById(long orderId) {
-        Optional<Order> orderOptional = orderRepository.findById(orderId);
+        Optional<Order> orderOptional = orderRepository.findWithAddressById(orderId);
         if (orderOptional.isPresent()) {
-            Order order = orderOptional.get();
-            List<OrderItem> orderItems = orderItemRepository.findByOrderId(orderId);
-            OrderResponse orderResponse = new OrderResponse();
-            orderResponse.setOrderId(order.getId());
-            orderResponse.setOrderDate(order.getOrderDate());
-            List<OrderItemResponse> orderItemResponses = orderItems.stream().map(this::toOrderItemResponse).toList();
-            double totalPrice = 0;
-            for (OrderItem orderItem : orderItems) {
-                totalPrice += (orderItem.getPrice() - orderItem.getDiscount())*orderItem.getAmount();
-            }
-            totalPrice += 10000;
-            orderResponse.setOrderItems(orderItemResponses);
-            orderResponse.setTotal(totalPrice);
-            orderResponse.setOrderStatus(order.getStatus().toString());
-            orderResponse.setShippingAddress(order.getShippingAddress().toResponse());
-            orderResponse.setPaymentMethod(order.getPaymentMethod().toString());
-            return messageBuilder.buildSuccessMessage(orderResponse);
+            return messageBuilder.buildSuccessMessage(orderReadService.toOrderResponse(orderOptional.get()));
         }
         throw new RuntimeException("Order not found");
     }
 
     @Transactional
     public RespMessage addOrder(OrderRequest orderRequest){
-        if (orderRequest.getOrderItems().isEmpty()) {
+        ShippingAddress shippingAddress = validateOrderRequest(orderRequest);
+        // Gộp số lượng theo ProductItem rồi trừ kho nguyên tử
+        Map<Long, Integer> amounts = sumAmounts(orderRequest);
+        Map<Long, Integer> remaining = stockService.reserve(amounts);
+        updateSoldStats(amounts, remaining);
+        try {
+            Order order = createOrder(orderRequest, shippingAddress);
+            return messageBuilder.buildSuccessMessage(order.getId());
+        } catch (Exception e) {
+            throw new CoffeeShopException(Constant.SYSTEM_ERROR, new Object[]{"order"}, "Order can not be added");
+        }
+    }
+
+    // Tạo nhiều đơn trong một transaction, kho của mỗi ProductItem chỉ được cập nhật một lần (hàng đợi checkout).
+    // Đơn không hợp lệ hoặc thiếu hàng nhận thông báo lỗi riêng, kết quả trả về theo đúng thứ tự requests.
+    // Lỗi hệ thống làm rollback cả lô, phía gọi tự xử lý lại từng đơn
+    @Transactional
+    public List<RespMessage> addOrderBatch(List<OrderRequest> orderRequests) {
+        int size = orderRequests.size();
+        List<RespMessage> results = new ArrayList<>(Collections.nCopies(size, null));
+        List<ShippingAddress> shippingAddresses = new ArrayList<>(Collections.nCopies(size, null));
+        List<Map<Long, Integer>> amountsByOrder = new ArrayList<>(Collections.nCopies(size, null));
+        for (int i = 0; i < size; i++) {
+            try {
+                shippingAddresses.set(i, validateOrderRequest(orderRequests.get(i)));
+                amountsByOrder.set(i, sumAmounts(orderRequests.get(i)));
+            } catch (CoffeeShopException e) {
+                results.set(i, messageBuilder.buildFailureMessage(e.getCode(), e.getObjects(), e.getMessage()));
+            }
+        }
+
+        Map<Long, Integer> remaining = new HashMap<>();
+        List<CoffeeShopException> stockErrors = stockService.reserveBatch(amountsByOrder, remaining);
+        Map<Long, Integer> soldAmounts = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            CoffeeShopException error = stockErrors.get(i);
+            if (error != null) {
+                results.set(i, messageBuilder.buildFailureMessage(error.getCode(), error.getObjects(), error.getMessage()));
+            } else if (amountsByOrder.get(i) != null) {
+                amountsByOrder.get(i).forEach((productItemId, amount) -> soldAmounts.merge(productItemId, amount, Integer::sum));
+            }
+        }
+        updateSoldStats(soldAmounts, remaining);
+
+        for (int i = 0; i < size; i++) {
+            if (results.get(i) == null) {
+                Order order = createOrder(orderRequests.get(i), shippingAddresses.get(i));
+                results.set(i, messageBuilder.buildSuccessMessage(order.getId()));
+            }
+        }
+        return results;
+    }
+
+    // Kiểm tra đơn hàng trước khi trừ kho, dùng chung cho checkout đồng bộ và hàng đợi checkout
+    @Transactional(readOnly = true)
+    public ShippingAddress validateOrderRequest(OrderRequest orderRequest) {
+        if (orderRequest.getOrderItems() == null || orderRequest.getOrderItems().isEmpty()) {
             throw new CoffeeShopException(Constant.FIELD_NOT_NULL, new Object[] {"order_items"}, "OrderItems cannot be empty");
         }
+        for (OrderItemRequest orderItemRequest : orderRequest.getOrderItems()) {
+            if (orderItemRequest.getAmount() <= 0) {
+                throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[] {"order_amount"}, "Amount Item must be greater than 0");
+            }
+        }
         Optional<ShippingAddress> shippingAddress = shippingAddressRepository.findById(orderRequest.getShippingAddressId());
         if ( shippingAddress.isEmpty() ){
             throw new CoffeeShopException(Constant.FIELD_NOT_NULL, new Object[] {"shipping_address"}, "ShippingAddress cannot be null");
@@ -150,52 +255,67 @@ public class OrderService {
         if ( shippingAddressStatus.equals(Status.INACTIVE)){
             throw new CoffeeShopException(Constant.NOT_FOUND, new Object[] {"shipping_address"}, "ShippingAddress not found");
         }
-        Order order = new Order();
-        order.setShippingAddress(shippingAddress.get());
-        order.setPaymentMethod(orderRequest.getPaymentMethod());
-        order.setStatus(OrderStatus.Processing);
-        order.setOrderDate(new Date());
-        List<OrderItem> orderItems = new ArrayList<>();
-        for (OrderItemRequest orderItemRequest : orderRequest.getOrderItems()) {
-            long productItemId = orderItemRequest.getProductItemId();
-            Optional<ProductItem> productItemOptional = productItemRepository.findById(productItemId);
-
-            if (productItemOptional.isEmpty()) {
-                throw new CoffeeShopException(Constant.NOT_FOUND,  new Object[] {"product_item"}, "ProductItem not found");
-            }
+        return shippingAddress.get();
+    }
 
-            int stock = productItemOptional.get().getStock();
-            int orderedAmount = orderItemRequest.getAmount();
+    private Map<Long, Integer> sumAmounts(OrderRequest orderRequest) {
+        Map<Long, Integer> amounts = new HashMap<>();
+        for (OrderItemRequest orderItemRequest : orderRequest.getOrderItems()) {
+            amounts.merge(orderItemRequest.getProductItemId(), orderItemRequest.getAmount(), Integer::sum);
+        }
+        return amounts;
+    }
 
-            if (orderedAmount > stock) {
-                throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[] {"order_amount"}, "Amount Item cannot be greater than stock");
-            }
-            try {
-                ProductItem productItem = productItemOptional.get();
-                productItem.setStock(productItem.getStock() - orderedAmount);
-                productItemRepository.save(productItem);
-            } catch (Exception e) {
-                throw new CoffeeShopException(Constant.UNDEFINED, new Object[] {"product_item"}, "Product item cannot be update at stock");
-            }
-            OrderItem orderItem = new OrderItem();
-            orderItem.setProductItem(productItemOptional.get());
-            orderItem.setPrice(orderItemRequest.getPrice());
-            orderItem.setDiscount(orderItemRequest.getDiscount());
-            orderItem.setAmount(orderItemRequest.getAmount());
-            orderItems.add(orderItem);
+    private void updateSoldStats(Map<Long, Integer> amounts, Map<Long, Integer> remaining) {
+        if (amounts.isEmpty()) {
+            return;
         }
-        try {
-            Order order1 = orderRepository.save(order);
-            for (OrderItem orderItem : orderItems) {
-                orderItem.setOrder(order1);
-                orderItemRepository.save(orderItem);
+        for (ProductItem productItem : productItemRepository.findAllById(amounts.keySet())) {
+            long productId = productItem.getProduct().getId();
+            productStatsService.addSold(productId, amounts.get(productItem.getId()));
+            // Không có số tồn còn lại (không biết) thì không coi là hết hàng
+            if (Integer.valueOf(0).equals(remaining.get(productItem.getId()))) {
+                // Hết hàng làm thay đổi khoảng giá hiển thị của sản phẩm
+                productStatsService.refreshPriceRange(productId);
+                eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.PRODUCT_ITEM, productId));
             }
-            return messageBuilder.buildSuccessMessage(order1.getId());
-        } catch (Exception e) {
-            throw new CoffeeShopException(Constant.SYSTEM_ERROR, new Object[]{"order"}, "Order can not be added");
         }
     }
 
+    // Lưu đơn hàng (tổng tiền được tính luôn tại đây), các dòng hàng và sự kiện CREATED; kho đã được trừ trước đó
+    private Order createOrder(OrderRequest orderRequest, ShippingAddress shippingAddress) {
+        double subtotal = 0;
+        for (OrderItemRequest orderItemRequest : orderRequest.getOrderItems()) {
+            subtotal += (orderItemRequest.getPrice() - orderItemRequest.getDiscount()) * orderItemRequest.getAmount();
+        }
+        Order order = new Order();
+        order.setShippingAddress(shippingAddress);
+        order.setPaymentMethod(orderRequest.getPaymentMethod());
+        order.setStatus(OrderStatus.Processing);
+        order.setOrderDate(new Date());
+        order.setSubtotal(subtotal);
+        order.setShippingFee(Constant.SHIPPING_FEE);
+        order.setTotal(subtotal + Constant.SHIPPING_FEE);
+        Order savedOrder = orderRepository.save(order);
+        insertOrderItems(savedOrder.getId(), orderRequest.getOrderItems());
+        orderEventService.record(savedOrder, OrderEventType.CREATED);
+        return savedOrder;
+    }
+
+    // id của OrderItem là IDENTITY nên Hibernate không gom lô được, chèn trực tiếp bằng JDBC batch
+    private void insertOrderItems(long orderId, List<OrderItemRequest> orderItemRequests) {
+        boolean stockApplied = !stockService.isWriteBehind();
+        jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM_SQL, orderItemRequests, orderItemRequests.size(), (ps, item) -> {
+            ps.setInt(1, item.getAmount());
+            ps.setDouble(2, item.getPrice());
+            ps.setDouble(3, item.getDiscount());
+            ps.setLong(4, item.getProductItemId());
+            ps.setLong(5, orderId);
+            ps.setBoolean(6, stockApplied);
+        });
+    }
+
+    @Transactional
     public RespMessage updateOrderStatus(long orderId) {
         Optional<Order> orderOptional = orderRepository.findById(orderId);
         if (orderOptional.isPresent()) {
@@ -211,6 +331,8 @@ public class OrderService {
             }
             try {
                 orderRepository.save(order);
+                orderEventService.record(order, OrderEventType.STATUS_CHANGED);
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(List.of(orderId), order.getStatus()));
                 return messageBuilder.buildSuccessMessage(order.getStatus());
             } catch (CoffeeShopException e){
                 throw new CoffeeShopException(Constant.SYSTEM_ERROR, new Object[]{order}, "Order can not be updated");
@@ -219,6 +341,65 @@ public class OrderService {
         throw new RuntimeException("Order not found");
     }
 
+    // Chuyển nhiều đơn sang bước kế tiếp bằng một câu UPDATE. Đơn không ở bước liền trước của targetStatus
+    // được trả về INVALID_TRANSITION, các đơn còn lại vẫn được cập nhật
+    @Transactional
+    public RespMessage bulkUpdateOrderStatus(BulkOrderStatusRequest request) {
+        OrderStatus target = request.getTargetStatus();
+        OrderStatus expected = target == null ? null : target.previousStep();
+        if (expected == null) {
+            throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"TargetStatus"}, "Target status must be Processed, Shipping or Completed");
+        }
+        List<Long> orderIds = request.getOrderIds() == null ? List.of() : request.getOrderIds().stream().distinct().toList();
+        if (orderIds.isEmpty()) {
+            throw new CoffeeShopException(Constant.FIELD_NOT_NULL, new Object[]{"OrderIds"}, "OrderIds cannot be empty");
+        }
+        if (orderIds.size() > MAX_BULK_SIZE) {
+            throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"OrderIds"}, "At most " + MAX_BULK_SIZE + " orders can be updated at once");
+        }
+
+        Map<Long, OrderStatus> currentStatuses = new HashMap<>();
+        Map<Long, Long> userIds = new HashMap<>();
+        Map<Long, Double> totals = new HashMap<>();
+        for (Object[] row : orderRepository.lockStatusesByIdIn(orderIds)) {
+            currentStatuses.put((Long) row[0], (OrderStatus) row[1]);
+            userIds.put((Long) row[0], (Long) row[2]);
+            totals.put((Long) row[0], (Double) row[3]);
+        }
+        List<Long> eligibleIds = orderIds.stream()
+                .filter(orderId -> currentStatuses.get(orderId) == expected)
+                .toList();
+        int updated = eligibleIds.isEmpty() ? 0 : orderRepository.transitionStatus(eligibleIds, expected, target);
+        Map<Long, Long> changedOrders = new LinkedHashMap<>();
+        for (Long orderId : eligibleIds) {
+            changedOrders.put(orderId, userIds.get(orderId));
+        }
+        orderEventService.recordStatusChanged(changedOrders, totals, target);
+
+        List<BulkOrderStatusResponse.Result> results = new ArrayList<>(orderIds.size());
+        for (Long orderId : orderIds) {
+            OrderStatus current = currentStatuses.get(orderId);
+            if (current == null) {
+                results.add(new BulkOrderStatusResponse.Result(orderId, BulkOrderStatusResponse.NOT_FOUND, null));
+            } else if (current == expected) {
+                results.add(new BulkOrderStatusResponse.Result(orderId, BulkOrderStatusResponse.UPDATED, target.toString()));
+            } else {
+                results.add(new BulkOrderStatusResponse.Result(orderId, BulkOrderStatusResponse.INVALID_TRANSITION, current.toString()));
+            }
+        }
+        if (!eligibleIds.isEmpty()) {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(eligibleIds, target));
+        }
+
+        BulkOrderStatusResponse response = BulkOrderStatusResponse.builder()
+                .targetStatus(target.toString())
+                .updated(updated)
+                .failed(orderIds.size() - updated)
+                .results(results)
+                .build();
+        return messageBuilder.buildSuccessMessage(response);
+    }
+
     @Transactional
     public RespMessage cancelOrder(long orderId) {
         Optional<Order> orderOptional = orderRepository.findById(orderId);
@@ -229,10 +410,24 @@ public class OrderService {
 
                 // ✅ Cộng lại số lượng vào kho
                 List<OrderItem> orderItems = orderItemRepository.findByOrderId(orderId);
+                Map<Long, Integer> amounts = new HashMap<>();
+                Set<Long> soldOutItemIds = new HashSet<>();
+                for (OrderItem orderItem : orderItems) {
+                    amounts.merge(orderItem.getProductItem().getId(), orderItem.getAmount(), Integer::sum);
+                    // Đọc tồn kho trước khi cộng lại
+                    if (stockService.available(orderItem.getProductItem()) <= 0) {
+                        soldOutItemIds.add(orderItem.getProductItem().getId());
+                    }
+                }
+                stockService.release(amounts);
                 for (OrderItem orderItem : orderItems) {
                     ProductItem productItem = orderItem.getProductItem();
-                    productItem.setStock(productItem.getStock() + orderItem.getAmount());
-                    productItemRepository.save(productItem);
+                    long productId = productItem.getProduct().getId();
+                    productStatsService.addSold(productId, -orderItem.getAmount());
+                    if (soldOutItemIds.contains(productItem.getId())) {
+                        productStatsService.refreshPriceRange(productId);
+                        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.PRODUCT_ITEM, productId));
+                    }
                 }
 
             } else {
@@ -258,6 +453,8 @@ public class OrderService {
                 try {
                     orderRepository.save(order);
                     transactionRepository.save(transaction1);
+                    orderEventService.record(order, OrderEventType.CANCELLED);
+                    orderEventService.record(order, OrderEventType.REFUNDED);
                     return messageBuilder.buildSuccessMessage(order.getStatus());
                 } catch (CoffeeShopException e) {
                     throw new CoffeeShopException(Constant.SYSTEM_ERROR, new Object[]{order}, "Order can not be cancelled");
@@ -266,6 +463,7 @@ public class OrderService {
             } else {
                 try {
                     orderRepository.save(order);
+                    orderEventService.record(order, OrderEventType.CANCELLED);
                     return messageBuilder.buildSuccessMessage(order.getStatus());
                 } catch (CoffeeShopException e) {
                     throw new CoffeeShopException(Constant.SYSTEM_ERROR, new Object[]{order}, "Order can not be cancelled");
@@ -275,6 +473,7 @@ public class OrderService {
         throw new RuntimeException("Order not found");
     }
 
+    @Transactional(readOnly = true)
     public RespMessage getOrdersByUser() {
         String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
         Optional<User> userOptional = userRepository.findByEmail(userEmail);
@@ -282,408 +481,107 @@ public class OrderService {
             throw new CoffeeShopException(Constant.UNAUTHORIZED, null, "User not found by email: " + userEmail + "get from token!");
         User user = userOptional.get();
         List<Order> orders = orderRepository.findByUserId(user.getId());
-        List<OrderResponse> orderResponses = new ArrayList<>();
-        for (Order order : orders) {
-            List<OrderItem> orderItems = orderItemRepository.findByOrderId(order.getId());
-            List<OrderItemResponse> orderItemResponses = orderItems.stream().map(this::toOrderItemResponse).toList();
-            OrderResponse orderResponse = new OrderResponse();
-            orderResponse.setOrderId(order.getId());
-            orderResponse.setOrderDate(order.getOrderDate());
-            orderResponse.setOrderItems(orderItemResponses);
-            orderResponse.setOrderStatus(order.getStatus().toString());
-            orderResponse.setShippingAddress(order.getShippingAddress().toResponse());
-            orderResponse.setPaymentMethod(order.getPaymentMethod().toString());
-            orderResponses.add(orderResponse);
-        }
-
-        return messageBuilder.buildSuccessMessage(orderResponses);
+        return messageBuilder.buildSuccessMessage(orderReadService.toOrderResponses(orders));
     }
 
+    @Transactional(readOnly = true)
     public RespMessage getOrderByStatus(OrderStatus status) {
         try {
             List<Order> orders = orderRepository.findByStatus(status);
-            List<OrderResponse> orderResponses = new ArrayList<>();
-            for (Order order : orders) {
-                OrderResponse orderResponse = new OrderResponse();
-                orderResponse.setOrderId(order.getId());
-                orderResponse.setOrderDate(order.getOrderDate());
-                orderResponse.setOrderStatus(order.getStatus().toString());
-                orderResponse.setPaymentMethod(order.getPaymentMethod().toString());
-                orderResponse.setShippingAddress(order.getShippingAddress().toResponse());
-                List<OrderItem> orderItems = orderItemRepository.findByOrderId(order.getId());
-                List<OrderItemResponse> orderItemResponses = orderItems.stream().map(this::toOrderItemResponse).toList();
-                double totalPrice = 0;
-                for (OrderItem orderItem : orderItems) {
-                    totalPrice += (orderItem.getPrice() - orderItem.getDiscount())*orderItem.getAmount();
-                }
-                totalPrice += 10000;
-                orderResponse.setOrderItems(orderItemResponses);
-                orderResponse.setTotal(totalPrice);
-                orderResponses.add(orderResponse);
-            }
-            return messageBuilder.buildSuccessMessage(orderResponses);
+            return messageBuilder.buildSuccessMessage(orderReadService.toOrderResponses(orders));
         } catch (CoffeeShopException e) {
             throw new CoffeeShopException(Constant.UNDEFINED, null, "Order not found");
         }
     }
 
-    public OrderItemResponse toOrderItemResponse(OrderItem orderItem) {
-        List<Image> productImages = imageRepository.findByProduct(orderItem.getProductItem().getProduct());
-        
-        String productImageUrl = productImages.isEmpty() ? "" : productImages.get(0).getUrl();
-        
-        return OrderItemResponse.builder()
-                .orderItemId(orderItem.getId())
-                .productItemId(orderItem.getProductItem().getId())
-                .productId(orderItem.getProductItem().getProduct().getId())
-                .productName(orderItem.getProductItem().getProduct().getName())
-                .productType(orderItem.getProductItem().getType().getName())
-                .amount(orderItem.getAmount())
-                .price(orderItem.getPrice())
-                .discount(orderItem.getDiscount())
-                .isReviewed(orderItem.isReviewed())
-                .productImage(productImageUrl)
-                .build();
-    }
-    
+    // Ghi thẳng vào response theo kiểu streaming, xem ExcelExportService
     public void exportOrdersToExcel(HttpServletResponse response, Date startDate, Date endDate) throws IOException {
-        List<Order> orders = orderRepository.findAllFilterOrderDate(startDate,endDate);
-        List<OrderResponse> orderResponses = new ArrayList<>();
-        for (Order order : orders) {
-            OrderResponse orderResponse = new OrderResponse();
-            orderResponse.setOrderId(order.getId());
-            orderResponse.setOrderDate(order.getOrderDate());
-            orderResponse.setOrderStatus(order.getStatus().toString());
-            orderResponse.setPaymentMethod(order.getPaymentMethod().toString());
-            orderResponse.setShippingAddress(order.getShippingAddress().toResponse());
-            List<OrderItem> orderItems = orderItemRepository.findByOrderId(order.getId());
-            List<OrderItemResponse> orderItemResponses = orderItems.stream().map(this::toOrderItemResponse).toList();
-            double totalPrice = 0;
-            for (OrderItem orderItem : orderItems) {
-                totalPrice += (orderItem.getPrice() - orderItem.getDiscount())*orderItem.getAmount();
-            }
-            totalPrice += 10000;
-            orderResponse.setOrderItems(orderItemResponses);
-            orderResponse.setTotal(totalPrice);
-            orderResponses.add(orderResponse);
-        };
-        
-        // Tên file theo ngày hiện tại
-        LocalDate today = LocalDate.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        String fileName = "danh_sach_don_hang.xlsx";
-
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet(fileName);
-
-        // Style căn giữa dọc và ngang
-        CellStyle centerStyle = workbook.createCellStyle();
-        centerStyle.setVerticalAlignment(VerticalAlignment.CENTER);
-        centerStyle.setAlignment(HorizontalAlignment.CENTER);
-
-        // Header
-        Row headerRow = sheet.createRow(0);
-        String[] headers = {
-            "STT", "ID Đơn hàng", "Trạng thái đơn hàng", "Phương thức thanh toán", "Ngày đặt", "Tổng giá trị",
-            "Địa chỉ", "Người nhận", "Số điện thoại", "Tên từng sản phẩm trong đơn", "Số lượng","Loại","Giá","Giảm giá"
-        };
-
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(centerStyle);
-        }
-
-        int rowIdx = 1;
-        int stt = 1;
+        String fileName = ORDER_EXPORT_FILE_NAME;
 
-        for (OrderResponse order : orderResponses) {
-
-        	int itemCount = order.getOrderItems().size();
-            int startRow = rowIdx;
-            int endRow = rowIdx + itemCount - 1;
-
-            // Tạo dòng cho từng OrderItem
-            for (OrderItemResponse item : order.getOrderItems()) {
-                Row row = sheet.createRow(rowIdx++);
-                int col = 9; // cột bắt đầu OrderItem info
-
-                row.createCell(col++).setCellValue(item.getProductName());
-                row.createCell(col++).setCellValue(item.getAmount());
-                row.createCell(col++).setCellValue(item.getProductType());
-                row.createCell(col++).setCellValue(item.getPrice());
-                row.createCell(col++).setCellValue(item.getDiscount());
-
-            }
-
-            // Thêm thông tin Order vào ô merged
-            for (int i = 0; i < 9; i++) {
-                Row row = sheet.getRow(startRow);
-                Cell cell = row.createCell(i);
-                cell.setCellStyle(centerStyle);
-
-                switch (i) {
-                    case 0 -> cell.setCellValue(stt++);
-                    case 1 -> cell.setCellValue(order.getOrderId());
-                    case 2 -> cell.setCellValue(order.getOrderStatus());
-                    case 3 -> cell.setCellValue(order.getPaymentMethod());
-                    case 4 -> cell.setCellValue(order.getOrderDate());
-                    case 5 -> cell.setCellValue(order.getTotal());
-                    case 6 -> cell.setCellValue(order.getShippingAddress().getLocation());
-                    case 7 -> cell.setCellValue(order.getShippingAddress().getReceiverName());
-                    case 8 -> cell.setCellValue(order.getShippingAddress().getReceiverPhone());
-                }
-
-                if (itemCount > 1) {
-                    sheet.addMergedRegion(new CellRangeAddress(startRow, endRow, i, i));
-                }
-            }
-        }
-
-        // Tự động chỉnh kích thước cột
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
-
-        // Thiết lập header HTTP để tải file về
+        // Thiết lập header HTTP để tải file về. Không flush sớm: response chỉ được commit khi file bắt đầu được ghi ra,
+        // nên nếu truy vấn lỗi thì client vẫn nhận mã lỗi thay vì một file xlsx hỏng với status 200
         String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8);
-        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.setContentType(ExcelExportService.CONTENT_TYPE);
         response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"; filename*=UTF-8''" + encodedFileName);
 
-        workbook.write(response.getOutputStream());
-        workbook.close();
+        excelExportService.exportOrders(response.getOutputStream(), fileName, startDate, endDate);
     }
 
-    public void printInvoiceAndSendEmail(Long orderId, HttpServletResponse response) throws Exception {
-        Order order = orderRepository.findById(orderId)
-            .orElseThrow(() -> new RuntimeException("Order not found"));
-
-        List<OrderItem> orderItems = orderItemRepository.findByOrderId(orderId);
-        List<OrderItemResponse> itemResponses = new ArrayList<>();
-        double totalPrice = 0;
-
-        for (OrderItem item : orderItems) {
-            OrderItemResponse itemResponse = new OrderItemResponse();
-            itemResponse.setProductName(item.getProductItem().getProduct().getName());
-            itemResponse.setAmount(item.getAmount());  
-            itemResponse.setProductType(item.getProductItem().getType().getName());
-            itemResponse.setPrice(item.getPrice());
-            itemResponse.setDiscount(item.getDiscount());
-            itemResponses.add(itemResponse);
-
-            totalPrice += (item.getPrice() - item.getDiscount()) * item.getAmount();
+    // CSV/NDJSON cho kho dữ liệu: dataset "orders" (mỗi đơn một dòng) hoặc "order-items" (mỗi sản phẩm trong đơn một dòng).
+    // Header được gửi trước, không đặt Content-Length nên response đi theo chunked, các dòng ghi ra ngay khi đọc được
+    public void exportOrdersFlat(HttpServletResponse response, String dataset, String format,
+                                 Date startDate, Date endDate) throws IOException {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        boolean items = "order-items".equals(dataset);
+        if (!items && !"orders".equals(dataset)) {
+            throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"dataset"}, "Dataset must be orders or order-items");
         }
 
-        // Phí vận chuyển
-        double shippingFee = 10000;
-        totalPrice += shippingFee;
+        String fileName = dataset + exportFormat.getExtension();
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        response.flushBuffer();
 
-        // Tạo PDF
-        Document document = new Document(PageSize.A4, 50, 50, 50, 50);
-        String fileName = "hoa_don_" + orderId + ".pdf";
-        File tempFile = File.createTempFile("invoice_" + orderId + "_", ".pdf");
-        
-        PdfWriter writer = PdfWriter.getInstance(document, new FileOutputStream(tempFile));
-        document.open();
-
-        // Định dạng font và màu sắc
-        BaseFont baseFont = BaseFont.createFont("fonts/Arial-Unicode-MS.ttf", BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
-        Font titleFont = new Font(baseFont, 20, Font.BOLD, BaseColor.BLUE);
-        Font headerFont = new Font(baseFont, 14, Font.BOLD, BaseColor.BLACK);
-        Font normalFont = new Font(baseFont, 11, Font.NORMAL, BaseColor.BLACK);
-        Font boldFont = new Font(baseFont, 11, Font.BOLD, BaseColor.BLACK);
-        Font totalFont = new Font(baseFont, 12, Font.BOLD, BaseColor.RED);
-
-        DecimalFormat currencyFormat = new DecimalFormat("#,###");
-        SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm");
-
-        // === HEADER ===
-        // Logo và thông tin công ty (nếu có)
-        Paragraph companyInfo = new Paragraph();
-        companyInfo.add(new Chunk("CỬA HÀNG HACAFE\n", headerFont));
-        companyInfo.add(new Chunk("Địa chỉ: Số 11, đường Hồ Tùng mậu, Cầu Giấy, Hà Nội\n", normalFont));
-        companyInfo.add(new Chunk("Điện thoại: 0386331126 | Email: hohaiha0210@gmail.com\n", normalFont));
-        companyInfo.setAlignment(Element.ALIGN_LEFT);
-        document.add(companyInfo);
-
-        // Đường kẻ phân cách
-        
-        document.add(Chunk.NEWLINE);
-
-        // Tiêu đề hóa đơn
-        Paragraph title = new Paragraph("HÓA ĐƠN MUA HÀNG", titleFont);
-        title.setAlignment(Element.ALIGN_CENTER);
-        title.setSpacingAfter(10);
-        document.add(title);
-
-        // === THÔNG TIN ĐƠN HÀNG ===
-        PdfPTable infoTable = new PdfPTable(4);
-        infoTable.setWidthPercentage(100);
-        infoTable.setSpacingBefore(10);
-        infoTable.setSpacingAfter(15);
-        infoTable.setWidths(new float[]{1.5f, 2f, 1.5f, 2f});
-
-        // Thêm thông tin đơn hàng vào bảng 2 cột
-        addInfoCell(infoTable, "Mã đơn hàng:", String.valueOf(order.getId()), boldFont, normalFont);
-        addInfoCell(infoTable, "Ngày đặt:", dateFormat.format(order.getOrderDate()), boldFont, normalFont);
-        
-        addInfoCell(infoTable, "Trạng thái:", order.getStatus().toString(), boldFont, normalFont);
-        addInfoCell(infoTable, "Thanh toán:", order.getPaymentMethod().toString(), boldFont, normalFont);
-
-        document.add(infoTable);
-
-        // === THÔNG TIN NGƯỜI NHẬN ===
-        Paragraph customerTitle = new Paragraph("THÔNG TIN NGƯỜI NHẬN", headerFont);
-        customerTitle.setSpacingBefore(10);
-        customerTitle.setSpacingAfter(5);
-        document.add(customerTitle);
-
-        PdfPTable customerTable = new PdfPTable(2);
-        customerTable.setWidthPercentage(100);
-        customerTable.setSpacingAfter(15);
-        customerTable.setWidths(new float[]{1f, 3f});
-
-        addCustomerInfo(customerTable, "Họ tên:", order.getShippingAddress().getReceiverName(), boldFont, normalFont);
-        addCustomerInfo(customerTable, "Số điện thoại:", order.getShippingAddress().getReceiverPhone(), boldFont, normalFont);
-        addCustomerInfo(customerTable, "Địa chỉ:", order.getShippingAddress().getLocation(), boldFont, normalFont);
-
-        document.add(customerTable);
-
-        // === CHI TIẾT SẢN PHẨM ===
-        Paragraph productTitle = new Paragraph("CHI TIẾT ĐƠN HÀNG", headerFont);
-        productTitle.setSpacingBefore(10);
-        productTitle.setSpacingAfter(10);
-        document.add(productTitle);
-
-        // Bảng sản phẩm
-        PdfPTable productTable = new PdfPTable(7);
-        productTable.setWidthPercentage(100);
-        productTable.setWidths(new float[]{1f, 2.2f, 0.8f, 1.2f, 1.2f, 1f, 1.3f});
-
-        // Header bảng
-        String[] headers = {"STT", "Tên sản phẩm", "SL", "Loại", "Đơn giá", "Giảm giá", "Thành tiền"};
-        for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, boldFont));
-            cell.setBackgroundColor(new BaseColor(230, 230, 230));
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setPadding(8);
-            productTable.addCell(cell);
-        }
-
-        // Dữ liệu sản phẩm
-        int stt = 1;
-        for (OrderItemResponse item : itemResponses) {
-            double itemTotal = (item.getPrice() - item.getDiscount()) * item.getAmount();
-            
-            productTable.addCell(createProductCell(String.valueOf(stt++), normalFont, Element.ALIGN_CENTER));
-            productTable.addCell(createProductCell(item.getProductName(), normalFont, Element.ALIGN_LEFT));
-            productTable.addCell(createProductCell(String.valueOf(item.getAmount()), normalFont, Element.ALIGN_CENTER));
-            productTable.addCell(createProductCell(item.getProductType(), normalFont, Element.ALIGN_CENTER));
-            productTable.addCell(createProductCell(currencyFormat.format(item.getPrice()) + "₫", normalFont, Element.ALIGN_RIGHT));
-            productTable.addCell(createProductCell(currencyFormat.format(item.getDiscount()) + "₫", normalFont, Element.ALIGN_RIGHT));
-            productTable.addCell(createProductCell(currencyFormat.format(itemTotal) + "₫", boldFont, Element.ALIGN_RIGHT));
+        if (items) {
+            flatExportService.exportOrderItems(response.getOutputStream(), exportFormat, startDate, endDate);
+        } else {
+            flatExportService.exportOrders(response.getOutputStream(), exportFormat, startDate, endDate);
         }
-
-        document.add(productTable);
-
-        // === TỔNG TIỀN ===
-        PdfPTable summaryTable = new PdfPTable(2);
-        summaryTable.setWidthPercentage(50);
-        summaryTable.setHorizontalAlignment(Element.ALIGN_RIGHT);
-        summaryTable.setSpacingBefore(15);
-        summaryTable.setWidths(new float[]{2f, 1.5f});
-
-        double subtotal = totalPrice - shippingFee;
-        
-        addSummaryRow(summaryTable, "Tạm tính:", currencyFormat.format(subtotal) + "₫", normalFont, normalFont);
-        addSummaryRow(summaryTable, "Thuế VAT:", 0 + "₫", normalFont, normalFont);
-        addSummaryRow(summaryTable, "Phí vận chuyển:", currencyFormat.format(shippingFee) + "₫", normalFont, normalFont);
-        addSummaryRow(summaryTable, "Ghi chú:","", normalFont, normalFont);
-        // Đường kẻ tổng
-        PdfPCell totalLine1 = new PdfPCell();
-        totalLine1.setBorder(Rectangle.BOTTOM);
-        totalLine1.setBorderWidth(1);
-        summaryTable.addCell(totalLine1);
-        
-        PdfPCell totalLine2 = new PdfPCell();
-        totalLine2.setBorder(Rectangle.BOTTOM);
-        totalLine2.setBorderWidth(1);
-        summaryTable.addCell(totalLine2);
-        
-        addSummaryRow(summaryTable, "TỔNG CỘNG:", currencyFormat.format(totalPrice) + "₫", totalFont, totalFont);
-
-        document.add(summaryTable);
-
-        // === FOOTER ===
-        Paragraph footer = new Paragraph();
-        footer.setSpacingBefore(30);
-        footer.add(new Chunk("Cảm ơn quý khách đã mua hàng!\n", boldFont));
-        footer.add(new Chunk("Mọi thắc mắc xin liên hệ: 0386331126\n", normalFont));
-        footer.add(new Chunk("Ngày in: " + dateFormat.format(new java.util.Date()), normalFont));
-        footer.setAlignment(Element.ALIGN_CENTER);
-        document.add(footer);
-
-        document.close();
-
-        // Gửi file PDF về client
-        sendPdfResponse(response, tempFile, fileName);
-        
-        // Gửi email với file đính kèm
-        String userEmail = order.getShippingAddress().getUser().getEmail();
-        sendInvoiceEmail(userEmail, order.getId(), tempFile, fileName);
-
-        // Xóa file tạm
-        tempFile.delete();
     }
 
-    // Helper methods
-    private void addInfoCell(PdfPTable table, String label, String value, Font labelFont, Font valueFont) {
-        table.addCell(createInfoCell(label, labelFont));
-        table.addCell(createInfoCell(value, valueFont));
+    // Cùng nội dung với exportOrdersToExcel nhưng chạy nền, file tải về qua /api/export/jobs/{jobId}/download
+    public ExportJobResponse submitOrderExport(Date startDate, Date endDate, String owner) {
+        return exportJobService.submit(ExportJobService.JobType.ORDER_EXCEL, ORDER_EXPORT_FILE_NAME,
+                ExcelExportService.CONTENT_TYPE, owner, new ExportJobService.ExportTask() {
+                    @Override
+                    public long count() {
+                        return excelExportService.countOrders(startDate, endDate);
+                    }
+
+                    @Override
+                    public void write(OutputStream outputStream, LongConsumer progress) throws IOException {
+                        excelExportService.exportOrders(outputStream, ORDER_EXPORT_FILE_NAME, startDate, endDate, progress);
+                    }
+                });
     }
 
-    private PdfPCell createInfoCell(String text, Font font) {
-        PdfPCell cell = new PdfPCell(new Phrase(text, font));
-        cell.setBorder(Rectangle.NO_BORDER);
-        cell.setPadding(5);
-        return cell;
+    // Hóa đơn của tất cả đơn trong khoảng ngày/trạng thái gói trong một file ZIP, chạy nền như submitOrderExport.
+    // Không gửi email cho khách
+    public ExportJobResponse submitInvoiceArchive(Date startDate, Date endDate, OrderStatus status, String owner) {
+        String fileName = "hoa_don_" + LocalDate.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy")) + ".zip";
+        return exportJobService.submit(ExportJobService.JobType.INVOICE_ZIP, fileName,
+                InvoiceArchiveService.CONTENT_TYPE, owner, new ExportJobService.ExportTask() {
+                    @Override
+                    public long count() {
+                        return invoiceArchiveService.count(startDate, endDate, status);
+                    }
+
+                    @Override
+                    public void write(OutputStream outputStream, LongConsumer progress) throws IOException {
+                        invoiceArchiveService.write(outputStream, startDate, endDate, status, progress);
+                    }
+                });
     }
 
-    private void addCustomerInfo(PdfPTable table, String label, String value, Font labelFont, Font valueFont) {
-        PdfPCell labelCell = new PdfPCell(new Phrase(label, labelFont));
-        labelCell.setBorder(Rectangle.NO_BORDER);
-        labelCell.setPadding(5);
-        table.addCell(labelCell);
-        
-        PdfPCell valueCell = new PdfPCell(new Phrase(value, valueFont));
-        valueCell.setBorder(Rectangle.NO_BORDER);
-        valueCell.setPadding(5);
-        table.addCell(valueCell);
-    }
+    public void printInvoiceAndSendEmail(Long orderId, HttpServletResponse response) throws Exception {
+        Order order = orderRepository.findWithAddressById(orderId)
+            .orElseThrow(() -> new RuntimeException("Order not found"));
+        List<OrderItem> orderItems = orderItemRepository.findWithProductByOrderIdIn(List.of(orderId));
 
-    private PdfPCell createProductCell(String text, Font font, int alignment) {
-        PdfPCell cell = new PdfPCell(new Phrase(text, font));
-        cell.setHorizontalAlignment(alignment);
-        cell.setPadding(6);
-        return cell;
-    }
+        // Một bộ đệm PDF dùng cho cả response và file đính kèm, trả lại cho renderer khi gửi xong
+        String fileName = InvoiceRenderer.fileName(orderId);
+        try (InvoiceRenderer.InvoiceBuffer pdf = invoiceRenderer.render(order, orderItems)) {
+            // Gửi file PDF về client
+            sendPdfResponse(response, pdf, fileName);
 
-    private void addSummaryRow(PdfPTable table, String label, String value, Font labelFont, Font valueFont) {
-        PdfPCell labelCell = new PdfPCell(new Phrase(label, labelFont));
-        labelCell.setBorder(Rectangle.NO_BORDER);
-        labelCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
-        labelCell.setPadding(5);
-        table.addCell(labelCell);
-        
-        PdfPCell valueCell = new PdfPCell(new Phrase(value, valueFont));
-        valueCell.setBorder(Rectangle.NO_BORDER);
-        valueCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
-        valueCell.setPadding(5);
-        table.addCell(valueCell);
+            // Gửi email với file đính kèm. Gửi ngay trên luồng này (@Async không áp dụng cho phương thức private)
+            String userEmail = order.getShippingAddress().getUser().getEmail();
+            sendInvoiceEmail(userEmail, order.getId(), pdf, fileName);
+        }
     }
 
     @Async
-    private void sendInvoiceEmail(String userEmail, Long orderId, File pdfFile, String fileName) throws Exception {
+    private void sendInvoiceEmail(String userEmail, Long orderId, InputStreamSource pdf, String fileName) throws Exception {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
@@ -703,27 +601,20 @@ public class OrderService {
         helper.setText(emailContent, true);
         helper.setFrom("hohaiha0210@gmail.com");
 
-        FileSystemResource fileAttachment = new FileSystemResource(pdfFile);
-        helper.addAttachment(fileName, fileAttachment);
+        helper.addAttachment(fileName, pdf, InvoiceRenderer.CONTENT_TYPE);
 
         mailSender.send(message);
     }
 
-    private void sendPdfResponse(HttpServletResponse response, File pdfFile, String fileName) throws IOException {
+    private void sendPdfResponse(HttpServletResponse response, InvoiceRenderer.InvoiceBuffer pdf, String fileName) throws IOException {
         String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8);
-        response.setContentType("application/pdf");
+        response.setContentType(InvoiceRenderer.CONTENT_TYPE);
         response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"; filename*=UTF-8''" + encodedFileName);
-        response.setContentLength((int) pdfFile.length());
-
-        try (FileInputStream fis = new FileInputStream(pdfFile);
-             ServletOutputStream os = response.getOutputStream()) {
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = fis.read(buffer)) != -1) {
-                os.write(buffer, 0, bytesRead);
-            }
-            os.flush();
-        }
+        response.setContentLength(pdf.size());
+
+        ServletOutputStream os = response.getOutputStream();
+        pdf.writeTo(os);
+        os.flush();
     }
 
 }
@@ -2,10 +2,13 @@ package com.haui.coffee_shop.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.haui.coffee_shop.common.Constant;
 import com.haui.coffee_shop.common.enums.Status;
+import com.haui.coffee_shop.common.event.CatalogChangedEvent;
 import com.haui.coffee_shop.config.MessageBuilder;
 import com.haui.coffee_shop.exception.CoffeeShopException;
 import com.haui.coffee_shop.model.Product;
@@ -30,7 +33,11 @@ public class ProductItemService {
     public final TypeProductRepository typeProductRepository;
     public final MessageBuilder messageBuilder;
     private  final  CartService cartService;
+    private final ProductStatsService productStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockService stockService;
 
+    @Transactional
     public RespMessage addProductItem(ProductItemRequest request) {
         if (request.getPrice() < 0) {
             throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"Price"}, "Price can not be negative");
@@ -63,25 +70,27 @@ public class ProductItemService {
         productItem.setProduct(productOptional.get());
         productItem.setType(typeProductOptional.get());
         try {
-            productItemRepository.save(productItem);
+            productItemRepository.saveAndFlush(productItem);
+            productStatsService.refreshPriceRange(productItem.getProduct().getId());
         } catch (Exception e) {
             log.error("ProductItem can not be added", e);
             throw new CoffeeShopException(Constant.SYSTEM_ERROR, new Object[]{e}, "ProductItem can not be added");
         }
+        publishCatalogChanged(productItem.getProduct().getId());
         return messageBuilder.buildSuccessMessage(productItem);
     }
 
 
     public RespMessage getProductItem(Long productId) {
         List<ProductItem> productItems = productItemRepository.findByProductId(productId);
-        List<ProductItemResponse> activeProductItemResponses = productItems.stream()
+        List<ProductItemResponse> activeProductItemResponses = cartService.toProductItemResponses(productItems.stream()
                 .filter(productItem -> productItem.getStatus() == Status.ACTIVE)
-                .map(cartService::toProductItemResponse)
-                .toList();
+                .toList());
         return messageBuilder.buildSuccessMessage(activeProductItemResponses);
     }
 
 
+    @Transactional
     public RespMessage updateProductItem(ProductItemRequest request, long id) {
         if (request.getPrice() < 0) {
             throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"Price"}, "Price can not be negative");
@@ -111,20 +120,31 @@ public class ProductItemService {
             throw new CoffeeShopException(Constant.FIELD_NOT_FOUND, new Object[]{"ProductItem"}, "ProductItem not found");
         }
         ProductItem productItem = productItemOptional.get();
+        long previousProductId = productItem.getProduct().getId();
         productItem.setPrice(request.getPrice());
         productItem.setStock(request.getStock());
         productItem.setDiscount(request.getDiscount());
         productItem.setProduct(productOptional.get());
         productItem.setType(typeProductOptional.get());
         try {
-            productItemRepository.save(productItem);
+            stockService.onStockOverwritten(id, request.getStock());
+            productItemRepository.saveAndFlush(productItem);
+            productStatsService.refreshPriceRange(productItem.getProduct().getId());
+            if (previousProductId != productItem.getProduct().getId()) {
+                productStatsService.refreshPriceRange(previousProductId);
+            }
         } catch (Exception e) {
             log.error("ProductItem can not be updated", e);
             throw new CoffeeShopException(Constant.SYSTEM_ERROR, new Object[]{e}, "ProductItem can not be updated");
         }
+        publishCatalogChanged(productItem.getProduct().getId());
+        if (previousProductId != productItem.getProduct().getId()) {
+            publishCatalogChanged(previousProductId);
+        }
         return messageBuilder.buildSuccessMessage(productItem);
     }
 
+    @Transactional
     public RespMessage deleteProductItem(long id) {
         Optional<ProductItem> productItemOptional = productItemRepository.findById(id);
         if (productItemOptional.isEmpty()) {
@@ -133,11 +153,17 @@ public class ProductItemService {
         try {
             ProductItem productItem = productItemOptional.get();
             productItem.setStatus(Status.INACTIVE);
-            productItemRepository.save(productItem);
+            productItemRepository.saveAndFlush(productItem);
+            productStatsService.refreshPriceRange(productItem.getProduct().getId());
         } catch (Exception e) {
             log.error("ProductItem can not be deleted", e);
             throw new CoffeeShopException(Constant.SYSTEM_ERROR, new Object[]{e}, "ProductItem can not be deleted");
         }
+        publishCatalogChanged(productItemOptional.get().getProduct().getId());
         return messageBuilder.buildSuccessMessage(productItemOptional.get());
     }
+
+    private void publishCatalogChanged(long productId) {
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.PRODUCT_ITEM, productId));
+    }
 }
@@ -4,44 +4,59 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.VerticalAlignment;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellStyle;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.haui.coffee_shop.cache.CatalogCache;
 import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.common.event.CatalogChangedEvent;
+import com.haui.coffee_shop.common.enums.ProductSort;
 import com.haui.coffee_shop.common.enums.Status;
 import com.haui.coffee_shop.config.MessageBuilder;
 import com.haui.coffee_shop.exception.CoffeeShopException;
+import com.haui.coffee_shop.export.ExcelExportService;
+import com.haui.coffee_shop.export.ExportFormat;
+import com.haui.coffee_shop.export.ExportJobService;
+import com.haui.coffee_shop.export.FlatExportService;
 import com.haui.coffee_shop.model.*;
+import com.haui.coffee_shop.payload.request.ProductFilterRequest;
 import com.haui.coffee_shop.payload.request.ProductRequest;
+import com.haui.coffee_shop.payload.response.ExportJobResponse;
+import com.haui.coffee_shop.payload.response.ProductFilterResponse;
+import com.haui.coffee_shop.payload.response.ProductListResponse;
+import com.haui.coffee_shop.payload.response.ProductPageResponse;
 import com.haui.coffee_shop.payload.response.ProductResponse;
+import com.haui.coffee_shop.payload.response.ProductSummaryResponse;
 import com.haui.coffee_shop.payload.response.RespMessage;
 import com.haui.coffee_shop.payload.response.ReviewResponse;
 import com.haui.coffee_shop.repository.*;
+import com.haui.coffee_shop.search.AutocompleteIndex;
+import com.haui.coffee_shop.search.ProductFacetIndex;
+import com.haui.coffee_shop.search.ProductSearchIndex;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
-import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int SEARCH_LIMIT = 50;
+    public static final int BEST_SELLING_LIMIT = 15;
+
     private final ProductRepository productRepository;
     private final ProductItemRepository productItemRepository;
     private final CategoryRepository categoryRepository;
@@ -51,18 +66,20 @@ public class ProductService {
     private final MessageBuilder messageBuilder;
     private final CloudinaryService cloudinaryService;
     private final ImageRepository imageRepository;
-    private final OrderItemRepository orderItemRepository;
+    private final ProductStatsService productStatsService;
+    private final LeaderboardService leaderboardService;
+    private final CatalogCache catalogCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final AutocompleteIndex autocompleteIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExcelExportService excelExportService;
+    private final ExportJobService exportJobService;
+    private final FlatExportService flatExportService;
+
     public RespMessage getAllProduct() {
-        List<Product> products = productRepository.findAll();
-        List<Product> activeProducts = products.stream().filter(product -> product.getStatus() == Status.ACTIVE).toList();
-        List<ProductResponse> productResponseList = new ArrayList<>();
-        for (Product product : activeProducts) {
-            List<Image> images = imageRepository.findByProduct(product);
-            ProductResponse productResponse = getProductResponse(product);
-            productResponse.setImages(images);
-            productResponseList.add(productResponse);
-        }
-        return messageBuilder.buildSuccessMessage(productResponseList);
+        return messageBuilder.buildSuccessMessage(catalogCache.get("product:all", () ->
+                withImages(productRepository.findListByStatus(Status.ACTIVE))));
     }
 
 
@@ -75,8 +92,6 @@ public class ProductService {
                 throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"product"}, "Product not active");
             }
             ProductResponse productResponse = getProductResponse(product);
-            List<Image> images = imageRepository.findByProduct(product);
-            productResponse.setImages(images);
             return messageBuilder.buildSuccessMessage(productResponse);
         } else {
             throw new CoffeeShopException(Constant.FIELD_NOT_FOUND, new Object[]{"product"}, "Product not found");
@@ -84,14 +99,8 @@ public class ProductService {
     }
     public RespMessage getProductsByCategoryId(Long categoryId) {
         try {
-            List<Product> tempProducts = productRepository.findByCategoryId(categoryId);
-            List<Product> products = tempProducts.stream().filter(product -> product.getStatus() == Status.ACTIVE).toList();
-            List<ProductResponse> productResponseList = new ArrayList<>();
-            for (Product product : products) {
-                ProductResponse productResponse = getProductResponse(product);
-                productResponseList.add(productResponse);
-            }
-            return messageBuilder.buildSuccessMessage(productResponseList);
+            return messageBuilder.buildSuccessMessage(catalogCache.get("product:category:" + categoryId, () ->
+                    withImages(productRepository.findListByCategoryIdAndStatus(categoryId, Status.ACTIVE))));
         } catch (Exception e) {
             throw new CoffeeShopException(Constant.SYSTEM_ERROR, null , null);
         }
@@ -99,35 +108,22 @@ public class ProductService {
     
     public RespMessage getProductsByBrandId(Long brandId) {
         try {
-            List<Product> tempProducts = productRepository.findByBrandId(brandId);
-            List<Product> products = tempProducts.stream().filter(product -> product.getStatus() == Status.ACTIVE).toList();
-            List<ProductResponse> productResponseList = new ArrayList<>();
-            for (Product product : products) {
-                ProductResponse productResponse = getProductResponse(product);
-                productResponseList.add(productResponse);
-            }
-            return messageBuilder.buildSuccessMessage(productResponseList);
+            return messageBuilder.buildSuccessMessage(catalogCache.get("product:brand:" + brandId, () ->
+                    withImages(productRepository.findListByBrandIdAndStatus(brandId, Status.ACTIVE))));
         } catch (Exception e) {
             throw new CoffeeShopException(Constant.SYSTEM_ERROR, null , null);
         }
     }
 
 
-    // Tìm kiếm sản phẩm theo từ khóa và trả về RespMessage
+    // Tìm kiếm sản phẩm theo từ khóa qua chỉ mục trong bộ nhớ, kết quả xếp theo độ liên quan
     public RespMessage searchProductsByKeyword(String keyword) {
         try {
-            List<Product> products = productRepository
-                    .searchByKeyword(keyword)
-                    .stream().filter(product -> product.getStatus() == Status.ACTIVE).toList();
+            List<ProductListResponse> products = getProductList(productSearchIndex.search(keyword, SEARCH_LIMIT));
             if (products.isEmpty()) {
                 return messageBuilder.buildFailureMessage(Constant.FIELD_NOT_FOUND, null, null);
             }
-            List<ProductResponse> productResponseList = new ArrayList<>();
-            for (Product product : products) {
-                ProductResponse productResponse = getProductResponse(product);
-                productResponseList.add(productResponse);
-            }
-            return messageBuilder.buildSuccessMessage(productResponseList);
+            return messageBuilder.buildSuccessMessage(products);
         } catch (Exception e) {
             // Xây dựng phản hồi thất bại khi có lỗi
             return messageBuilder.buildFailureMessage(Constant.SYSTEM_ERROR, null, null);
@@ -135,6 +131,8 @@ public class ProductService {
     }
 
 
+    // Sản phẩm và bản ghi product_stats của nó được tạo trong cùng một transaction
+    @Transactional
     public RespMessage addProduct(ProductRequest productRequest) {
         if (productRequest.getName() == null || productRequest.getName().isEmpty()) {
             throw new CoffeeShopException(Constant.FIELD_NOT_NULL, new Object[]{"name"}, "Product name must be not null");
@@ -170,9 +168,11 @@ public class ProductService {
         product.setArticle(productRequest.getArticle());
         try {
             productRepository.save(product);
+            productStatsService.initialize(product.getId());
         } catch (Exception e) {
             throw new CoffeeShopException(Constant.SYSTEM_ERROR, new Object[]{e.getMessage()}, "Error when add product");
         }
+        publishCatalogChanged(CatalogChangedEvent.Type.PRODUCT, product.getId());
         return messageBuilder.buildSuccessMessage(getProductResponse(product));
     }
 
@@ -191,6 +191,7 @@ public class ProductService {
         } catch (Exception e) {
             throw new CoffeeShopException(Constant.SYSTEM_ERROR, new Object[]{e.getMessage()}, "Error when add brand");
         }
+        publishCatalogChanged(CatalogChangedEvent.Type.BRAND, null);
         return messageBuilder.buildSuccessMessage(brand);
     }
 
@@ -209,6 +210,7 @@ public class ProductService {
         } catch (Exception e) {
             throw new CoffeeShopException(Constant.SYSTEM_ERROR, new Object[]{e.getMessage()}, "Error when add type product");
         }
+        publishCatalogChanged(CatalogChangedEvent.Type.TYPE_PRODUCT, null);
         return messageBuilder.buildSuccessMessage(typeProduct);
     }
 
@@ -220,6 +222,7 @@ public class ProductService {
         Product product = productOptional.get();
         product.setStatus(Status.INACTIVE);
         productRepository.save(product);
+        publishCatalogChanged(CatalogChangedEvent.Type.PRODUCT, product.getId());
         return messageBuilder.buildSuccessMessage(getProductResponse(product));
     }
 
@@ -292,14 +295,15 @@ public class ProductService {
         }
 
         productRepository.save(product);
+        publishCatalogChanged(CatalogChangedEvent.Type.PRODUCT, product.getId());
         return messageBuilder.buildSuccessMessage(getProductResponse(product));
     }
 
 
     public RespMessage getAllTypeProduct() {
-        List<TypeProduct> typeProducts = typeProductRepository.findAll().stream()
-                .filter(typeProduct -> typeProduct.getStatus() == Status.ACTIVE).toList();
-        return messageBuilder.buildSuccessMessage(typeProducts);
+        return messageBuilder.buildSuccessMessage(catalogCache.get("type-product:all", () ->
+                typeProductRepository.findAll().stream()
+                        .filter(typeProduct -> typeProduct.getStatus() == Status.ACTIVE).toList()));
     }
 
     public RespMessage uploadImage(Long id, MultipartFile file) {
@@ -315,6 +319,7 @@ public class ProductService {
             image.setUrl(url);
             image.setProduct(product);
             imageRepository.save(image);
+            publishCatalogChanged(CatalogChangedEvent.Type.IMAGE, product.getId());
             return messageBuilder.buildSuccessMessage(getProductResponse(product));
         } catch (Exception e) {
             throw new CoffeeShopException(Constant.SYSTEM_ERROR, new Object[]{e.getMessage()}, "Error when upload image");
@@ -323,57 +328,264 @@ public class ProductService {
     }
 
     public ProductResponse getProductResponse(Product product) {
+        return getProductResponses(List.of(product)).get(0);
+    }
+
+    // Gợi ý khi đang gõ: chỉ đọc trie trong bộ nhớ, không truy vấn DB
+    public RespMessage autocomplete(String prefix, Integer limit) {
+        int size = limit == null ? AutocompleteIndex.MAX_SUGGESTIONS : Math.min(limit, AutocompleteIndex.MAX_SUGGESTIONS);
+        return messageBuilder.buildSuccessMessage(autocompleteIndex.suggest(prefix, size));
+    }
+
+    // Danh sách sản phẩm phân trang theo keyset, lọc trạng thái ngay trong SQL.
+    // Con trỏ mã hóa (kiểu sắp xếp, giá trị sắp xếp, id) của phần tử cuối cùng trang trước
+    public RespMessage getProductPage(Long categoryId, Long brandId, String sortValue, String cursor, Integer size) {
+        ProductSort sort = ProductSort.fromValue(sortValue);
+        if (sort == null) {
+            throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"sort"}, "Sort option is not supported");
+        }
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"size"}, "Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        PageCursor position = decodeCursor(sort, cursor);
+        Long lastId = position == null ? null : position.id();
+        // Lấy dư một phần tử để biết còn trang sau hay không
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<ProductSummaryResponse> rows = switch (sort) {
+            case NEWEST -> productRepository.findPageNewest(Status.ACTIVE, categoryId, brandId, lastId, pageable);
+            case PRICE_ASC -> productRepository.findPageByPriceAsc(Status.ACTIVE, categoryId, brandId,
+                    position == null ? null : position.value().doubleValue(), lastId, pageable);
+            case PRICE_DESC -> productRepository.findPageByPriceDesc(Status.ACTIVE, categoryId, brandId,
+                    position == null ? null : position.value().doubleValue(), lastId, pageable);
+            case BEST_SELLING -> productRepository.findPageByBestSelling(Status.ACTIVE, categoryId, brandId,
+                    position == null ? null : position.value().intValue(), lastId, pageable);
+            case RATING -> productRepository.findPageByRating(Status.ACTIVE, categoryId, brandId,
+                    position == null ? null : position.value().doubleValue(), lastId, pageable);
+        };
+
+        boolean hasNext = rows.size() > pageSize;
+        List<ProductSummaryResponse> items = hasNext ? rows.subList(0, pageSize) : rows;
+        fillThumbnails(items);
+
+        String nextCursor = null;
+        if (hasNext) {
+            ProductSummaryResponse last = items.get(items.size() - 1);
+            nextCursor = encodeCursor(sort, sortKey(sort, last), last.getId());
+        }
+
+        ProductPageResponse pageResponse = ProductPageResponse.builder()
+                .items(items)
+                .sort(sort.getValue())
+                .size(pageSize)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+        return messageBuilder.buildSuccessMessage(pageResponse);
+    }
+
+    // Lọc sản phẩm theo thuộc tính và khoảng giá qua chỉ mục bitmap, kèm số đếm cho từng giá trị
+    public RespMessage filterProducts(ProductFilterRequest request) {
+        int pageSize = request.getSize() == null ? DEFAULT_PAGE_SIZE : request.getSize();
+        int page = request.getPage() == null ? 0 : request.getPage();
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"size"}, "Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (page < 0) {
+            throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"page"}, "Page must not be negative");
+        }
+
+        Map<ProductFacetIndex.Facet, Collection<String>> filters = new EnumMap<>(ProductFacetIndex.Facet.class);
+        putFilter(filters, ProductFacetIndex.Facet.CATEGORY, request.getCategoryId());
+        putFilter(filters, ProductFacetIndex.Facet.BRAND, request.getBrandId());
+        putFilter(filters, ProductFacetIndex.Facet.ORIGIN, request.getOrigin());
+        putFilter(filters, ProductFacetIndex.Facet.ROAD_LEVEL, request.getRoadLevel());
+        putFilter(filters, ProductFacetIndex.Facet.BEAN_TYPE, request.getBeanType());
+        putFilter(filters, ProductFacetIndex.Facet.CAFFEINE_CONTENTS, request.getCaffeineContents());
+        putFilter(filters, ProductFacetIndex.Facet.CAFE_FORM, request.getCafeForm());
+        putFilter(filters, ProductFacetIndex.Facet.NET_WEIGHT, request.getNetWeight());
+
+        ProductFacetIndex.FacetResult result = productFacetIndex.search(filters, request.getMinPrice(), request.getMaxPrice());
+        List<Long> matchedIds = result.productIds();
+        int from = (int) Math.min((long) page * pageSize, matchedIds.size());
+        int to = Math.min(from + pageSize, matchedIds.size());
+        List<Long> ids = matchedIds.subList(from, to);
+
+        ProductFilterResponse filterResponse = ProductFilterResponse.builder()
+                .items(getProductSummaries(ids))
+                .total(matchedIds.size())
+                .page(page)
+                .size(pageSize)
+                .facets(result.facets())
+                .minPrice(result.minPrice())
+                .maxPrice(result.maxPrice())
+                .build();
+        return messageBuilder.buildSuccessMessage(filterResponse);
+    }
+
+    private static void putFilter(Map<ProductFacetIndex.Facet, Collection<String>> filters,
+                                  ProductFacetIndex.Facet facet, List<String> values) {
+        if (values != null && !values.isEmpty()) {
+            filters.put(facet, values);
+        }
+    }
+
+    // Dữ liệu rút gọn cho trang danh sách theo đúng thứ tự ids, chỉ gồm sản phẩm đang ACTIVE.
+    // Mô tả và bài viết chỉ được nạp ở trang chi tiết /api/product/{id}
+    public List<ProductSummaryResponse> getProductSummaries(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, ProductSummaryResponse> summaryById = productRepository.findActiveSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductSummaryResponse::getId, summary -> summary));
+        List<ProductSummaryResponse> summaries = ids.stream()
+                .map(summaryById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        fillThumbnails(summaries);
+        return summaries;
+    }
+
+    // Dữ liệu danh sách theo đúng thứ tự ids, chỉ gồm sản phẩm đang ACTIVE
+    private List<ProductListResponse> getProductList(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, ProductListResponse> productById = productRepository.findActiveListByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductListResponse::getId, product -> product));
+        return withImages(ids.stream()
+                .map(productById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+    }
+
+    // Ảnh của cả danh sách trong một truy vấn, chỉ gồm id và url
+    private List<ProductListResponse> withImages(List<ProductListResponse> products) {
+        if (products.isEmpty()) {
+            return products;
+        }
+        Map<Long, ProductListResponse> productById = products.stream()
+                .collect(Collectors.toMap(ProductListResponse::getId, product -> product));
+        for (Object[] row : imageRepository.findUrlsByProductIdIn(productById.keySet())) {
+            productById.get((Long) row[0]).getImages().add(new ProductListResponse.ImageRef((Long) row[1], (String) row[2]));
+        }
+        return products;
+    }
+
+    private void fillThumbnails(List<ProductSummaryResponse> summaries) {
+        if (summaries.isEmpty()) {
+            return;
+        }
+        Map<Long, String> thumbnails = new HashMap<>();
+        for (Object[] row : imageRepository.findThumbnails(summaries.stream().map(ProductSummaryResponse::getId).toList())) {
+            thumbnails.put((Long) row[0], (String) row[1]);
+        }
+        summaries.forEach(summary -> summary.setThumbnail(thumbnails.get(summary.getId())));
+    }
+
+    private static Object sortKey(ProductSort sort, ProductSummaryResponse summary) {
+        return switch (sort) {
+            case NEWEST -> summary.getId();
+            case PRICE_ASC -> summary.getMinPrice();
+            case PRICE_DESC -> summary.getMaxPrice();
+            case BEST_SELLING -> summary.getTotalSold();
+            case RATING -> summary.getRating();
+        };
+    }
+
+    private String encodeCursor(ProductSort sort, Object sortKey, long id) {
+        String raw = sort.getValue() + ":" + sortKey + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Giá trị sắp xếp được đọc đúng kiểu của khóa sắp xếp (totalSold là số nguyên),
+    // con trỏ bị sửa tay thì trả lỗi dữ liệu thay vì lỗi hệ thống
+    private PageCursor decodeCursor(ProductSort sort, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
         try {
-            ProductResponse productResponse = new ProductResponse();
-            productResponse.setId(product.getId());
-            productResponse.setName(product.getName());
-            productResponse.setDescription(product.getDescription());
-            productResponse.setCategory(product.getCategory());
-            productResponse.setBrand(product.getBrand());
-            productResponse.setNetWeight(product.getNetWeight());
-            productResponse.setBeanType(product.getBeanType());
-            productResponse.setOrigin(product.getOrigin());
-            productResponse.setRoadLevel(product.getRoadLevel());
-            productResponse.setFlavoNotes(product.getFlavoNotes());
-            productResponse.setCaffeineContents(product.getCaffeineContents());
-            productResponse.setCafeForm(product.getCafeForm());
-            productResponse.setArticleTitle(product.getArticleTitle());
-            productResponse.setArticle(product.getArticle());
-            productResponse.setCreatedAt(product.getCreatedAt());
-
-            List<Image> images = imageRepository.findByProduct(product);
-            productResponse.setImages(images);
-
-            List<Review> reviews = reviewRepository.findByProductId(product.getId());
-            double rating = 0;
-            int totalReview = 0;
-
-            if (!reviews.isEmpty()) {
-                rating = reviews.stream().mapToDouble(Review::getRating).average().getAsDouble();
-                totalReview = reviews.size();
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 3 || !parts[0].equals(sort.getValue())) {
+                throw new IllegalArgumentException("Cursor does not match sort " + sort.getValue());
             }
-            productResponse.setRating(rating);
-            productResponse.setTotalReview(totalReview);
+            Number value = switch (sort) {
+                case NEWEST -> Long.valueOf(parts[1]);
+                case BEST_SELLING -> Integer.valueOf(parts[1]);
+                case PRICE_ASC, PRICE_DESC, RATING -> Double.valueOf(parts[1]);
+            };
+            return new PageCursor(value, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"cursor"}, "Cursor is not valid");
+        }
+    }
 
-            Integer totalSold = orderItemRepository.findTotalSold(product.getId())
-                    .orElse(0);
-            productResponse.setTotalSold(totalSold);
+    private record PageCursor(Number value, long id) {
+    }
 
-            Double maxPrice = productRepository.maxPrice(product.getId())
-                    .orElse(0.0);
-            productResponse.setMaxPrice(maxPrice);
+    // Dựng ProductResponse cho cả danh sách sản phẩm bằng một số truy vấn cố định (gom theo IN),
+    // không phụ thuộc vào số lượng sản phẩm trong trang. Rating, số lượng bán và khoảng giá đọc từ product_stats
+    public List<ProductResponse> getProductResponses(List<Product> products) {
+        if (products.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            Set<Long> productIds = products.stream().map(Product::getId).collect(Collectors.toSet());
+
+            Map<Long, List<Image>> imagesByProduct = imageRepository.findByProductIdIn(productIds).stream()
+                    .collect(Collectors.groupingBy(image -> image.getProduct().getId()));
+            Map<Long, ProductStats> statsByProduct = productStatsService.findByProductIds(productIds);
 
-            Double minPrice = productRepository.minPrice(product.getId())
-                    .orElse(0.0);
-            productResponse.setMinPrice(minPrice);
+            List<ProductResponse> productResponses = new ArrayList<>(products.size());
+            for (Product product : products) {
+                ProductResponse productResponse = toProductResponse(product);
+                productResponse.setImages(imagesByProduct.getOrDefault(product.getId(), new ArrayList<>()));
+
+                ProductStats stats = statsByProduct.get(product.getId());
+                if (stats != null) {
+                    productResponse.setRating(stats.getRating());
+                    productResponse.setTotalReview(stats.getReviewCount());
+                    productResponse.setTotalSold(stats.getTotalSold());
+                    productResponse.setMinPrice(stats.getMinPrice());
+                    productResponse.setMaxPrice(stats.getMaxPrice());
+                }
 
-            return productResponse;
+                productResponses.add(productResponse);
+            }
+            return productResponses;
         }
         catch (Exception e) {
             throw new CoffeeShopException(Constant.SYSTEM_ERROR, new Object[]{e.getMessage()}, "Error when get product response");
         }
     }
 
+    private ProductResponse toProductResponse(Product product) {
+        ProductResponse productResponse = new ProductResponse();
+        productResponse.setId(product.getId());
+        productResponse.setName(product.getName());
+        productResponse.setDescription(product.getDescription());
+        productResponse.setCategory(product.getCategory());
+        productResponse.setBrand(product.getBrand());
+        productResponse.setNetWeight(product.getNetWeight());
+        productResponse.setBeanType(product.getBeanType());
+        productResponse.setOrigin(product.getOrigin());
+        productResponse.setRoadLevel(product.getRoadLevel());
+        productResponse.setFlavoNotes(product.getFlavoNotes());
+        productResponse.setCaffeineContents(product.getCaffeineContents());
+        productResponse.setCafeForm(product.getCafeForm());
+        productResponse.setArticleTitle(product.getArticleTitle());
+        productResponse.setArticle(product.getArticle());
+        productResponse.setCreatedAt(product.getCreatedAt());
+        return productResponse;
+    }
+
+    private void publishCatalogChanged(CatalogChangedEvent.Type type, Long productId) {
+        eventPublisher.publishEvent(new CatalogChangedEvent(type, productId));
+    }
+
     public RespMessage deleteImage(Long id) {
         Optional<Image> imageOptional = imageRepository.findById(id);
         if (imageOptional.isEmpty()) {
@@ -382,137 +594,63 @@ public class ProductService {
         Image image = imageOptional.get();
         imageRepository.delete(image);
         cloudinaryService.delete(image.getUrl());
+        publishCatalogChanged(CatalogChangedEvent.Type.IMAGE, image.getProduct().getId());
         ProductResponse productResponse = getProductResponse(image.getProduct());
 
         return messageBuilder.buildSuccessMessage(productResponse);
     }
     	
-    public RespMessage getBestSellingProducts(Long brandId, Long CategoryId ) {
-    	LocalDate localDate = LocalDate.now().minusDays(90);
-    	Date fromDate = java.util.Date.from(localDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
-
-    	Pageable  pageable = PageRequest.of(0, 15);
-    	List<Long> ids = orderItemRepository.findTop15ActiveBestSellingProductsInLast90Days(CategoryId, brandId, fromDate, pageable);
-        List<ProductResponse> productResponses = new ArrayList<>();
-        
-        for (Long id : ids) {
-            try {
-                Optional<Product> productOp = productRepository.findById(id);
-                if (productOp.isPresent()) {
-                    Product product = productOp.get();
-                    if (product.getStatus() == Status.ACTIVE) {
-                        ProductResponse productResponse = getProductResponse(product);
-                        List<Image> images = imageRepository.findByProduct(product);
-                        productResponse.setImages(images);
-                        productResponses.add(productResponse);
-                    }
-                }
-            } catch (Exception e) {
-                continue;
-            }
-        }
-        
-        return messageBuilder.buildSuccessMessage(productResponses);
+    // Top bán chạy 90 ngày lấy từ bảng xếp hạng trong bộ nhớ, không GROUP BY trên order_item mỗi lần gọi
+    public RespMessage getBestSellingProducts(Long categoryId, Long brandId) {
+        // getProductList giữ đúng thứ tự xếp hạng
+        return messageBuilder.buildSuccessMessage(catalogCache.get("product:best:" + categoryId + ":" + brandId, () ->
+                getProductList(leaderboardService.topProducts(categoryId, brandId, BEST_SELLING_LIMIT))));
     }
     
+    // Ghi thẳng vào response theo kiểu streaming, xem ExcelExportService
     public void exportToExcel(HttpServletResponse response) throws IOException {
-        List<Product> products = productRepository.findAll();
-        List<Product> productList = products.stream()
-                .filter(product -> product.getStatus() == Status.ACTIVE)
-                .toList();
+        String fileName = productExportFileName();
 
-        // Lấy ngày hiện tại và format thành dd-MM-yyyy
-        LocalDate today = LocalDate.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-        String fileName = "Total-products-" +today.format(formatter);
-        
-        
-
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet(fileName);
-
-        // Tạo style căn giữa theo chiều dọc
-        CellStyle verticalCenterStyle = workbook.createCellStyle();
-        verticalCenterStyle.setVerticalAlignment(VerticalAlignment.CENTER);
-
-        // Header
-        Row headerRow = sheet.createRow(0);
-        String[] headers = {
-            "STT", "ID sản phẩm", "Tên sản phẩm", "Mô tả", "Danh mục", "Thương hiệu", "Trạng thái",
-            "Khối lượng tịnh", "Loại hạt", "Xuất xứ", "Mức độ rang",
-            "Ghi chú hương vị", "Hàm lượng caffeine", "Dạng cà phê", "Ngày tạo",
-            "ID từng phiên bản", "Loại sản phẩm", "Giá", "Số lượng", "Giảm giá", "Trạng thái phiên bản"
-        };
-
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(verticalCenterStyle); // Căn giữa header nếu muốn
-        }
-
-        int rowIdx = 1;
-        int stt = 1;
-
-        for (Product product : productList) {
-            List<ProductItem> items = productItemRepository.findByProductId(product.getId());
-            int itemCount = items.size();
-            int startRow = rowIdx;
-            int endRow = rowIdx + itemCount - 1;
-
-            // Tạo các dòng cho từng ProductItem
-            for (ProductItem item : items) {
-                Row row = sheet.createRow(rowIdx++);
-                int col = 15;
-                row.createCell(col++).setCellValue(item.getId());
-                row.createCell(col++).setCellValue(item.getType().getName());
-                row.createCell(col++).setCellValue(item.getPrice());
-                row.createCell(col++).setCellValue(item.getStock());
-                row.createCell(col++).setCellValue(item.getDiscount());
-                row.createCell(col++).setCellValue(item.getStatus().toString());
-            }
+        // Thiết lập header cho response với tên file có ngày tháng. Không flush sớm, xem OrderService.exportOrdersToExcel
+        String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8);
+        response.setContentType(ExcelExportService.CONTENT_TYPE);
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"; filename*=UTF-8''" + encodedFileName);
 
-            // Đưa dữ liệu của Product vào các ô gộp và áp dụng style căn giữa dọc
-            for (int i = 0; i < 15; i++) {
-                Cell cell = sheet.getRow(startRow).createCell(i);
-                cell.setCellStyle(verticalCenterStyle);
-
-                switch (i) {
-                    case 0 -> cell.setCellValue(stt++);
-                    case 1 -> cell.setCellValue(product.getId());
-                    case 2 -> cell.setCellValue(product.getName());
-                    case 3 -> cell.setCellValue(product.getDescription());
-                    case 4 -> cell.setCellValue(product.getCategory().getName());
-                    case 5 -> cell.setCellValue(product.getBrand().getName());
-                    case 6 -> cell.setCellValue(product.getStatus().toString());
-                    case 7 -> cell.setCellValue(product.getNetWeight());
-                    case 8 -> cell.setCellValue(product.getBeanType());
-                    case 9 -> cell.setCellValue(product.getOrigin());
-                    case 10 -> cell.setCellValue(product.getRoadLevel());
-                    case 11 -> cell.setCellValue(product.getFlavoNotes());
-                    case 12 -> cell.setCellValue(product.getCaffeineContents());
-                    case 13 -> cell.setCellValue(product.getCafeForm());
-                    case 14 -> cell.setCellValue(product.getCreatedAt().toString());
-                }
+        excelExportService.exportProducts(response.getOutputStream(), fileName);
+    }
 
-                // Nếu product có nhiều productitem thì gộp các ô lại
-                if (itemCount > 1) {
-                    sheet.addMergedRegion(new CellRangeAddress(startRow, endRow, i, i));
-                }
-            }
-        }
+    // CSV/NDJSON cho kho dữ liệu, mỗi phiên bản sản phẩm một dòng, ghi theo chunked như OrderService.exportOrdersFlat
+    public void exportFlat(HttpServletResponse response, String format) throws IOException {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        String fileName = "products" + exportFormat.getExtension();
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        response.flushBuffer();
 
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
+        flatExportService.exportProducts(response.getOutputStream(), exportFormat);
+    }
 
-        // Thiết lập header cho response với tên file có ngày tháng
-        String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8);
-        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
-        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"; filename*=UTF-8''" + encodedFileName);
+    // Cùng nội dung với exportToExcel nhưng chạy nền, file tải về qua /api/export/jobs/{jobId}/download
+    public ExportJobResponse submitProductExport(String owner) {
+        String sheetName = productExportFileName();
+        return exportJobService.submit(ExportJobService.JobType.PRODUCT_EXCEL, sheetName + ".xlsx",
+                ExcelExportService.CONTENT_TYPE, owner, new ExportJobService.ExportTask() {
+                    @Override
+                    public long count() {
+                        return excelExportService.countProducts();
+                    }
 
-        workbook.write(response.getOutputStream());
-        workbook.close();
-        
+                    @Override
+                    public void write(OutputStream outputStream, LongConsumer progress) throws IOException {
+                        excelExportService.exportProducts(outputStream, sheetName, progress);
+                    }
+                });
     }
 
+    // Lấy ngày hiện tại và format thành dd-MM-yyyy
+    private static String productExportFileName() {
+        LocalDate today = LocalDate.now();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+        return "Total-products-" + today.format(formatter);
+    }
 }
@@ -0,0 +1,109 @@
+package com.haui.coffee_shop.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.haui.coffee_shop.common.event.CatalogChangedEvent;
+import com.haui.coffee_shop.common.event.ProductSoldEvent;
+import com.haui.coffee_shop.config.MessageBuilder;
+import com.haui.coffee_shop.model.ProductStats;
+import com.haui.coffee_shop.payload.response.RespMessage;
+import com.haui.coffee_shop.repository.ProductStatsRepository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ProductStatsService {
+    private final ProductStatsRepository productStatsRepository;
+    private final MessageBuilder messageBuilder;
+    private final ApplicationEventPublisher eventPublisher;
+    // Sản phẩm có total_sold đã thay đổi (đã commit) nhưng chưa phát CatalogChangedEvent
+    private final Set<Long> soldChanged = ConcurrentHashMap.newKeySet();
+
+    public Map<Long, ProductStats> findByProductIds(Collection<Long> productIds) {
+        return productStatsRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(ProductStats::getProductId, Function.identity()));
+    }
+
+    @Transactional
+    public void initialize(long productId) {
+        productStatsRepository.insertIfAbsent(productId);
+    }
+
+    @Transactional
+    public void addReview(long productId, double rating) {
+        productStatsRepository.addRating(productId, rating, 1);
+    }
+
+    @Transactional
+    public void removeReview(long productId, double rating) {
+        productStatsRepository.addRating(productId, -rating, -1);
+    }
+
+    @Transactional
+    public void addSold(long productId, int amount) {
+        productStatsRepository.addSold(productId, amount);
+        eventPublisher.publishEvent(new ProductSoldEvent(productId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductSold(ProductSoldEvent event) {
+        soldChanged.add(event.getProductId());
+    }
+
+    // total_sold nằm trong response sản phẩm và dùng để sắp xếp best_selling nên ETag/cache catalog phải đổi theo.
+    // Gom các thay đổi lại, mỗi sản phẩm phát tối đa một sự kiện mỗi chu kỳ thay vì một sự kiện cho mỗi đơn hàng
+    @Scheduled(fixedDelayString = "${catalog.sold-stats.publish-ms:5000}")
+    public void publishSoldChanges() {
+        for (Long productId : soldChanged) {
+            // Chỉ phát khi gỡ được: thay đổi đến sau lúc gỡ sẽ được phát ở chu kỳ sau
+            if (soldChanged.remove(productId)) {
+                eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.PRODUCT, productId));
+            }
+        }
+    }
+
+    // Giá min/max chỉ tính trên các phiên bản còn hàng nên cần tính lại khi giá, trạng thái hoặc tồn kho về 0 thay đổi
+    @Transactional
+    public void refreshPriceRange(long productId) {
+        productStatsRepository.insertIfAbsent(productId);
+        productStatsRepository.refreshPriceRange(productId);
+    }
+
+    // Tính lại toàn bộ bảng từ dữ liệu gốc, dùng để sửa sai lệch
+    @Transactional
+    public int rebuild() {
+        productStatsRepository.deleteAllStats();
+        int rows = productStatsRepository.rebuildAll();
+        log.info("Rebuilt product_stats for {} products", rows);
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.PRODUCT, null));
+        return rows;
+    }
+
+    // Bổ sung bản ghi còn thiếu để mọi sản phẩm đều xuất hiện trong các truy vấn danh sách (JOIN product_stats)
+    @Transactional
+    public int insertMissing() {
+        int rows = productStatsRepository.insertMissing();
+        if (rows > 0) {
+            log.info("Added product_stats for {} products", rows);
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.PRODUCT, null));
+        }
+        return rows;
+    }
+
+    public RespMessage rebuildStats() {
+        return messageBuilder.buildSuccessMessage(rebuild());
+    }
+}
@@ -1,10 +1,13 @@
 package com.haui.coffee_shop.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.haui.coffee_shop.common.Constant;
 import com.haui.coffee_shop.common.enums.Status;
+import com.haui.coffee_shop.common.event.CatalogChangedEvent;
 import com.haui.coffee_shop.config.MessageBuilder;
 import com.haui.coffee_shop.exception.CoffeeShopException;
 import com.haui.coffee_shop.model.OrderItem;
@@ -29,7 +32,10 @@ public class ReviewService {
     private final OrderItemRepository orderItemRepository;
     private final ProductRepository productRepository;
     private final ProductItemRepository productItemRepository;
+    private final ProductStatsService productStatsService;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Transactional
     public RespMessage addReview(ReviewRequet reviewRequet) {
         Optional<OrderItem> orderItemOptional = orderItemRepository.findById(reviewRequet.getOrderItemId());
         if (orderItemOptional.isPresent()) {
@@ -42,6 +48,9 @@ public class ReviewService {
             try {
                 orderItemRepository.save(orderItem);
                 reviewRepository.save(review);
+                long productId = orderItem.getProductItem().getProduct().getId();
+                productStatsService.addReview(productId, review.getRating());
+                eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.REVIEW, productId));
                 return messageBuilder.buildSuccessMessage(review.toResponse());
             } catch (CoffeeShopException e) {
                 throw new CoffeeShopException(Constant.UNDEFINED, null, "Review could not be saved");
@@ -57,13 +66,20 @@ public class ReviewService {
         return messageBuilder.buildSuccessMessage(reviewResponses);
     }
 
+    @Transactional
     public RespMessage deleteReview(long reviewId) {
         Optional<Review> reviewOptional = reviewRepository.findById(reviewId);
         if (reviewOptional.isPresent()) {
             Review review = reviewOptional.get();
+            boolean wasActive = review.getStatus() == Status.ACTIVE;
             review.setStatus(Status.INACTIVE);
             try {
                 reviewRepository.save(review);
+                if (wasActive) {
+                    long productId = review.getOrderItem().getProductItem().getProduct().getId();
+                    productStatsService.removeReview(productId, review.getRating());
+                    eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.REVIEW, productId));
+                }
                 return messageBuilder.buildSuccessMessage(review.toResponse());
             } catch (CoffeeShopException e) {
                 throw new CoffeeShopException(Constant.UNDEFINED, null, "Review could not be saved");
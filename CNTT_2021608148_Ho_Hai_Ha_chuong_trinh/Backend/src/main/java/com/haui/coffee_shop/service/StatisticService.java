@@ -5,16 +5,21 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import com.haui.coffee_shop.common.Constant;
 import com.haui.coffee_shop.config.MessageBuilder;
+import com.haui.coffee_shop.exception.CoffeeShopException;
 import com.haui.coffee_shop.model.Product;
 import com.haui.coffee_shop.model.User;
 import com.haui.coffee_shop.payload.response.ProductStatisticResponse;
 import com.haui.coffee_shop.payload.response.RespMessage;
+import com.haui.coffee_shop.payload.response.RevenueStatisticResponse;
 import com.haui.coffee_shop.payload.response.UserDTO;
 import com.haui.coffee_shop.payload.response.UserStatisticResponse;
 import com.haui.coffee_shop.repository.OrderItemRepository;
+import com.haui.coffee_shop.repository.OrderRepository;
 
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -23,6 +28,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class StatisticService {
     private final OrderItemRepository orderItemRepository;
+    private final OrderRepository orderRepository;
     private final MessageBuilder messageBuilder;
 
     public RespMessage getTop5MonthlySellingProduct(Date startDate, Date endDate) {
@@ -108,7 +114,7 @@ public class StatisticService {
     public RespMessage getTop5BestCustomers() {
 //        Pageable pageable = PageRequest.of(0, 5);
         try {
-            List<Object[]> results = orderItemRepository.findTop5BestCustomers();
+            List<Object[]> results = orderRepository.findTopCustomers();
             List<UserStatisticResponse> userStatisticResponses = new ArrayList<>();
             for (Object[] result : results) {
                 User user = (User) result[0];
@@ -126,7 +132,8 @@ public class StatisticService {
     public RespMessage getTop5MonthlyCustomers(int month, int year) {
         Pageable pageable = PageRequest.of(0, 5);
         try {
-            List<Object[]> results = orderItemRepository.findTop5MonthlyCustomers(month,year,pageable);
+            LocalDate firstDay = LocalDate.of(year, month, 1);
+            List<Object[]> results = orderRepository.findTopCustomersBetween(toDate(firstDay), toDate(firstDay.plusMonths(1)), pageable);
             List<UserStatisticResponse> userStatisticResponses = new ArrayList<>();
             for (Object[] result : results) {
                 User user = (User) result[0];
@@ -140,4 +147,35 @@ public class StatisticService {
             throw new RuntimeException("Error getting top 5 monthly customers");
         }
     }
+
+    // Doanh thu các đơn Completed từ startDate đến hết ngày endDate, tính trực tiếp trên cột total của bảng order
+    public RespMessage getRevenue(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[]{"endDate"}, "End date must not be before start date");
+        }
+        Date from = toDate(startDate);
+        Date to = toDate(endDate.plusDays(1));
+        Object[] summary = orderRepository.sumCompletedRevenue(from, to).get(0);
+        List<RevenueStatisticResponse.DailyRevenue> daily = new ArrayList<>();
+        for (Object[] row : orderRepository.sumCompletedRevenueByDay(from, to)) {
+            daily.add(new RevenueStatisticResponse.DailyRevenue(
+                    row[0].toString(),
+                    ((Number) row[1]).longValue(),
+                    ((Number) row[2]).doubleValue()));
+        }
+        RevenueStatisticResponse response = RevenueStatisticResponse.builder()
+                .startDate(startDate.toString())
+                .endDate(endDate.toString())
+                .orderCount(((Number) summary[0]).longValue())
+                .subtotal(((Number) summary[1]).doubleValue())
+                .shippingFee(((Number) summary[2]).doubleValue())
+                .total(((Number) summary[3]).doubleValue())
+                .daily(daily)
+                .build();
+        return messageBuilder.buildSuccessMessage(response);
+    }
+
+    private Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
 }
@@ -0,0 +1,154 @@
+package com.haui.coffee_shop.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.exception.CoffeeShopException;
+import com.haui.coffee_shop.inventory.InventoryReservationEngine;
+import com.haui.coffee_shop.model.ProductItem;
+import com.haui.coffee_shop.repository.ProductItemRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Giữ/trả hàng trong kho bằng câu UPDATE có điều kiện thay vì đọc - sửa - ghi.
+// Các dòng luôn được cập nhật theo thứ tự id tăng dần để hai đơn hàng cùng chứa
+// nhiều sản phẩm không khóa chéo nhau.
+// Khi bật InventoryReservationEngine thì việc giữ hàng diễn ra trong bộ nhớ và stock được ghi trễ
+@Service
+@RequiredArgsConstructor
+public class StockService {
+    private final ProductItemRepository productItemRepository;
+    private final InventoryReservationEngine inventoryReservationEngine;
+
+    // true khi stock trong product_item chưa được trừ lúc checkout (order_item ghi với stock_applied = false)
+    public boolean isWriteBehind() {
+        return inventoryReservationEngine.isEnabled();
+    }
+
+    // Trừ kho cho tất cả các dòng hoặc không dòng nào (rollback cùng giao dịch khi thiếu hàng).
+    // Trả về số lượng còn lại của từng ProductItem
+    @Transactional
+    public Map<Long, Integer> reserve(Map<Long, Integer> amounts) {
+        Map<Long, Integer> ordered = new TreeMap<>(amounts);
+        for (Map.Entry<Long, Integer> entry : ordered.entrySet()) {
+            if (entry.getValue() <= 0) {
+                throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[] {"order_amount"}, "Amount Item must be greater than 0");
+            }
+        }
+        if (inventoryReservationEngine.isEnabled()) {
+            return inventoryReservationEngine.reserve(ordered);
+        }
+        for (Map.Entry<Long, Integer> entry : ordered.entrySet()) {
+            long productItemId = entry.getKey();
+            if (productItemRepository.decrementStock(productItemId, entry.getValue()) == 0) {
+                if (!productItemRepository.existsById(productItemId)) {
+                    throw new CoffeeShopException(Constant.NOT_FOUND, new Object[] {"product_item"}, "ProductItem not found");
+                }
+                throw new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[] {"order_amount"}, "Amount Item cannot be greater than stock");
+            }
+        }
+        Map<Long, Integer> remaining = new HashMap<>();
+        for (ProductItem productItem : productItemRepository.findAllById(ordered.keySet())) {
+            remaining.put(productItem.getId(), productItem.getStock());
+        }
+        return remaining;
+    }
+
+    // Giữ hàng cho nhiều đơn trong một transaction: khóa các ProductItem liên quan một lần (theo id tăng dần),
+    // phân bổ cho từng đơn theo thứ tự đến rồi trừ kho bằng một câu UPDATE cho mỗi ProductItem.
+    // amountsByOrder có thể chứa null (đơn đã bị loại trước đó). Trả về lỗi của từng đơn (null nếu giữ được hàng),
+    // remaining nhận số lượng còn lại sau khi trừ
+    @Transactional
+    public List<CoffeeShopException> reserveBatch(List<Map<Long, Integer>> amountsByOrder, Map<Long, Integer> remaining) {
+        List<CoffeeShopException> errors = new ArrayList<>(Collections.nCopies(amountsByOrder.size(), null));
+        if (inventoryReservationEngine.isEnabled()) {
+            for (int i = 0; i < amountsByOrder.size(); i++) {
+                if (amountsByOrder.get(i) != null) {
+                    try {
+                        remaining.putAll(inventoryReservationEngine.reserve(new TreeMap<>(amountsByOrder.get(i))));
+                    } catch (CoffeeShopException e) {
+                        errors.set(i, e);
+                    }
+                }
+            }
+            return errors;
+        }
+
+        Set<Long> productItemIds = new TreeSet<>();
+        amountsByOrder.stream().filter(Objects::nonNull).forEach(amounts -> productItemIds.addAll(amounts.keySet()));
+        if (productItemIds.isEmpty()) {
+            return errors;
+        }
+        Map<Long, Integer> available = new HashMap<>();
+        for (Object[] row : productItemRepository.lockStocks(productItemIds)) {
+            available.put((Long) row[0], (Integer) row[1]);
+        }
+        Map<Long, Integer> taken = new TreeMap<>();
+        for (int i = 0; i < amountsByOrder.size(); i++) {
+            Map<Long, Integer> amounts = amountsByOrder.get(i);
+            if (amounts == null) {
+                continue;
+            }
+            CoffeeShopException error = null;
+            for (Map.Entry<Long, Integer> entry : amounts.entrySet()) {
+                Integer stock = available.get(entry.getKey());
+                if (stock == null) {
+                    error = new CoffeeShopException(Constant.NOT_FOUND, new Object[] {"product_item"}, "ProductItem not found");
+                    break;
+                }
+                if (entry.getValue() > stock) {
+                    error = new CoffeeShopException(Constant.FIELD_NOT_VALID, new Object[] {"order_amount"}, "Amount Item cannot be greater than stock");
+                    break;
+                }
+            }
+            if (error != null) {
+                errors.set(i, error);
+                continue;
+            }
+            for (Map.Entry<Long, Integer> entry : amounts.entrySet()) {
+                available.merge(entry.getKey(), -entry.getValue(), Integer::sum);
+                taken.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            }
+        }
+        for (Map.Entry<Long, Integer> entry : taken.entrySet()) {
+            // Các dòng đang bị khóa nên câu UPDATE luôn thành công
+            if (productItemRepository.decrementStock(entry.getKey(), entry.getValue()) == 0) {
+                throw new IllegalStateException("Stock of product item " + entry.getKey() + " changed while locked");
+            }
+            remaining.put(entry.getKey(), available.get(entry.getKey()));
+        }
+        return errors;
+    }
+
+    // Tồn kho hiện tại của ProductItem. Khi giữ hàng trong bộ nhớ, stock trong DB còn chưa trừ các đơn chưa flush
+    // nên đọc từ bộ đếm của engine
+    public int available(ProductItem productItem) {
+        return inventoryReservationEngine.isEnabled()
+                ? inventoryReservationEngine.available(productItem.getId())
+                : productItem.getStock();
+    }
+
+    @Transactional
+    public void release(Map<Long, Integer> amounts) {
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(amounts).entrySet()) {
+            productItemRepository.incrementStock(entry.getKey(), entry.getValue());
+        }
+        inventoryReservationEngine.release(amounts);
+    }
+
+    // Tồn kho bị đặt lại tuyệt đối (màn hình quản trị), gọi trước khi ghi stock mới
+    @Transactional
+    public void onStockOverwritten(long productItemId, int newStock) {
+        inventoryReservationEngine.onStockOverwritten(productItemId, newStock);
+    }
+}
@@ -0,0 +1,128 @@
+package com.haui.coffee_shop.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.haui.coffee_shop.common.GsonUtil;
+import com.haui.coffee_shop.common.enums.Status;
+import com.haui.coffee_shop.payload.response.BrandResponse;
+import com.haui.coffee_shop.payload.response.RespMessage;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Dữ liệu trong cache là bản tuần tự hóa: response giống hệt khi không có cache (cả Gson lẫn Jackson)
+// và việc sửa đối tượng gốc sau khi nạp không làm thay đổi dữ liệu đã cache
+class CatalogCacheTest {
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final CatalogCache catalogCache = new CatalogCache(10, 600, objectMapper);
+
+	@Test
+	void cachedDataSerializesLikeTheOriginal() throws Exception {
+		List<BrandResponse> brands = brands();
+		CachedJson cached = catalogCache.get("brand:all", () -> brands);
+
+		assertEquals(GsonUtil.getInstance().toJson(success(brands)), GsonUtil.getInstance().toJson(success(cached)));
+		assertEquals(objectMapper.writeValueAsString(success(brands)), objectMapper.writeValueAsString(success(cached)));
+	}
+
+	@Test
+	void mutatingLoadedObjectsDoesNotChangeCachedData() {
+		List<BrandResponse> brands = brands();
+		String expected = GsonUtil.getInstance().toJson(success(brands));
+		catalogCache.get("brand:all", () -> brands);
+
+		brands.get(0).setName("Đã sửa");
+		CachedJson cached = catalogCache.get("brand:all", () -> {
+			throw new AssertionError("should be served from cache");
+		});
+
+		assertEquals(expected, GsonUtil.getInstance().toJson(success(cached)));
+	}
+
+	@Test
+	void invalidateForcesReload() {
+		AtomicInteger loads = new AtomicInteger();
+		CachedJson first = catalogCache.get("brand:all", () -> {
+			loads.incrementAndGet();
+			return brands();
+		});
+		assertSame(first, catalogCache.get("brand:all", () -> {
+			loads.incrementAndGet();
+			return brands();
+		}));
+
+		catalogCache.invalidateAll();
+		catalogCache.get("brand:all", () -> {
+			loads.incrementAndGet();
+			return brands();
+		});
+
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void errorInLoaderReleasesWaitingThreads() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<CachedJson> loader = executor.submit(() -> catalogCache.get("brand:all", () -> {
+				loading.countDown();
+				await(release);
+				throw new StackOverflowError("simulated");
+			}));
+			assertTrue(loading.await(5, TimeUnit.SECONDS));
+			// Luồng thứ hai tới khi luồng đầu đang nạp nên phải chờ kết quả của nó
+			Future<CachedJson> waiter = executor.submit(() -> catalogCache.get("brand:all", () -> {
+				throw new AssertionError("should wait for the first load");
+			}));
+			// misses tăng ngay trước khi luồng chờ đăng ký vào lượt nạp đang chạy
+			while (((Number) catalogCache.getStats().get("misses")).longValue() < 2) {
+				Thread.sleep(5);
+			}
+			Thread.sleep(50);
+			release.countDown();
+
+			ExecutionException loaderError = assertThrows(ExecutionException.class, () -> loader.get(5, TimeUnit.SECONDS));
+			assertTrue(loaderError.getCause() instanceof StackOverflowError);
+			ExecutionException waiterError = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+			assertTrue(waiterError.getCause() instanceof StackOverflowError);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// Lỗi không được cache, lần gọi sau nạp lại bình thường
+		assertEquals(GsonUtil.getInstance().toJson(brands()),
+				GsonUtil.getInstance().toJson(catalogCache.get("brand:all", CatalogCacheTest::brands)));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static List<BrandResponse> brands() {
+		return List.of(
+				BrandResponse.builder().id(1).name("Trung Nguyên").status(Status.ACTIVE).description("Cà phê \"Việt\" <b>").build(),
+				BrandResponse.builder().id(2).name("Highlands").status(Status.ACTIVE).build());
+	}
+
+	private static RespMessage success(Object data) {
+		return RespMessage.builder().respCode("000").respDesc("Success").data(data).build();
+	}
+}
@@ -0,0 +1,135 @@
+package com.haui.coffee_shop.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.haui.coffee_shop.exception.CoffeeShopException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Request gửi lại nhận đúng response cũ, request trùng chạy song song chỉ thực thi một lần
+// và lỗi (kể cả Error) của request đầu không làm request đang chờ bị treo
+class IdempotencyStoreTest {
+	private static final String KEY = "order:user@gmail.com:key-1";
+	private static final String FINGERPRINT = "fingerprint";
+
+	private final IdempotencyStore store = new IdempotencyStore(100, 600, 5);
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void replaysStoredResponse() {
+		AtomicInteger calls = new AtomicInteger();
+		Supplier<ResponseEntity<String>> action = () -> ResponseEntity.ok("order " + calls.incrementAndGet());
+
+		ResponseEntity<String> first = store.execute(KEY, FINGERPRINT, action);
+		ResponseEntity<String> second = store.execute(KEY, FINGERPRINT, action);
+
+		assertEquals(1, calls.get());
+		assertEquals("order 1", first.getBody());
+		assertNull(first.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+		assertEquals("order 1", second.getBody());
+		assertEquals(HttpStatus.OK, second.getStatusCode());
+		assertEquals("true", second.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+	}
+
+	@Test
+	void rejectsSameKeyWithDifferentRequest() {
+		store.execute(KEY, FINGERPRINT, () -> ResponseEntity.ok("order"));
+
+		assertThrows(CoffeeShopException.class, () -> store.execute(KEY, "other", () -> ResponseEntity.ok("other")));
+	}
+
+	@Test
+	void concurrentDuplicatesRunOnce() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Supplier<ResponseEntity<String>> action = () -> {
+			calls.incrementAndGet();
+			started.countDown();
+			await(release);
+			return ResponseEntity.ok("order");
+		};
+
+		Future<ResponseEntity<String>> first = executor.submit(() -> store.execute(KEY, FINGERPRINT, action));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		Future<ResponseEntity<String>> duplicate = executor.submit(() -> store.execute(KEY, FINGERPRINT, action));
+		Future<ResponseEntity<String>> another = executor.submit(() -> store.execute(KEY, FINGERPRINT, action));
+		release.countDown();
+
+		assertEquals("order", first.get(5, TimeUnit.SECONDS).getBody());
+		assertEquals("order", duplicate.get(5, TimeUnit.SECONDS).getBody());
+		assertEquals("order", another.get(5, TimeUnit.SECONDS).getBody());
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	void errorInOriginalRequestAllowsRetry() {
+		assertThrows(OutOfMemoryError.class, () -> store.execute(KEY, FINGERPRINT, () -> {
+			throw new OutOfMemoryError("simulated");
+		}));
+
+		assertEquals(0, store.size());
+		assertEquals("retried", store.execute(KEY, FINGERPRINT, () -> ResponseEntity.ok("retried")).getBody());
+	}
+
+	@Test
+	void errorInOriginalRequestReleasesWaiters() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<ResponseEntity<String>> first = executor.submit(() -> store.execute(KEY, FINGERPRINT, () -> {
+			started.countDown();
+			await(release);
+			throw new OutOfMemoryError("simulated");
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		Future<ResponseEntity<String>> duplicate = executor.submit(() -> store.execute(KEY, FINGERPRINT,
+				() -> ResponseEntity.ok("duplicate")));
+		release.countDown();
+
+		ExecutionException firstError = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+		assertTrue(firstError.getCause() instanceof OutOfMemoryError);
+		// Request trùng nhận lỗi ngay (hoặc tự chạy lại nếu tới sau khi khóa đã bị gỡ), không chờ hết wait-seconds
+		try {
+			assertEquals("duplicate", duplicate.get(2, TimeUnit.SECONDS).getBody());
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof OutOfMemoryError);
+		}
+	}
+
+	@Test
+	void serverErrorIsNotStored() {
+		store.execute(KEY, FINGERPRINT, () -> ResponseEntity.internalServerError().body("failed"));
+
+		assertEquals(0, store.size());
+		assertEquals("ok", store.execute(KEY, FINGERPRINT, () -> ResponseEntity.ok("ok")).getBody());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.haui.coffee_shop.export;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.common.enums.OrderStatus;
+import com.haui.coffee_shop.common.enums.PaymentMethod;
+import com.haui.coffee_shop.common.enums.Status;
+import com.haui.coffee_shop.model.Order;
+import com.haui.coffee_shop.model.OrderItem;
+import com.haui.coffee_shop.model.Product;
+import com.haui.coffee_shop.model.ProductItem;
+import com.haui.coffee_shop.model.ShippingAddress;
+import com.haui.coffee_shop.model.TypeProduct;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+// Hóa đơn dựng ra phải là PDF đọc được; bộ đệm chỉ được dùng lại sau khi người gọi close()
+class InvoiceRendererTest {
+	private InvoiceRenderer renderer;
+	private Order order;
+	private List<OrderItem> items;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		renderer = new InvoiceRenderer(BaseFont.createFont(BaseFont.HELVETICA, BaseFont.CP1252, BaseFont.NOT_EMBEDDED));
+		order = order(42);
+		items = items(order, 3);
+	}
+
+	@Test
+	void rendersReadablePdf() throws Exception {
+		try (InvoiceRenderer.InvoiceBuffer pdf = renderer.render(order, items)) {
+			byte[] bytes = pdf.toByteArray();
+			assertTrue(bytes.length > 0);
+			assertEquals("%PDF-", new String(bytes, 0, 5, StandardCharsets.US_ASCII));
+
+			PdfReader reader = new PdfReader(bytes);
+			try {
+				assertTrue(reader.getNumberOfPages() >= 1);
+				assertTrue(PdfTextExtractor.getTextFromPage(reader, 1).contains("Moka 3"));
+			} finally {
+				reader.close();
+			}
+		}
+	}
+
+	@Test
+	void bufferIsReusedOnlyAfterClose() throws Exception {
+		InvoiceRenderer.InvoiceBuffer first = renderer.render(order, items);
+		byte[] firstBytes = first.toByteArray();
+
+		// first chưa close nên lần render này không được ghi đè lên nó
+		InvoiceRenderer.InvoiceBuffer second = renderer.render(order(43), items(order(43), 1));
+		assertNotSame(first, second);
+		assertArrayEquals(firstBytes, first.getInputStream().readAllBytes());
+
+		second.close();
+		first.close();
+		try (InvoiceRenderer.InvoiceBuffer third = renderer.render(order, items)) {
+			assertSame(second, third);
+		}
+	}
+
+	private static Order order(long id) {
+		ShippingAddress shippingAddress = new ShippingAddress();
+		shippingAddress.setId(id);
+		shippingAddress.setReceiverName("Nguyen Van An");
+		shippingAddress.setReceiverPhone("0912345678");
+		shippingAddress.setLocation("So 1, Tran Duy Hung, Cau Giay, Ha Noi");
+		shippingAddress.setStatus(Status.ACTIVE);
+
+		Order order = new Order();
+		order.setId(id);
+		order.setShippingAddress(shippingAddress);
+		order.setStatus(OrderStatus.Completed);
+		order.setPaymentMethod(PaymentMethod.COD);
+		order.setOrderDate(new Date());
+		order.setShippingFee(Constant.SHIPPING_FEE);
+		order.setTotal(300000 + Constant.SHIPPING_FEE);
+		return order;
+	}
+
+	private static List<OrderItem> items(Order order, int count) {
+		TypeProduct type = TypeProduct.builder().id(1).name("500g").status(Status.ACTIVE).build();
+		List<OrderItem> items = new ArrayList<>(count);
+		for (int i = 1; i <= count; i++) {
+			Product product = Product.builder().id(i).name("Moka " + i).status(Status.ACTIVE).build();
+			ProductItem productItem = ProductItem.builder().id(i).product(product).type(type).price(100000).discount(0)
+					.status(Status.ACTIVE).build();
+			OrderItem item = new OrderItem();
+			item.setId(order.getId() * 100 + i);
+			item.setOrder(order);
+			item.setProductItem(productItem);
+			item.setAmount(1);
+			item.setPrice(productItem.getPrice());
+			item.setDiscount(productItem.getDiscount());
+			items.add(item);
+		}
+		return items;
+	}
+}
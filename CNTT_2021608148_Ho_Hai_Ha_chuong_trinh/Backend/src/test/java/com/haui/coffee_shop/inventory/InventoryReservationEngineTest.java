@@ -0,0 +1,116 @@
+package com.haui.coffee_shop.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.haui.coffee_shop.common.enums.Status;
+import com.haui.coffee_shop.exception.CoffeeShopException;
+import com.haui.coffee_shop.model.ProductItem;
+import com.haui.coffee_shop.repository.ProductItemRepository;
+import com.haui.coffee_shop.service.ProductStatsService;
+
+import java.util.Map;
+
+// Quản trị viên sửa tồn kho khi đang có hàng được giữ trong bộ nhớ:
+// bộ đếm chỉ được cộng phần chênh lệch, không nạp lại từ DB rồi bán lại phần đang giữ
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+		"spring.datasource.url=jdbc:h2:mem:reservation;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.show-sql=false",
+		"inventory.reservation.enabled=true",
+		"inventory.reservation.stripes=4"
+})
+@Import(InventoryReservationEngine.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryReservationEngineTest {
+	@MockBean
+	private ProductStatsService productStatsService;
+	@Autowired
+	private InventoryReservationEngine engine;
+	@Autowired
+	private ProductItemRepository productItemRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@AfterEach
+	void cleanUp() {
+		productItemRepository.deleteAll();
+	}
+
+	@Test
+	void overwriteAppliesDeltaToHeldStock() {
+		long itemId = createItem(10);
+		// Giữ 4 nhưng chưa có dòng order_item nào trong DB (checkout chưa commit)
+		engine.reserve(Map.of(itemId, 4));
+
+		overwriteStock(itemId, 20, false);
+
+		assertEquals(16, engine.available(itemId));
+		engine.reserve(Map.of(itemId, 16));
+		assertThrows(CoffeeShopException.class, () -> engine.reserve(Map.of(itemId, 1)));
+	}
+
+	@Test
+	void loweringStockBelowHeldAmountBlocksFurtherSales() {
+		long itemId = createItem(10);
+		engine.reserve(Map.of(itemId, 8));
+
+		overwriteStock(itemId, 5, false);
+
+		assertEquals(-3, engine.available(itemId));
+		assertThrows(CoffeeShopException.class, () -> engine.reserve(Map.of(itemId, 1)));
+		// Đơn đang giữ bị hủy thì phần trả lại bù vào chỗ thiếu trước
+		engine.release(Map.of(itemId, 8));
+		assertEquals(5, engine.available(itemId));
+	}
+
+	@Test
+	void rolledBackOverwriteLeavesCounterUnchanged() {
+		long itemId = createItem(10);
+		engine.reserve(Map.of(itemId, 4));
+
+		overwriteStock(itemId, 20, true);
+
+		assertEquals(6, engine.available(itemId));
+	}
+
+	private void overwriteStock(long itemId, int stock, boolean rollback) {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			engine.onStockOverwritten(itemId, stock);
+			jdbcTemplate.update("UPDATE product_item SET stock = ? WHERE id = ?", stock, itemId);
+			if (rollback) {
+				status.setRollbackOnly();
+			}
+		});
+	}
+
+	private long createItem(int stock) {
+		ProductItem productItem = ProductItem.builder()
+				.price(10000)
+				.stock(stock)
+				.status(Status.ACTIVE)
+				.build();
+		return productItemRepository.save(productItem).getId();
+	}
+}
@@ -0,0 +1,75 @@
+package com.haui.coffee_shop.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class StripedCounterTest {
+
+	@Test
+	void grantsExactlyTheAvailableAmountUnderContention() throws Exception {
+		StripedCounter counter = new StripedCounter(8, 1000);
+		AtomicInteger granted = new AtomicInteger();
+
+		ExecutorService executor = Executors.newFixedThreadPool(32);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < 64; i++) {
+			int amount = i % 3 + 1;
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int n = 0; n < 200; n++) {
+					if (counter.tryAcquire(amount)) {
+						granted.addAndGet(amount);
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(30, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		// Không bán vượt và không bỏ sót: ít hơn 3 đơn vị có thể còn lại vì yêu cầu lớn hơn phần còn lại
+		assertTrue(granted.get() <= 1000);
+		assertEquals(1000 - granted.get(), counter.available());
+		assertTrue(counter.available() < 3);
+	}
+
+	@Test
+	void consolidatesStripesWhenNoSingleStripeIsEnough() {
+		StripedCounter counter = new StripedCounter(4, 8);
+
+		assertTrue(counter.tryAcquire(7));
+		assertFalse(counter.tryAcquire(2));
+		counter.release(5);
+		assertTrue(counter.tryAcquire(6));
+		assertEquals(0, counter.available());
+	}
+
+	@Test
+	void negativeAdjustmentIsNeverGranted() {
+		StripedCounter counter = new StripedCounter(4, 8);
+
+		assertTrue(counter.tryAcquire(3));
+		counter.add(-7);
+		assertEquals(-2, counter.available());
+		assertFalse(counter.tryAcquire(1));
+		counter.add(4);
+		assertTrue(counter.tryAcquire(2));
+		assertEquals(0, counter.available());
+	}
+}
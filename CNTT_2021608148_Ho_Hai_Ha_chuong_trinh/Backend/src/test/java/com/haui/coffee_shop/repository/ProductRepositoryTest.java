@@ -0,0 +1,90 @@
+package com.haui.coffee_shop.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+
+import com.haui.coffee_shop.common.enums.Status;
+import com.haui.coffee_shop.model.Brand;
+import com.haui.coffee_shop.model.Category;
+import com.haui.coffee_shop.model.Image;
+import com.haui.coffee_shop.model.Product;
+import com.haui.coffee_shop.model.ProductStats;
+import com.haui.coffee_shop.payload.response.ProductListResponse;
+
+import java.util.List;
+
+// Truy vấn danh sách sản phẩm dựng DTO trực tiếp: danh mục/thương hiệu chỉ gồm id và tên, sản phẩm ngừng bán bị loại
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+		"spring.datasource.url=jdbc:h2:mem:product_list;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=INFO",
+		"logging.level.org.hibernate.orm.jdbc.bind=INFO"
+})
+class ProductRepositoryTest {
+	@Autowired
+	private ProductRepository productRepository;
+	@Autowired
+	private ProductStatsRepository productStatsRepository;
+	@Autowired
+	private CategoryRepository categoryRepository;
+	@Autowired
+	private BrandRepository brandRepository;
+	@Autowired
+	private ImageRepository imageRepository;
+
+	@Test
+	void listQueriesProjectSlimRows() {
+		Category category = categoryRepository.save(new Category(0, "Cà phê hạt", Status.ACTIVE, "Mô tả", null, "Bài viết", "Nội dung dài"));
+		Brand brand = brandRepository.save(new Brand(0, "Trung Nguyên", Status.ACTIVE, "Mô tả", "Bài viết", "Nội dung dài"));
+		Product active = save("Arabica Cầu Đất", category, brand, Status.ACTIVE, 120);
+		save("Robusta ngừng bán", category, brand, Status.INACTIVE, 5);
+		Image first = imageRepository.save(new Image(0, "https://img/1.jpg", active));
+		imageRepository.save(new Image(0, "https://img/2.jpg", active));
+
+		List<ProductListResponse> rows = productRepository.findListByCategoryIdAndStatus(category.getId(), Status.ACTIVE);
+
+		assertEquals(1, rows.size());
+		ProductListResponse row = rows.get(0);
+		assertEquals(active.getId(), row.getId());
+		assertEquals(new ProductListResponse.Ref(category.getId(), "Cà phê hạt"), row.getCategory());
+		assertEquals(new ProductListResponse.Ref(brand.getId(), "Trung Nguyên"), row.getBrand());
+		assertEquals("Robusta", row.getBeanType());
+		assertEquals(120, row.getTotalSold());
+		assertEquals(4.5, row.getRating());
+		assertEquals(List.of(active.getId()), productRepository.findListByBrandIdAndStatus(brand.getId(), Status.ACTIVE)
+				.stream().map(ProductListResponse::getId).toList());
+		assertEquals(1, productRepository.findActiveListByIdIn(List.of(active.getId(), active.getId() + 1)).size());
+
+		List<Object[]> images = imageRepository.findUrlsByProductIdIn(List.of(active.getId()));
+		assertEquals(2, images.size());
+		assertEquals(first.getId(), images.get(0)[1]);
+		assertEquals("https://img/1.jpg", images.get(0)[2]);
+		assertEquals(List.of(active.getId()), productRepository.findListByStatus(Status.ACTIVE).stream()
+				.map(ProductListResponse::getId).toList());
+	}
+
+	private Product save(String name, Category category, Brand brand, Status status, int sold) {
+		Product product = productRepository.save(Product.builder()
+				.name(name)
+				.description("<p>Mô tả rất dài</p>")
+				.article("Bài viết rất dài")
+				.category(category)
+				.brand(brand)
+				.status(status)
+				.beanType("Robusta")
+				.build());
+		productStatsRepository.save(new ProductStats(product.getId(), 9, 2, 4.5, sold, 100000, 200000, null));
+		return product;
+	}
+}
@@ -0,0 +1,123 @@
+package com.haui.coffee_shop.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.haui.coffee_shop.common.enums.Status;
+import com.haui.coffee_shop.model.Brand;
+import com.haui.coffee_shop.model.Category;
+import com.haui.coffee_shop.model.Product;
+import com.haui.coffee_shop.model.ProductStats;
+import com.haui.coffee_shop.payload.response.AutocompleteSuggestion;
+import com.haui.coffee_shop.repository.ProductRepository;
+import com.haui.coffee_shop.service.ProductStatsService;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Cập nhật từng sản phẩm phải cho cùng kết quả gợi ý với việc nạp lại toàn bộ trie
+class AutocompleteIndexTest {
+	private static final List<String> PREFIXES = List.of(
+			"a", "ar", "arabica", "c", "ca phe", "cau", "r", "robusta", "h", "highlands", "honey", "t", "trung nguyen",
+			"s", "son la", "b", "bot", "hat", "m", "x");
+
+	private final Brand trungNguyen = new Brand(1, "Trung Nguyên", Status.ACTIVE, null, null, null);
+	private final Brand highlands = new Brand(2, "Highlands", Status.ACTIVE, null, null, null);
+	private final Category beans = new Category(1, "Cà phê hạt", Status.ACTIVE, null, null, null, null);
+	private final Category ground = new Category(2, "Cà phê bột", Status.ACTIVE, null, null, null, null);
+
+	private final Map<Long, Product> products = new HashMap<>();
+	private final Map<Long, ProductStats> stats = new HashMap<>();
+	private AutocompleteIndex index;
+
+	@BeforeEach
+	void setUp() {
+		save(1, "Cà phê Arabica Cầu Đất", trungNguyen, beans, Status.ACTIVE, 10);
+		save(2, "Arabica Sơn La", highlands, beans, Status.ACTIVE, 50);
+		save(3, "Robusta Buôn Ma Thuột", trungNguyen, ground, Status.ACTIVE, 5);
+		index = newIndex();
+	}
+
+	@Test
+	void incrementalUpdatesMatchFullReload() {
+		// Đổi tên và số lượng bán
+		save(1, "Robusta Honey", trungNguyen, beans, Status.ACTIVE, 100);
+		assertSameAsReload(1);
+		// Đổi brand và category
+		save(2, "Arabica Sơn La", trungNguyen, ground, Status.ACTIVE, 50);
+		assertSameAsReload(2);
+		// Ngừng bán: brand/category không còn sản phẩm nào thì không còn được gợi ý
+		save(3, "Robusta Buôn Ma Thuột", highlands, ground, Status.INACTIVE, 5);
+		assertSameAsReload(3);
+		// Sản phẩm mới
+		save(4, "Highlands Moka", highlands, beans, Status.ACTIVE, 70);
+		assertSameAsReload(4);
+		// Xóa hẳn
+		products.remove(4L);
+		stats.remove(4L);
+		assertSameAsReload(4);
+
+		assertTrue(index.suggest("highlands", 10).isEmpty());
+	}
+
+	@Test
+	void suggestionsAreOrderedByWeight() {
+		List<AutocompleteSuggestion> suggestions = index.suggest("arabica", 10);
+
+		assertEquals(List.of(2L, 1L), suggestions.stream().map(AutocompleteSuggestion::getId).toList());
+	}
+
+	private void assertSameAsReload(long productId) {
+		index.update(productId);
+		AutocompleteIndex reloaded = newIndex();
+		for (String prefix : PREFIXES) {
+			assertEquals(reloaded.suggest(prefix, 10), index.suggest(prefix, 10), "prefix " + prefix);
+		}
+	}
+
+	private AutocompleteIndex newIndex() {
+		ProductRepository productRepository = mock(ProductRepository.class);
+		when(productRepository.findByStatus(Status.ACTIVE)).thenAnswer(invocation -> products.values().stream()
+				.filter(product -> product.getStatus() == Status.ACTIVE)
+				.toList());
+		when(productRepository.findById(anyLong()))
+				.thenAnswer(invocation -> Optional.ofNullable(products.get(invocation.<Long>getArgument(0))));
+		ProductStatsService productStatsService = mock(ProductStatsService.class);
+		when(productStatsService.findByProductIds(any())).thenAnswer(invocation -> {
+			Map<Long, ProductStats> result = new HashMap<>();
+			for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+				if (stats.containsKey(id)) {
+					result.put(id, stats.get(id));
+				}
+			}
+			return result;
+		});
+		AutocompleteIndex autocompleteIndex = new AutocompleteIndex(productRepository, productStatsService);
+		autocompleteIndex.reload();
+		return autocompleteIndex;
+	}
+
+	private void save(long id, String name, Brand brand, Category category, Status status, int sold) {
+		products.put(id, Product.builder()
+				.id(id)
+				.name(name)
+				.brand(brand)
+				.category(category)
+				.status(status)
+				.build());
+		ProductStats productStats = new ProductStats();
+		productStats.setProductId(id);
+		productStats.setTotalSold(sold);
+		stats.put(id, productStats);
+	}
+}
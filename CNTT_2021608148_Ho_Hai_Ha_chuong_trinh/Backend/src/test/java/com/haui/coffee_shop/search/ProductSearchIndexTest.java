@@ -0,0 +1,100 @@
+package com.haui.coffee_shop.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.haui.coffee_shop.common.enums.Status;
+import com.haui.coffee_shop.model.Product;
+import com.haui.coffee_shop.repository.ProductRepository;
+import com.haui.coffee_shop.utils.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+// Lọc ứng viên theo bigram không được bỏ sót term nào mà duyệt toàn bộ từ điển tìm được
+class ProductSearchIndexTest {
+	private final Map<Long, Product> products = new HashMap<>();
+	private ProductSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		save(1, "Cà phê Arabica Cầu Đất");
+		save(2, "Robusta Buôn Ma Thuột");
+		save(3, "Culi Honey Sơn La");
+		save(4, "Moka Lâm Đồng nguyên chất");
+
+		ProductRepository productRepository = mock(ProductRepository.class);
+		when(productRepository.findByStatus(Status.ACTIVE)).thenAnswer(invocation -> List.copyOf(products.values()));
+		when(productRepository.findById(anyLong()))
+				.thenAnswer(invocation -> Optional.ofNullable(products.get(invocation.<Long>getArgument(0))));
+		index = new ProductSearchIndex(productRepository);
+		index.rebuild();
+	}
+
+	@Test
+	void fuzzyMatchesTypos() {
+		assertEquals(List.of(1L), index.search("arabika", 10));
+		assertEquals(List.of(2L), index.search("robuta", 10));
+		assertEquals(List.of(2L), index.search("thuoot", 10));
+		assertEquals(List.of(4L), index.search("nguyeen chaat", 10));
+		assertTrue(index.search("xyzw", 10).isEmpty());
+	}
+
+	@Test
+	void fuzzyCandidatesMatchFullScan() {
+		List<String> vocabulary = new TreeSet<>(products.values().stream()
+				.flatMap(product -> TextNormalizer.tokenize(product.getName()).stream())
+				.toList()).stream().toList();
+		// Sinh mọi biến thể sửa 1 ký tự (xóa/thay/chèn) của từng term
+		for (String term : vocabulary) {
+			for (String typo : typos(term)) {
+				if (typo.length() < 4 || vocabulary.stream().anyMatch(word -> word.startsWith(typo))) {
+					continue;
+				}
+				int maxDistance = typo.length() >= 8 ? 2 : 1;
+				List<Long> expected = products.values().stream()
+						.filter(product -> TextNormalizer.tokenize(product.getName()).stream()
+								.anyMatch(word -> ProductSearchIndex.editDistance(typo, word, maxDistance) <= maxDistance))
+						.map(Product::getId)
+						.sorted()
+						.toList();
+				assertEquals(expected, index.search(typo, 10).stream().sorted().toList(), "typo " + typo);
+			}
+		}
+	}
+
+	@Test
+	void reindexUpdatesFuzzyCandidates() {
+		save(3, "Culi Cầu Đất");
+		index.reindex(3);
+
+		assertTrue(index.search("honei", 10).isEmpty());
+		assertEquals(List.of(3L), index.search("culii", 10));
+	}
+
+	private static List<String> typos(String term) {
+		List<String> typos = new ArrayList<>();
+		for (int i = 0; i <= term.length(); i++) {
+			if (i < term.length()) {
+				typos.add(term.substring(0, i) + term.substring(i + 1));
+				typos.add(term.substring(0, i) + 'x' + term.substring(i + 1));
+			}
+			typos.add(term.substring(0, i) + 'q' + term.substring(i));
+		}
+		return typos;
+	}
+
+	private void save(long id, String name) {
+		products.put(id, Product.builder().id(id).name(name).status(Status.ACTIVE).build());
+	}
+}
@@ -0,0 +1,53 @@
+package com.haui.coffee_shop.service;
+
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.haui.coffee_shop.cache.IdempotencyStore;
+import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.config.MessageBuilder;
+import com.haui.coffee_shop.controller.OrderController;
+
+// Hàng đợi checkout đầy thì POST /api/order/async trả 503 kèm Retry-After, không chờ chỗ trống.
+// Worker không được khởi động nên các ticket nằm yên trong hàng đợi
+class CheckoutQueueServiceTest {
+	private static final int QUEUE_CAPACITY = 2;
+	private static final String ORDER_JSON = "{\"OrderItems\":[{\"ProductItemId\":1,\"Amount\":1}],\"ShippingAddressId\":1,\"PaymentMethod\":\"COD\"}";
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		MessageBuilder messageBuilder = new MessageBuilder(new StaticMessageSource());
+		CheckoutQueueService checkoutQueueService = new CheckoutQueueService(true, QUEUE_CAPACITY, 1, 50, 600,
+				mock(OrderService.class), messageBuilder, mock(SimpMessageSendingOperations.class));
+		OrderController orderController = new OrderController(mock(OrderService.class), messageBuilder,
+				mock(IdempotencyStore.class), checkoutQueueService);
+		mockMvc = MockMvcBuilders.standaloneSetup(orderController).build();
+	}
+
+	@Test
+	void saturatedQueueReturnsServiceUnavailable() throws Exception {
+		for (int i = 0; i < QUEUE_CAPACITY; i++) {
+			mockMvc.perform(post("/api/order/async").contentType(MediaType.APPLICATION_JSON).content(ORDER_JSON))
+					.andExpect(status().isAccepted());
+		}
+
+		mockMvc.perform(post("/api/order/async").contentType(MediaType.APPLICATION_JSON).content(ORDER_JSON))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+				.andExpect(jsonPath("$.respCode").value(Constant.SERVICE_BUSY));
+	}
+}
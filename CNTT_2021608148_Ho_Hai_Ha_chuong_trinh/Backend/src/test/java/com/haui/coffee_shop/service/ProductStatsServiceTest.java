@@ -0,0 +1,49 @@
+package com.haui.coffee_shop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.haui.coffee_shop.common.event.CatalogChangedEvent;
+import com.haui.coffee_shop.common.event.ProductSoldEvent;
+import com.haui.coffee_shop.config.MessageBuilder;
+import com.haui.coffee_shop.repository.ProductStatsRepository;
+
+import java.util.List;
+
+// Số lượng bán thay đổi phải dẫn tới CatalogChangedEvent của sản phẩm (để ETag/cache đổi theo),
+// gom lại mỗi sản phẩm một sự kiện mỗi chu kỳ
+class ProductStatsServiceTest {
+	private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+	private final ProductStatsService productStatsService = new ProductStatsService(mock(ProductStatsRepository.class),
+			mock(MessageBuilder.class), eventPublisher);
+
+	@Test
+	void soldChangesArePublishedOncePerProduct() {
+		productStatsService.onProductSold(new ProductSoldEvent(1));
+		productStatsService.onProductSold(new ProductSoldEvent(2));
+		productStatsService.onProductSold(new ProductSoldEvent(1));
+
+		productStatsService.publishSoldChanges();
+
+		ArgumentCaptor<CatalogChangedEvent> events = ArgumentCaptor.forClass(CatalogChangedEvent.class);
+		verify(eventPublisher, times(2)).publishEvent(events.capture());
+		assertEquals(List.of(1L, 2L), events.getAllValues().stream().map(CatalogChangedEvent::getProductId).sorted().toList());
+		events.getAllValues().forEach(event -> assertEquals(CatalogChangedEvent.Type.PRODUCT, event.getType()));
+	}
+
+	@Test
+	void publishedChangesAreNotRepeated() {
+		productStatsService.onProductSold(new ProductSoldEvent(1));
+		productStatsService.publishSoldChanges();
+		productStatsService.publishSoldChanges();
+
+		verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+	}
+}
@@ -0,0 +1,208 @@
+package com.haui.coffee_shop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.haui.coffee_shop.common.Constant;
+import com.haui.coffee_shop.common.enums.Status;
+import com.haui.coffee_shop.exception.CoffeeShopException;
+import com.haui.coffee_shop.inventory.InventoryReservationEngine;
+import com.haui.coffee_shop.model.ProductItem;
+import com.haui.coffee_shop.repository.ProductItemRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Nhiều luồng cùng đặt hàng một lúc: tổng số lượng bán ra không bao giờ vượt quá tồn kho.
+// Một đơn thiếu hàng ở bất kỳ dòng nào thì không dòng nào của đơn đó bị trừ kho
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+		"spring.datasource.url=jdbc:h2:mem:stock;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.hikari.maximum-pool-size=32",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=INFO",
+		"logging.level.org.hibernate.orm.jdbc.bind=INFO"
+})
+@Import(StockService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockServiceConcurrencyTest {
+	private static final int THREADS = 32;
+
+	// Engine giữ hàng trong bộ nhớ ở trạng thái tắt: kiểm tra đường UPDATE có điều kiện
+	@MockBean
+	private InventoryReservationEngine inventoryReservationEngine;
+	@Autowired
+	private StockService stockService;
+	@Autowired
+	private ProductItemRepository productItemRepository;
+
+	@AfterEach
+	void cleanUp() {
+		productItemRepository.deleteAll();
+	}
+
+	@Test
+	void singleItemNeverOversells() throws Exception {
+		long itemId = createItem(100);
+
+		AtomicInteger sold = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		runConcurrently(1000, i -> {
+			try {
+				stockService.reserve(Map.of(itemId, 1));
+				sold.incrementAndGet();
+			} catch (CoffeeShopException e) {
+				rejected.incrementAndGet();
+			}
+		});
+
+		assertEquals(100, sold.get());
+		assertEquals(900, rejected.get());
+		assertEquals(0, productItemRepository.findById(itemId).orElseThrow().getStock());
+	}
+
+	@Test
+	void multiLineOrdersDoNotDeadlockOrPartiallyReserve() throws Exception {
+		long firstId = createItem(200);
+		long secondId = createItem(150);
+
+		AtomicInteger sold = new AtomicInteger();
+		runConcurrently(1000, i -> {
+			// Thứ tự dòng trong đơn hàng bị đảo xen kẽ
+			Map<Long, Integer> amounts = new LinkedHashMap<>();
+			if (i % 2 == 0) {
+				amounts.put(firstId, 2);
+				amounts.put(secondId, 1);
+			} else {
+				amounts.put(secondId, 1);
+				amounts.put(firstId, 2);
+			}
+			try {
+				stockService.reserve(amounts);
+				sold.incrementAndGet();
+			} catch (CoffeeShopException e) {
+				// hết hàng
+			}
+		});
+
+		int firstStock = productItemRepository.findById(firstId).orElseThrow().getStock();
+		int secondStock = productItemRepository.findById(secondId).orElseThrow().getStock();
+		assertEquals(100, sold.get());
+		assertEquals(0, firstStock);
+		assertEquals(50, secondStock);
+	}
+
+	@Test
+	void releaseRestoresStock() throws Exception {
+		// Mỗi luồng giữ tối đa một đơn vị tại một thời điểm nên tồn kho THREADS không bao giờ hết:
+		// mọi lần giữ hàng đều phải thành công
+		long itemId = createItem(THREADS);
+
+		AtomicInteger reserved = new AtomicInteger();
+		runConcurrently(200, i -> {
+			stockService.reserve(Map.of(itemId, 1));
+			reserved.incrementAndGet();
+			stockService.release(Map.of(itemId, 1));
+		});
+
+		assertEquals(200, reserved.get());
+		assertEquals(THREADS, productItemRepository.findById(itemId).orElseThrow().getStock());
+	}
+
+	@Test
+	void reserveBatchRejectsWholeOrderWhenOneLineIsShort() {
+		long firstId = createItem(10);
+		long secondId = createItem(1);
+
+		List<Map<Long, Integer>> amountsByOrder = new ArrayList<>();
+		amountsByOrder.add(Map.of(firstId, 3, secondId, 2));
+		amountsByOrder.add(null);
+		amountsByOrder.add(Map.of(firstId, 4));
+		amountsByOrder.add(Map.of(secondId, 1));
+		Map<Long, Integer> remaining = new HashMap<>();
+		List<CoffeeShopException> errors = stockService.reserveBatch(amountsByOrder, remaining);
+
+		// Đơn đầu thiếu hàng ở dòng thứ hai: không dòng nào của đơn bị trừ, các đơn sau vẫn được giữ hàng
+		assertEquals(Constant.FIELD_NOT_VALID, errors.get(0).getCode());
+		assertNull(errors.get(1));
+		assertNull(errors.get(2));
+		assertNull(errors.get(3));
+		assertEquals(6, productItemRepository.findById(firstId).orElseThrow().getStock());
+		assertEquals(0, productItemRepository.findById(secondId).orElseThrow().getStock());
+		assertEquals(Map.of(firstId, 6, secondId, 0), remaining);
+	}
+
+	@Test
+	void reserveRollsBackEarlierLinesWhenLaterLineIsShort() {
+		long firstId = createItem(10);
+		long secondId = createItem(1);
+
+		// Dòng firstId được trừ trước (id nhỏ hơn) rồi mới phát hiện secondId thiếu hàng
+		assertThrows(CoffeeShopException.class, () -> stockService.reserve(Map.of(firstId, 3, secondId, 2)));
+
+		assertEquals(10, productItemRepository.findById(firstId).orElseThrow().getStock());
+		assertEquals(1, productItemRepository.findById(secondId).orElseThrow().getStock());
+	}
+
+	private long createItem(int stock) {
+		ProductItem productItem = ProductItem.builder()
+				.price(10000)
+				.stock(stock)
+				.status(Status.ACTIVE)
+				.build();
+		return productItemRepository.save(productItem).getId();
+	}
+
+	private void runConcurrently(int tasks, Task task) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < tasks; i++) {
+			int index = i;
+			futures.add(executor.submit(() -> {
+				start.await();
+				task.run(index);
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			// Lỗi khác CoffeeShopException (deadlock, lock timeout) làm test thất bại tại đây
+			future.get(60, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+	}
+
+	@FunctionalInterface
+	private interface Task {
+		void run(int index) throws Exception;
+	}
+}
@@ -3,6 +3,7 @@ import { List, Avatar, Input, Spin, Button, Typography, Pagination } from "antd"
 import { LoadingOutlined, SendOutlined, UserOutlined } from "@ant-design/icons";
 import { Stomp } from "@stomp/stompjs";
 import SockJS from "sockjs-client";
+import Cookies from "js-cookie";
 import { useSelector } from "react-redux";
 import fetchWithAuth from "../../../helps/fetchWithAuth";
 import summaryApi from "../../../common/index";
@@ -56,8 +57,9 @@ const ChatContent = () => {
     setLoading(true);
     const socketFactory = () => new SockJS(`${process.env.REACT_APP_BACKEND_URL}ws`);
     stompClient.current = Stomp.over(socketFactory);
+    // /topic/admin chỉ cho phép ADMIN/STAFF đăng ký, server xác thực bằng token gửi trong frame CONNECT
     stompClient.current.connect(
-      {},
+      { Authorization: `Bearer ${Cookies.get("token")}` },
       () => {
         setLoading(false);
         stompClient.current.subscribe("/topic/admin", (data) => {
@@ -322,7 +322,6 @@ const ProductTable = ({ products, setProducts, categories, brands, setCategories
         if (product) {
             form.setFieldsValue({
                 name: product.name,
-                description: product.description,
                 category: product.category?.id,
                 brand: product.brand?.id,
                 netWeight: product.netWeight,
@@ -332,13 +331,33 @@ const ProductTable = ({ products, setProducts, categories, brands, setCategories
                 flavoNotes: product.flavoNotes,
                 caffeineContents: product.caffeineContents,
                 cafeForm: product.cafeForm,
-                articleTitle: product.articleTitle,
-                article: product.article,
             });
+            fetchProductContent(product.id);
         } else {
             if (!currentProduct) form.resetFields();
         }
     }
+    // Danh sách sản phẩm không kèm mô tả và bài viết, lấy từ API chi tiết khi mở form sửa
+    const fetchProductContent = async (productId) => {
+        try {
+            const response = await fetch(summaryApi.productDetails.url + productId, {
+                method: summaryApi.productDetails.method,
+                headers: {
+                    "Content-Type": "application/json",
+                },
+            });
+            const result = await response.json();
+            if (result.respCode === "000") {
+                form.setFieldsValue({
+                    description: result.data.description,
+                    articleTitle: result.data.articleTitle,
+                    article: result.data.article,
+                });
+            }
+        } catch (error) {
+            console.log("error", error);
+        }
+    }
     const handleUpdateProduct = (values) => {
         const fetchUpdateProduct = async () => {
             const response = await fetchWithAuth(summaryApi.updateProduct.url + currentProduct.id, {
@@ -534,16 +553,6 @@ const ProductTable = ({ products, setProducts, categories, brands, setCategories
             onFilter: (value, record) => record.brand?.id === value,
             render: (text) => <Tag color="green">{text || 'N/A'}</Tag>
         },
-        {
-            title: 'Mô tả',
-            dataIndex: 'description',
-            key: 'description',
-            render: (text) => (
-                <Tooltip title={text}>
-                    <div className="max-w-xs truncate">{text || 'N/A'}</div>
-                </Tooltip>
-            )
-        },
         ...(user?.roleName !== 'ROLE_STAFF' ? [
             {
                 title: 'Hành động',
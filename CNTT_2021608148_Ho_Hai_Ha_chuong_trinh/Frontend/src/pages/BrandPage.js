@@ -9,6 +9,7 @@ import ProductSlider from "../components/layout/ProductSlider";
 
 const BrandPage = () => {
   const [products, setProducts] = useState([]);
+  const [brand, setBrand] = useState(null);
   const { brandName, brandId } = useParams();
   const [loading, setLoading] = useState(false);
   const [onClickFilter, setOnClickFilter] = useState(false);
@@ -89,6 +90,28 @@ const BrandPage = () => {
     fetchProductByBrand();
   }, [brandId]);
 
+  // Danh sách sản phẩm không kèm bài viết, lấy bài viết từ danh sách thương hiệu (được cache và có ETag)
+  useEffect(() => {
+    const fetchBrand = async () => {
+      try {
+        const response = await fetch(summaryApi.allBrand.url, {
+          method: summaryApi.allBrand.method,
+          headers: {
+            "Content-Type": "application/json",
+          },
+        });
+
+        const result = await response.json();
+        if (result.respCode === "000") {
+          setBrand(result.data.find((item) => String(item.id) === String(brandId)) || null);
+        }
+      } catch (error) {
+        console.log("error", error);
+      }
+    };
+    fetchBrand();
+  }, [brandId]);
+
   useEffect(() => {
     const fetchBestSellingProduct = async () => {
       try {
@@ -121,11 +144,11 @@ const BrandPage = () => {
 
   return (
     <>
-      {products[0]?.brand && (
+      {brand && (
         <ArticleComponent
           keyword={brandName}
-          title={products[0].brand.articleTitle}
-          article={products[0].brand.article}
+          title={brand.articleTitle}
+          article={brand.article}
         />
       )}
 
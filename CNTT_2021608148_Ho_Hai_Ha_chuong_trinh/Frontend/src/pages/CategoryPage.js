@@ -9,6 +9,7 @@ import ProductSlider from "../components/layout/ProductSlider";
 
 const CategoryPage = () => {
   const [products, setProducts] = useState([]);
+  const [category, setCategory] = useState(null);
   const { categoryName, categoryId } = useParams();
   const [loading, setLoading] = useState(false);
   const [onClickFilter, setOnClickFilter] = useState(false);
@@ -88,6 +89,28 @@ const CategoryPage = () => {
     fetchProductByCategory();
   }, [categoryId]);
 
+  // Danh sách sản phẩm không kèm bài viết, lấy bài viết từ danh sách danh mục (được cache và có ETag)
+  useEffect(() => {
+    const fetchCategory = async () => {
+      try {
+        const response = await fetch(summaryApi.allCategory.url, {
+          method: summaryApi.allCategory.method,
+          headers: {
+            "Content-Type": "application/json",
+          },
+        });
+
+        const result = await response.json();
+        if (result.respCode === "000") {
+          setCategory(result.data.find((item) => String(item.id) === String(categoryId)) || null);
+        }
+      } catch (error) {
+        console.log("error", error);
+      }
+    };
+    fetchCategory();
+  }, [categoryId]);
+
   useEffect(() => {
     const fetchBestSellingProduct = async () => {
       try {
@@ -120,11 +143,11 @@ const CategoryPage = () => {
 
   return (
     <>
-      {products[0]?.category && (
+      {category && (
         <ArticleComponent
           keyword={categoryName}
-          title={products[0].category.articleTitle}
-          article={products[0].category.article}
+          title={category.articleTitle}
+          article={category.article}
         />
       )}
 